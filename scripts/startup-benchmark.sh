@@ -0,0 +1,115 @@
+#!/usr/bin/env bash
+#
+# Tempo até o readiness e latência da primeira requisição, em três modos de partida:
+#   plain    java -jar, sem nada
+#   aot-cds  contexto gerado em build time (mvn -Paot-cds package) + arquivo CDS treinado aqui
+#   crac     restore de um checkpoint tirado com a aplicação já pronta e aquecida (exige JDK com CRaC)
+#
+# Uso: scripts/startup-benchmark.sh [plain|aot-cds|crac|all] [repetições]
+# Precisa das mesmas variáveis de ambiente da aplicação (USDA_API_KEY, WHATSAPP_*...); o POST do
+# webhook é assinado com WHATSAPP_APP_SECRET, como a Meta faz.
+# Os dados (journal, histórico, snapshot) ficam num diretório temporário por execução.
+
+set -euo pipefail
+
+MODE=${1:-all}
+RUNS=${2:-5}
+PORT=${PORT:-18080}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+JAR=$(ls "$ROOT"/target/tcc-bot-*.jar 2>/dev/null | grep -v original | head -1 || true)
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+JVM_OPTS=(--add-modules=jdk.incubator.vector -Dserver.port="$PORT")
+
+# Status update: percorre o parse do webhook sem enviar nada ao usuário
+PAYLOAD='{"object":"whatsapp_business_account","entry":[{"id":"0","changes":[{"field":"messages","value":{"messaging_product":"whatsapp","statuses":[{"id":"wamid.BENCH","status":"delivered"}]}}]}]}'
+SIGNATURE="sha256=$(printf '%s' "$PAYLOAD" | openssl dgst -sha256 -hmac "${WHATSAPP_APP_SECRET:?defina WHATSAPP_APP_SECRET}" | awk '{ print $NF }')"
+
+if [[ -z "$JAR" ]]; then
+    echo "Jar não encontrado; rode antes: mvn -Paot-cds -DskipTests package" >&2
+    exit 1
+fi
+
+now_ms() { echo $(( $(date +%s%N) / 1000000 )); }
+
+wait_ready() {
+    local deadline=$(( $(now_ms) + 120000 ))
+    until curl -sf -o /dev/null "http://localhost:$PORT/actuator/health/readiness"; do
+        if (( $(now_ms) > deadline )); then
+            echo "A aplicação não ficou pronta em 120 s" >&2
+            return 1
+        fi
+        sleep 0.02
+    done
+}
+
+first_request() {
+    curl -s -o /dev/null -w '%{time_total}' -X POST -H 'Content-Type: application/json' \
+        -H "X-Hub-Signature-256: $SIGNATURE" --data "$PAYLOAD" "http://localhost:$PORT/webhook" | awk '{ printf "%.1f", $1 * 1000 }'
+}
+
+# run <modo> <n> <comando...>: sobe, mede e derruba
+run() {
+    local mode=$1 n=$2; shift 2
+    local work; work=$(mktemp -d)
+    local start; start=$(now_ms)
+    (cd "$work" && exec "$@" > "$work/app.log" 2>&1) &
+    local pid=$!
+    wait_ready
+    local ready=$(( $(now_ms) - start ))
+    local first; first=$(first_request)
+    printf '%-8s %3d %10d %14s\n' "$mode" "$n" "$ready" "$first"
+    kill "$pid" 2>/dev/null; wait "$pid" 2>/dev/null || true
+    rm -rf "$work"
+}
+
+bench_plain() {
+    for i in $(seq 1 "$RUNS"); do
+        run plain "$i" "$JAVA" "${JVM_OPTS[@]}" -jar "$JAR"
+    done
+}
+
+bench_aot_cds() {
+    local extracted="$ROOT/target/extracted"
+    local archive="$ROOT/target/app.jsa"
+    "$JAVA" -Djarmode=tools -jar "$JAR" extract --destination "$extracted" --force > /dev/null
+    local app="$extracted/$(basename "$JAR")"
+
+    # Treino: sobe o contexto até o refresh e grava as classes carregadas no arquivo CDS
+    (cd "$(mktemp -d)" && "$JAVA" "${JVM_OPTS[@]}" -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+        -XX:ArchiveClassesAtExit="$archive" -jar "$app" > /dev/null 2>&1)
+
+    for i in $(seq 1 "$RUNS"); do
+        run aot-cds "$i" "$JAVA" "${JVM_OPTS[@]}" -Dspring.aot.enabled=true -XX:SharedArchiveFile="$archive" -jar "$app"
+    done
+}
+
+bench_crac() {
+    local image="$ROOT/target/crac"
+    if ! "$JAVA" -XX:CRaCCheckpointTo=/tmp/crac-probe -version > /dev/null 2>&1; then
+        echo "crac     pulado: este JDK não suporta CRaC (use Azul Zulu ou Liberica com CRaC)" >&2
+        return
+    fi
+    rm -rf "$image"
+
+    # Checkpoint com a aplicação pronta e já aquecida por algumas requisições
+    local work; work=$(mktemp -d)
+    (cd "$work" && exec "$JAVA" "${JVM_OPTS[@]}" -XX:CRaCCheckpointTo="$image" -jar "$JAR" > "$work/app.log" 2>&1) &
+    local pid=$!
+    wait_ready
+    for _ in $(seq 1 200); do first_request > /dev/null; done
+    jcmd "$pid" JDK.checkpoint > /dev/null
+    wait "$pid" 2>/dev/null || true
+
+    for i in $(seq 1 "$RUNS"); do
+        run crac "$i" "$JAVA" -XX:CRaCRestoreFrom="$image"
+    done
+}
+
+printf '%-8s %3s %10s %14s\n' modo run ready_ms primeira_ms
+case "$MODE" in
+    plain) bench_plain ;;
+    aot-cds) bench_aot_cds ;;
+    crac) bench_crac ;;
+    all) bench_plain; bench_aot_cds; bench_crac ;;
+    *) echo "Modo desconhecido: $MODE" >&2; exit 1 ;;
+esac
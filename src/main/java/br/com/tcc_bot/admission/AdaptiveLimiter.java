@@ -0,0 +1,118 @@
+package br.com.tcc_bot.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limite de concorrência AIMD para um {@link Upstream}.
+ * <p>
+ * Cada amostra de latência acima do alvo (ou erro) reduz o limite multiplicativamente;
+ * amostras boas com o limite quase todo ocupado o aumentam em {@code 1/limite}, ou seja,
+ * cerca de uma unidade por "rodada" de requisições.
+ */
+class AdaptiveLimiter {
+
+    private static final double BACKOFF = 0.9;
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final double minLimit;
+    private final double maxLimit;
+    private final long targetLatencyNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private final int[] activeByPriority = new int[Priority.values().length];
+    private final int[] queuedByPriority = new int[Priority.values().length];
+    private volatile double smoothedLatencyMs;
+
+    AdaptiveLimiter(double initialLimit, double minLimit, double maxLimit, long targetLatencyMs) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+    }
+
+    /**
+     * Ocupa uma vaga se houver espaço para a prioridade, esperando no máximo {@code maxWaitNanos}.
+     */
+    boolean acquire(Priority priority, long maxWaitNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = maxWaitNanos;
+            queuedByPriority[priority.ordinal()]++;
+            try {
+                while (inFlight >= capacityFor(priority)) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+            } finally {
+                queuedByPriority[priority.ordinal()]--;
+            }
+            inFlight++;
+            activeByPriority[priority.ordinal()]++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(Priority priority) {
+        lock.lock();
+        try {
+            inFlight--;
+            activeByPriority[priority.ordinal()]--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onSample(long latencyNanos, boolean success) {
+        lock.lock();
+        try {
+            double latencyMs = latencyNanos / 1_000_000.0;
+            smoothedLatencyMs = smoothedLatencyMs == 0.0
+                    ? latencyMs
+                    : smoothedLatencyMs + LATENCY_SMOOTHING * (latencyMs - smoothedLatencyMs);
+
+            if (!success || latencyNanos > targetLatencyNanos) {
+                limit = Math.max(minLimit, limit * BACKOFF);
+            } else if (inFlight >= limit * 0.8) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+                released.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double capacityFor(Priority priority) {
+        return Math.max(1.0, Math.floor(limit * priority.share));
+    }
+
+    double limit() {
+        return limit;
+    }
+
+    int inFlight() {
+        return inFlight;
+    }
+
+    int active(Priority priority) {
+        return activeByPriority[priority.ordinal()];
+    }
+
+    int queued(Priority priority) {
+        return queuedByPriority[priority.ordinal()];
+    }
+
+    double smoothedLatencyMs() {
+        return smoothedLatencyMs;
+    }
+}
@@ -0,0 +1,147 @@
+package br.com.tcc_bot.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Controle de admissão por prioridade.
+ * <p>
+ * Os pontos de entrada (webhook, /ai) pedem uma {@link Permit} para a classe da mensagem antes
+ * de fazer qualquer trabalho caro; se o upstream da classe está saturado, a requisição é
+ * recusada rapidamente e quem chamou responde "ocupado". Chamadas a um upstream que não é o da
+ * classe (o USDA, durante a análise) pedem a própria permissão via
+ * {@link #tryAdmit(Priority, Upstream, Duration)}. Os clientes HTTP alimentam os limites com a
+ * latência de cada chamada via {@link #record}.
+ * <p>
+ * Métricas: {@code bot.admission.admitted} e {@code bot.admission.shed} por classe;
+ * {@code bot.admission.queued} e {@code bot.admission.in_flight} por classe e upstream; {@code bot.admission.limit} e
+ * {@code bot.admission.latency} por upstream.
+ */
+@Component
+public class AdmissionControl {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControl.class);
+
+    private final Map<Upstream, AdaptiveLimiter> limiters = new EnumMap<>(Upstream.class);
+    private final Map<Priority, Counter> admitted = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> shed = new EnumMap<>(Priority.class);
+
+    public AdmissionControl(MeterRegistry registry,
+                            @Value("${ADMISSION_GEMINI_INITIAL_LIMIT:8}") double geminiLimit,
+                            @Value("${ADMISSION_GEMINI_TARGET_MS:30000}") long geminiTargetMs,
+                            @Value("${ADMISSION_USDA_INITIAL_LIMIT:20}") double usdaLimit,
+                            @Value("${ADMISSION_USDA_TARGET_MS:2000}") long usdaTargetMs,
+                            @Value("${ADMISSION_WHATSAPP_INITIAL_LIMIT:50}") double whatsappLimit,
+                            @Value("${ADMISSION_WHATSAPP_TARGET_MS:1500}") long whatsappTargetMs) {
+
+        limiters.put(Upstream.GEMINI, new AdaptiveLimiter(geminiLimit, 2, 64, geminiTargetMs));
+        limiters.put(Upstream.USDA, new AdaptiveLimiter(usdaLimit, 2, 128, usdaTargetMs));
+        limiters.put(Upstream.WHATSAPP, new AdaptiveLimiter(whatsappLimit, 4, 256, whatsappTargetMs));
+
+        for (Priority priority : Priority.values()) {
+            String tag = priority.name().toLowerCase(Locale.ROOT);
+            admitted.put(priority, Counter.builder("bot.admission.admitted").tag("class", tag).register(registry));
+            shed.put(priority, Counter.builder("bot.admission.shed").tag("class", tag).register(registry));
+            for (Map.Entry<Upstream, AdaptiveLimiter> entry : limiters.entrySet()) {
+                String upstream = entry.getKey().name().toLowerCase(Locale.ROOT);
+                Gauge.builder("bot.admission.queued", entry.getValue(), l -> l.queued(priority))
+                        .tag("class", tag).tag("upstream", upstream).register(registry);
+                Gauge.builder("bot.admission.in_flight", entry.getValue(), l -> l.active(priority))
+                        .tag("class", tag).tag("upstream", upstream).register(registry);
+            }
+        }
+        for (Map.Entry<Upstream, AdaptiveLimiter> entry : limiters.entrySet()) {
+            String tag = entry.getKey().name().toLowerCase(Locale.ROOT);
+            Gauge.builder("bot.admission.limit", entry.getValue(), AdaptiveLimiter::limit).tag("upstream", tag).register(registry);
+            Gauge.builder("bot.admission.latency", entry.getValue(), AdaptiveLimiter::smoothedLatencyMs)
+                    .tag("upstream", tag).baseUnit("milliseconds").register(registry);
+        }
+    }
+
+    /**
+     * Tenta admitir a requisição, esperando no máximo o tempo da classe. Vazio = recusada.
+     */
+    public Optional<Permit> tryAdmit(Priority priority) {
+        return admit(priority, priority.upstream, TimeUnit.MILLISECONDS.toNanos(priority.maxWaitMs));
+    }
+
+    /**
+     * Como {@link #tryAdmit(Priority)}, mas com a espera máxima escolhida por quem chama
+     * (usado pelo lote, que prefere esperar a falhar, mas não indefinidamente).
+     */
+    public Optional<Permit> tryAdmit(Priority priority, Duration maxWait) {
+        return admit(priority, priority.upstream, maxWait.toNanos());
+    }
+
+    /**
+     * Admite uma chamada da classe no limite de outro upstream, com a fração ({@code share}) da
+     * classe. Usado por cada chamada ao USDA, que acontece dentro de análises de várias classes.
+     */
+    public Optional<Permit> tryAdmit(Priority priority, Upstream upstream, Duration maxWait) {
+        return admit(priority, upstream, maxWait.toNanos());
+    }
+
+    private Optional<Permit> admit(Priority priority, Upstream upstream, long maxWaitNanos) {
+        AdaptiveLimiter limiter = limiters.get(upstream);
+        try {
+            if (limiter.acquire(priority, maxWaitNanos)) {
+                admitted.get(priority).increment();
+                return Optional.of(new Permit(limiter, priority));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        shed.get(priority).increment();
+        log.warn("Requisição recusada por sobrecarga - classe {} (limite {} = {}, em uso {})",
+                priority, upstream, String.format("%.1f", limiter.limit()), limiter.inFlight());
+        return Optional.empty();
+    }
+
+    /**
+     * Mede uma chamada ao upstream e alimenta o limite adaptativo com a latência observada.
+     */
+    public <T> T record(Upstream upstream, Supplier<T> call) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = call.get();
+            success = true;
+            return result;
+        } finally {
+            limiters.get(upstream).onSample(System.nanoTime() - start, success);
+        }
+    }
+
+    public static final class Permit implements AutoCloseable {
+        private final AdaptiveLimiter limiter;
+        private final Priority priority;
+        private boolean released;
+
+        private Permit(AdaptiveLimiter limiter, Priority priority) {
+            this.limiter = limiter;
+            this.priority = priority;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                limiter.release(priority);
+            }
+        }
+    }
+}
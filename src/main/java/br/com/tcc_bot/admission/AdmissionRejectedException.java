@@ -0,0 +1,12 @@
+package br.com.tcc_bot.admission;
+
+/**
+ * Uma chamada a um upstream foi recusada pelo controle de admissão no meio de um trabalho já
+ * admitido (ex.: a busca no USDA durante a confirmação). Quem iniciou o trabalho responde "ocupado".
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    public AdmissionRejectedException(Priority priority, Upstream upstream) {
+        super(upstream + " ocupado para a classe " + priority);
+    }
+}
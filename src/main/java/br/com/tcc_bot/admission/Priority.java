@@ -0,0 +1,40 @@
+package br.com.tcc_bot.admission;
+
+import java.time.Duration;
+
+/**
+ * Classes de prioridade, da mais para a menos importante.
+ * <p>
+ * Cada classe depende principalmente de um {@link Upstream} e só pode ocupar uma fração
+ * ({@code share}) do limite dele. A ordem só vale entre classes do mesmo upstream: hoje
+ * {@code BULK} e {@code NEW_PHOTO} disputam o Gemini, e quando ele satura o lote é recusado
+ * antes das fotos novas.
+ * <p>
+ * O USDA é admitido chamada a chamada ({@link AdmissionControl#tryAdmit(Priority, Upstream, Duration)}),
+ * na classe de quem pediu a análise: {@code CONFIRM} para a confirmação no WhatsApp e {@code BULK}
+ * para o lote e o /ai/analyze, que assim fica com no máximo metade do limite do USDA.
+ */
+public enum Priority {
+    INTERACTIVE(Upstream.WHATSAPP, 1.0, 2000),
+    CONFIRM(Upstream.USDA, 0.9, 1000),
+    NEW_PHOTO(Upstream.GEMINI, 0.75, 500),
+    BULK(Upstream.GEMINI, 0.5, 0);
+
+    final Upstream upstream;
+    final double share;
+    final long maxWaitMs;
+
+    Priority(Upstream upstream, double share, long maxWaitMs) {
+        this.upstream = upstream;
+        this.share = share;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    public Upstream upstream() {
+        return upstream;
+    }
+
+    public Duration maxWait() {
+        return Duration.ofMillis(maxWaitMs);
+    }
+}
@@ -0,0 +1,10 @@
+package br.com.tcc_bot.admission;
+
+/**
+ * Serviços externos cujo limite de concorrência é ajustado pela latência observada.
+ */
+public enum Upstream {
+    GEMINI,
+    USDA,
+    WHATSAPP
+}
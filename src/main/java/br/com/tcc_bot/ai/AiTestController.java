@@ -1,24 +1,141 @@
 package br.com.tcc_bot.ai;
 
+import br.com.tcc_bot.admission.AdmissionControl;
+import br.com.tcc_bot.admission.AdmissionRejectedException;
+import br.com.tcc_bot.admission.Priority;
+import br.com.tcc_bot.ai.prefilter.NotFoodImageException;
+import br.com.tcc_bot.lifecycle.WorkCoordinator;
+import br.com.tcc_bot.ratelimit.MessageKind;
+import br.com.tcc_bot.ratelimit.RateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
 
 @RestController
 @RequestMapping("/ai")
 public class AiTestController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final AnalysisService analysisService;
+    private final BulkAnalysisService bulkAnalysisService;
+    private final ObjectMapper mapper;
+    private final AdmissionControl admission;
+    private final RateLimiter rateLimiter;
+    private final WorkCoordinator coordinator;
+    private final BulkImageSources.Limits batchLimits;
 
-    public AiTestController(AnalysisService analysisService) {
+    public AiTestController(AnalysisService analysisService,
+                            BulkAnalysisService bulkAnalysisService,
+                            ObjectMapper mapper,
+                            AdmissionControl admission,
+                            RateLimiter rateLimiter,
+                            WorkCoordinator coordinator,
+                            @Value("${spring.servlet.multipart.max-file-size}") DataSize maxImageSize,
+                            @Value("${BULK_MAX_BATCH_MB:1024}") long maxBatchMegabytes) {
         this.analysisService = analysisService;
+        this.bulkAnalysisService = bulkAnalysisService;
+        this.mapper = mapper;
+        this.admission = admission;
+        this.rateLimiter = rateLimiter;
+        this.coordinator = coordinator;
+        // Zip e NDJSON não passam pelo multipart: mesmo teto por imagem e um teto para o lote todo
+        this.batchLimits = new BulkImageSources.Limits(maxImageSize.toBytes(), DataSize.ofMegabytes(maxBatchMegabytes).toBytes());
     }
 
     @PostMapping(value = "/analyze", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public AnalysisService.FullAnalysisResponse analyze(@RequestPart("image") MultipartFile file) throws Exception {
+    public AnalysisService.FullAnalysisResponse analyze(@RequestPart("image") MultipartFile file,
+                                                        HttpServletRequest request,
+                                                        HttpServletResponse response) throws Exception {
+
+        checkRateLimit(MessageKind.ANALYZE_API, request, response);
+
+        try (WorkCoordinator.Ticket ticket = enter();
+             AdmissionControl.Permit ignored = admission.tryAdmit(Priority.BULK)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Estamos ocupados"))) {
+
+            GeminiVisionClient.PlateAnalysis analysis = analysisService.analyzeImage(file.getBytes());
+
+            // A API de parceiros é tráfego de lote também no USDA: não toma a vaga da confirmação
+            return analysisService.calculateNutrients(analysis, Priority.BULK);
+        } catch (NotFoodImageException e) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage());
+        } catch (AdmissionRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Estamos ocupados");
+        }
+    }
+
+    @PostMapping(value = "/analyze/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = NDJSON)
+    public void analyzeBatch(@RequestPart("images") List<MultipartFile> files,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws Exception {
+        checkRateLimit(MessageKind.ANALYZE_BATCH, request, response);
+        streamBatch(BulkImageSources.fromMultipart(files), response);
+    }
 
-        GeminiVisionClient.PlateAnalysis analysis = analysisService.analyzeImage(file.getBytes());
+    @PostMapping(value = "/analyze/batch", consumes = "application/zip", produces = NDJSON)
+    public void analyzeZip(InputStream body, HttpServletRequest request, HttpServletResponse response) throws Exception {
+        checkRateLimit(MessageKind.ANALYZE_BATCH, request, response);
+        streamBatch(BulkImageSources.fromZip(body, batchLimits), response);
+    }
+
+    @PostMapping(value = "/analyze/batch", consumes = NDJSON, produces = NDJSON)
+    public void analyzeNdjson(InputStream body, HttpServletRequest request, HttpServletResponse response) throws Exception {
+        checkRateLimit(MessageKind.ANALYZE_BATCH, request, response);
+        streamBatch(BulkImageSources.fromNdjson(body, mapper, batchLimits), response);
+    }
+
+    /**
+     * Escreve uma linha NDJSON por prato, na ordem em que terminam (o campo "index" identifica a imagem)
+     */
+    private void streamBatch(Iterator<BulkAnalysisService.BulkImage> images, HttpServletResponse response) throws Exception {
+        try (WorkCoordinator.Ticket ticket = enter()) {
+            response.setContentType(NDJSON);
+            OutputStream out = response.getOutputStream();
+
+            bulkAnalysisService.analyzeBatch(images, result -> {
+                try {
+                    out.write(mapper.writeValueAsBytes(result));
+                    out.write('\n');
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Responde 429 com {@code Retry-After} se o cliente passou do limite. Sem usuário autenticado
+     * aqui: o limite individual é por endereço do cliente.
+     */
+    private void checkRateLimit(MessageKind kind, HttpServletRequest request, HttpServletResponse response) {
+        if (rateLimiter.tryAcquire(kind, request.getRemoteAddr()) != RateLimiter.Result.ALLOWED) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(rateLimiter.retryAfterSeconds()));
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Muitas requisições; tente novamente em instantes");
+        }
+    }
 
-        return analysisService.calculateNutrients(analysis);
+    /**
+     * Registra a requisição no coordenador; durante a drenagem do desligamento responde 503.
+     */
+    private WorkCoordinator.Ticket enter() {
+        return coordinator.tryEnter()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Servidor em desligamento"));
     }
 }
@@ -1,14 +1,32 @@
 package br.com.tcc_bot.ai;
 
+import br.com.tcc_bot.admission.AdmissionRejectedException;
+import br.com.tcc_bot.admission.Priority;
+import br.com.tcc_bot.ai.prefilter.FoodPreFilter;
+import br.com.tcc_bot.ai.prefilter.NotFoodImageException;
+import br.com.tcc_bot.cache.LayeredCaches;
+import br.com.tcc_bot.cache.TwoLevelCache;
 import br.com.tcc_bot.nutrition.UsdaApiClient;
+import br.com.tcc_bot.nutrition.profile.Nutrient;
+import br.com.tcc_bot.nutrition.profile.NutrientProfile;
+import br.com.tcc_bot.nutrition.taco.TacoTable;
+import br.com.tcc_bot.nutrition.taco.TextMealParser;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 @Service
 public class AnalysisService {
@@ -17,67 +35,175 @@ public class AnalysisService {
 
     private final GeminiVisionClient geminiClient;
     private final UsdaApiClient usdaClient;
+    private final FoodPreFilter preFilter;
+    private final TextMealParser textParser;
+    private final TacoTable taco;
+    private final TwoLevelCache<GeminiVisionClient.PlateAnalysis> plateCache;
 
-    public AnalysisService(GeminiVisionClient geminiClient, UsdaApiClient usdaClient) {
+    public AnalysisService(GeminiVisionClient geminiClient,
+                           UsdaApiClient usdaClient,
+                           FoodPreFilter preFilter,
+                           TextMealParser textParser,
+                           TacoTable taco,
+                           LayeredCaches caches,
+                           @Value("${CACHE_PLATE_TTL_H:24}") long plateCacheTtlHours) {
         this.geminiClient = geminiClient;
         this.usdaClient = usdaClient;
+        this.preFilter = preFilter;
+        this.textParser = textParser;
+        this.taco = taco;
+        this.plateCache = caches.create("plate", new PlateAnalysisCodec(), Duration.ofHours(plateCacheTtlHours));
     }
 
     /**
-     * ETAPA 1: Chama o Gemini para identificar alimentos e pesos
+     * ETAPA 1: Chama o Gemini para identificar alimentos e pesos.
+     * Imagens que o pré-filtro local classifica como "não é comida" param aqui com {@link NotFoodImageException}.
+     * A mesma foto reenviada (mesmo SHA-256) reaproveita a análise anterior.
      */
     public GeminiVisionClient.PlateAnalysis analyzeImage(byte[] imageBytes) throws Exception {
-        return geminiClient.analyzePlate(imageBytes);
+        preFilter.check(imageBytes);
+        String key = digest(List.of(imageBytes));
+        Optional<GeminiVisionClient.PlateAnalysis> cached = plateCache.get(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        GeminiVisionClient.PlateAnalysis analysis = geminiClient.analyzePlate(imageBytes);
+        if (!analysis.partial) {
+            plateCache.put(key, analysis);
+        }
+        return analysis;
     }
 
     /**
-     * ETAPA 2: Recebe uma análise (original ou editada) e calcula os nutrientes
+     * ETAPA 1 (várias fotos): todas as imagens da refeição vão numa única chamada ao Gemini.
+     * Fotos recusadas pelo pré-filtro são descartadas; se nenhuma sobrar, lança {@link NotFoodImageException}.
      */
-    public FullAnalysisResponse calculateNutrients(GeminiVisionClient.PlateAnalysis plateAnalysis) {
+    public GeminiVisionClient.PlateAnalysis analyzeImages(List<GeminiVisionClient.Image> images) throws Exception {
+        List<GeminiVisionClient.Image> food = new ArrayList<>(images.size());
+        NotFoodImageException rejected = null;
+        for (GeminiVisionClient.Image image : images) {
+            try {
+                preFilter.check(image.bytes());
+                food.add(image);
+            } catch (NotFoodImageException e) {
+                rejected = e;
+            }
+        }
+        if (food.isEmpty() && rejected != null) {
+            throw rejected;
+        }
+
+        String key = digest(food.stream().map(GeminiVisionClient.Image::bytes).toList());
+        Optional<GeminiVisionClient.PlateAnalysis> cached = plateCache.get(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        GeminiVisionClient.PlateAnalysis analysis = geminiClient.analyzeMeal(food);
+        if (!analysis.partial) {
+            plateCache.put(key, analysis);
+        }
+        return analysis;
+    }
+
+    /**
+     * SHA-256 das imagens na ordem em que chegaram, cada uma prefixada pelo tamanho.
+     */
+    private static String digest(List<byte[]> images) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            for (byte[] image : images) {
+                int n = image.length;
+                sha.update(new byte[]{(byte) (n >>> 24), (byte) (n >>> 16), (byte) (n >>> 8), (byte) n});
+                sha.update(image);
+            }
+            return HexFormat.of().formatHex(sha.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * ETAPA 1 (texto): refeição digitada, resolvida localmente na tabela TACO. O resultado entra
+     * no mesmo fluxo de edição/confirmação da foto; {@code analysis.items} vazio = nada reconhecido.
+     */
+    public TextAnalysis analyzeText(String text) {
+        TextMealParser.ParsedMeal meal = textParser.parse(text);
+
+        GeminiVisionClient.PlateAnalysis analysis = new GeminiVisionClient.PlateAnalysis();
+        analysis.items = meal.items().stream().map(parsed -> {
+            GeminiVisionClient.FoodItem item = new GeminiVisionClient.FoodItem();
+            item.namePt = parsed.food().name();
+            item.quantityGrams = (double) Math.round(parsed.grams());
+            item.tacoId = parsed.food().id();
+            return item;
+        }).toList();
+
+        return new TextAnalysis(analysis, meal.unrecognized());
+    }
+
+    /**
+     * ETAPA 2: Recebe uma análise (original ou editada) e calcula os nutrientes. Cada chamada ao
+     * USDA é admitida na classe {@code priority}; se alguma for recusada, lança
+     * {@link AdmissionRejectedException} em vez de devolver itens sem nutrientes.
+     */
+    public FullAnalysisResponse calculateNutrients(GeminiVisionClient.PlateAnalysis plateAnalysis, Priority priority) {
+        return calculateNutrients(plateAnalysis,
+                nameEn -> usdaClient.fetchNutritionalData(nameEn, priority, priority.maxWait()));
+    }
+
+    /**
+     * Igual a {@link #calculateNutrients(GeminiVisionClient.PlateAnalysis, Priority)}, mas com a busca no USDA
+     * fornecida por quem chama (ex.: o lote, que deduplica alimentos entre várias imagens)
+     */
+    public FullAnalysisResponse calculateNutrients(GeminiVisionClient.PlateAnalysis plateAnalysis,
+                                                   Function<String, Optional<UsdaApiClient.NutritionalData100g>> lookup) {
 
         long startTime = System.currentTimeMillis();
         log.info("Iniciando busca nutricional para {} itens", plateAnalysis.items.size());
 
         List<CompletableFuture<EnrichedFoodItem>> futures = plateAnalysis.items.stream()
-                .map(item -> CompletableFuture.supplyAsync(() -> fetchAndEnrichItem(item)))
+                .map(item -> CompletableFuture.supplyAsync(() -> fetchAndEnrichItem(item, lookup)))
                 .toList();
 
-        List<EnrichedFoodItem> enrichedItems = futures.stream()
-                .map(CompletableFuture::join)
-                .toList();
+        List<EnrichedFoodItem> enrichedItems;
+        try {
+            enrichedItems = futures.stream()
+                    .map(CompletableFuture::join)
+                    .toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof AdmissionRejectedException rejected) {
+                throw rejected;
+            }
+            throw e;
+        }
 
         long endTime = System.currentTimeMillis();
         log.info("Busca nutricional concluída em {}ms", (endTime - startTime));
 
-        // ===== Calcula totais =====
-        double totalCalories = 0.0;
-        double totalProteins = 0.0;
-        double totalCarbs = 0.0;
-        double totalFats = 0.0;
-
+        // ===== Calcula totais (todos os nutrientes do perfil de uma vez) =====
+        NutrientProfile totals = new NutrientProfile();
         for (EnrichedFoodItem item : enrichedItems) {
-            totalCalories += item.calories;
-            totalProteins += item.protein;
-            totalCarbs += item.carbohydrates;
-            totalFats += item.fat;
+            totals.add(item.nutrients);
         }
 
         FullAnalysisResponse response = new FullAnalysisResponse();
         response.items = enrichedItems;
-        response.totals = new NutritionalTotals(totalCalories, totalProteins, totalCarbs, totalFats);
+        response.totals = new NutritionalTotals(totals);
 
         return response;
     }
 
-    private EnrichedFoodItem fetchAndEnrichItem(GeminiVisionClient.FoodItem item) {
+    private EnrichedFoodItem fetchAndEnrichItem(GeminiVisionClient.FoodItem item,
+                                                Function<String, Optional<UsdaApiClient.NutritionalData100g>> lookup) {
         EnrichedFoodItem enrichedItem = new EnrichedFoodItem(item);
 
         try {
             long itemStart = System.currentTimeMillis();
             log.info("[{}] Buscando nutrientes...", item.namePt);
 
-            Optional<UsdaApiClient.NutritionalData100g> data100gOpt =
-                    usdaClient.fetchNutritionalData(item.nameEn);
+            Optional<UsdaApiClient.NutritionalData100g> data100gOpt = item.tacoId != null
+                    ? taco.nutrients(item.tacoId)
+                    : lookup.apply(item.nameEn);
 
             long itemEnd = System.currentTimeMillis();
             log.info("[{}] Tempo de busca: {}ms", item.namePt, (itemEnd - itemStart));
@@ -86,15 +212,14 @@ public class AnalysisService {
                 UsdaApiClient.NutritionalData100g data100g = data100gOpt.get();
                 double ratio = Optional.ofNullable(item.quantityGrams).orElse(0.0) / 100.0;
 
-                enrichedItem.calories = data100g.calories * ratio;
-                enrichedItem.protein = data100g.protein * ratio;
-                enrichedItem.carbohydrates = data100g.carbohydrates * ratio;
-                enrichedItem.fat = data100g.fat * ratio;
+                enrichedItem.nutrients.scaleFrom(data100g.nutrients, ratio);
 
                 log.info("[{}] Nutrientes encontrados", item.namePt);
             } else {
                 log.warn("[{}] NÃO encontrado (buscado: '{}')", item.namePt, item.nameEn);
             }
+        } catch (AdmissionRejectedException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Erro ao buscar nutrientes para {}: {}", item.namePt, e.getMessage());
         }
@@ -105,6 +230,8 @@ public class AnalysisService {
 
     // --- Classes de Resposta Final (DTOs) ---
 
+    public record TextAnalysis(GeminiVisionClient.PlateAnalysis analysis, List<String> unrecognized) {}
+
     public static class FullAnalysisResponse {
         @JsonProperty("items")
         public List<EnrichedFoodItem> items;
@@ -119,37 +246,71 @@ public class AnalysisService {
         public Double quantityGrams;
         @JsonProperty("confidence")
         public Double confidence;
-        @JsonProperty("calories_kcal")
-        public double calories = 0.0;
-        @JsonProperty("protein_g")
-        public double protein = 0.0;
-        @JsonProperty("carbohydrates_g")
-        public double carbohydrates = 0.0;
-        @JsonProperty("fat_g")
-        public double fat = 0.0;
+        /** Perfil completo da porção (já escalado pelos gramas) */
+        @JsonProperty("nutrients")
+        public final NutrientProfile nutrients = new NutrientProfile();
 
         public EnrichedFoodItem(GeminiVisionClient.FoodItem geminiItem) {
             this.name = geminiItem.namePt;
             this.quantityGrams = geminiItem.quantityGrams;
             this.confidence = geminiItem.confidence;
         }
+
+        @JsonProperty("calories_kcal")
+        public double calories() {
+            return nutrients.get(Nutrient.ENERGY);
+        }
+
+        @JsonProperty("protein_g")
+        public double protein() {
+            return nutrients.get(Nutrient.PROTEIN);
+        }
+
+        @JsonProperty("carbohydrates_g")
+        public double carbohydrates() {
+            return nutrients.get(Nutrient.CARBOHYDRATES);
+        }
+
+        @JsonProperty("fat_g")
+        public double fat() {
+            return nutrients.get(Nutrient.FAT);
+        }
     }
 
     public static class NutritionalTotals {
+        @JsonProperty("nutrients")
+        public final NutrientProfile nutrients;
+
+        public NutritionalTotals(NutrientProfile nutrients) {
+            this.nutrients = nutrients;
+        }
+
+        public NutritionalTotals(double cal, double prot, double carb, double fat) {
+            this(new NutrientProfile()
+                    .set(Nutrient.ENERGY, cal)
+                    .set(Nutrient.PROTEIN, prot)
+                    .set(Nutrient.CARBOHYDRATES, carb)
+                    .set(Nutrient.FAT, fat));
+        }
+
         @JsonProperty("total_calories_kcal")
-        public double totalCalories;
+        public double totalCalories() {
+            return nutrients.get(Nutrient.ENERGY);
+        }
+
         @JsonProperty("total_protein_g")
-        public double totalProtein;
+        public double totalProtein() {
+            return nutrients.get(Nutrient.PROTEIN);
+        }
+
         @JsonProperty("total_carbohydrates_g")
-        public double totalCarbs;
-        @JsonProperty("total_fat_g")
-        public double totalFat;
+        public double totalCarbs() {
+            return nutrients.get(Nutrient.CARBOHYDRATES);
+        }
 
-        public NutritionalTotals(double cal, double prot, double carb, double fat) {
-            this.totalCalories = cal;
-            this.totalProtein = prot;
-            this.totalCarbs = carb;
-            this.totalFat = fat;
+        @JsonProperty("total_fat_g")
+        public double totalFat() {
+            return nutrients.get(Nutrient.FAT);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,251 @@
+package br.com.tcc_bot.ai;
+
+import br.com.tcc_bot.admission.AdmissionControl;
+import br.com.tcc_bot.admission.AdmissionRejectedException;
+import br.com.tcc_bot.admission.Priority;
+import br.com.tcc_bot.nutrition.UsdaApiClient;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Análise em lote para os parceiros do estudo nutricional.
+ * <p>
+ * As imagens passam por um pool próprio e limitado ({@code BULK_PARALLELISM}), separado
+ * das threads que atendem o WhatsApp, e o início das chamadas ao Gemini é espaçado para
+ * não passar de {@code BULK_MAX_IMAGES_PER_MINUTE}. Dentro de um lote, cada alimento é
+ * buscado no USDA uma única vez, e cada prato é entregue ao {@code sink} assim que termina.
+ */
+@Service
+public class BulkAnalysisService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkAnalysisService.class);
+
+    private final AnalysisService analysisService;
+    private final UsdaApiClient usdaClient;
+    private final AdmissionControl admission;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final long slotIntervalNanos;
+    private final AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+
+    @Value("${BULK_MAX_IMAGES:1000}")
+    private int maxImages;
+
+    @Value("${BULK_ADMISSION_WAIT_S:120}")
+    private long admissionWaitSeconds;
+
+    public BulkAnalysisService(AnalysisService analysisService,
+                               UsdaApiClient usdaClient,
+                               AdmissionControl admission,
+                               @Value("${BULK_PARALLELISM:4}") int parallelism,
+                               @Value("${BULK_MAX_IMAGES_PER_MINUTE:60}") int maxImagesPerMinute) {
+        this.analysisService = analysisService;
+        this.usdaClient = usdaClient;
+        this.admission = admission;
+        this.parallelism = parallelism;
+        this.slotIntervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, maxImagesPerMinute);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "bulk-analysis-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Processa as imagens na ordem em que chegam, com no máximo {@code BULK_PARALLELISM}
+     * em andamento por lote. O {@code sink} é chamado de forma serializada, um resultado por vez.
+     */
+    public void analyzeBatch(Iterator<BulkImage> images, Consumer<BulkResult> sink) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        Semaphore inFlight = new Semaphore(parallelism);
+        Function<String, Optional<UsdaApiClient.NutritionalData100g>> lookup = dedupedLookup();
+        AtomicBoolean aborted = new AtomicBoolean();
+        Consumer<BulkResult> serialSink = result -> {
+            synchronized (sink) {
+                if (aborted.get()) return;
+                try {
+                    sink.accept(result);
+                } catch (RuntimeException e) {
+                    // Normalmente o cliente fechou a conexão: não adianta continuar o lote
+                    log.warn("Envio do resultado do lote falhou, abortando: {}", e.getMessage());
+                    aborted.set(true);
+                }
+            }
+        };
+
+        int index = 0;
+        try {
+            while (!aborted.get()) {
+                inFlight.acquire();
+                BulkImage image;
+                try {
+                    if (!images.hasNext()) {
+                        inFlight.release();
+                        break;
+                    }
+                    if (index >= maxImages) {
+                        inFlight.release();
+                        serialSink.accept(BulkResult.failure(index, null, "Lote excede o limite de " + maxImages + " imagens"));
+                        break;
+                    }
+                    image = images.next();
+                } catch (RuntimeException e) {
+                    // Zip corrompido, corpo truncado ou lote acima do limite de bytes
+                    inFlight.release();
+                    serialSink.accept(BulkResult.failure(index, null, "Falha ao ler imagem: " + e.getMessage()));
+                    break;
+                }
+
+                int current = index++;
+                if (image.error() != null) {
+                    inFlight.release();
+                    serialSink.accept(BulkResult.failure(current, image.name(), image.error()));
+                    continue;
+                }
+                try {
+                    executor.execute(() -> {
+                        try {
+                            if (aborted.get()) return;
+                            serialSink.accept(analyzeOne(current, image, lookup));
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Pool já encerrado (desligamento): a tarefa nunca vai devolver a vaga
+                    inFlight.release();
+                    serialSink.accept(BulkResult.failure(current, image.name(), "Serviço em desligamento"));
+                    break;
+                }
+            }
+        } finally {
+            // Só retorna com todas as tarefas terminadas: depois disso a resposta já foi encerrada
+            inFlight.acquireUninterruptibly(parallelism);
+        }
+        log.info("Lote de {} imagens concluído em {}ms", index, System.currentTimeMillis() - start);
+    }
+
+    private BulkResult analyzeOne(int index, BulkImage image, Function<String, Optional<UsdaApiClient.NutritionalData100g>> lookup) {
+        try {
+            awaitSlot();
+            // O lote tem a menor prioridade: espera a vaga em vez de competir com o WhatsApp
+            try (AdmissionControl.Permit ignored = admission.tryAdmit(Priority.BULK, Duration.ofSeconds(admissionWaitSeconds))
+                    .orElseThrow(() -> new IllegalStateException("Gemini ocupado por mais de " + admissionWaitSeconds + "s"))) {
+                GeminiVisionClient.PlateAnalysis analysis = analysisService.analyzeImage(image.bytes());
+                return BulkResult.success(index, image.name(), analysisService.calculateNutrients(analysis, lookup));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return BulkResult.failure(index, image.name(), "Interrompido");
+        } catch (Exception e) {
+            log.warn("Falha na imagem {} ({}) do lote: {}", index, image.name(), e.getMessage());
+            return BulkResult.failure(index, image.name(), e.getMessage());
+        }
+    }
+
+    /**
+     * Busca no USDA compartilhada pelo lote: a primeira thread que pede um alimento faz a
+     * chamada, as outras aguardam o mesmo resultado. As chamadas entram como {@code BULK} também
+     * no USDA e, se a vaga não vier a tempo, a recusa chega a todas as imagens que esperavam o
+     * alimento (e a próxima que pedir tenta de novo).
+     */
+    private Function<String, Optional<UsdaApiClient.NutritionalData100g>> dedupedLookup() {
+        Map<String, CompletableFuture<Optional<UsdaApiClient.NutritionalData100g>>> foods = new ConcurrentHashMap<>();
+
+        return nameEn -> {
+            String key = nameEn == null ? "" : nameEn.trim().toLowerCase(Locale.ROOT);
+            CompletableFuture<Optional<UsdaApiClient.NutritionalData100g>> mine = new CompletableFuture<>();
+            CompletableFuture<Optional<UsdaApiClient.NutritionalData100g>> existing = foods.putIfAbsent(key, mine);
+            if (existing != null) {
+                try {
+                    return existing.join();
+                } catch (CompletionException e) {
+                    throw (AdmissionRejectedException) e.getCause();
+                }
+            }
+            try {
+                mine.complete(usdaClient.fetchNutritionalData(nameEn, Priority.BULK, Duration.ofSeconds(admissionWaitSeconds)));
+            } catch (AdmissionRejectedException e) {
+                foods.remove(key, mine);
+                mine.completeExceptionally(e);
+                throw e;
+            } catch (RuntimeException e) {
+                mine.complete(Optional.empty());
+            }
+            return mine.join();
+        };
+    }
+
+    /**
+     * Espaça o início das análises para respeitar {@code BULK_MAX_IMAGES_PER_MINUTE}.
+     */
+    private void awaitSlot() throws InterruptedException {
+        long now = System.nanoTime();
+        long previous = nextSlot.getAndAccumulate(now, (prev, n) -> Math.max(prev, n) + slotIntervalNanos);
+        long wait = Math.max(previous, now) - now;
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Uma imagem do lote; com {@code error}, a imagem foi recusada na leitura e vira um resultado de falha.
+     */
+    public record BulkImage(String name, byte[] bytes, String error) {
+
+        public BulkImage(String name, byte[] bytes) {
+            this(name, bytes, null);
+        }
+
+        static BulkImage rejected(String name, String error) {
+            return new BulkImage(name, null, error);
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record BulkResult(
+            @JsonProperty("index") int index,
+            @JsonProperty("name") String name,
+            @JsonProperty("result") AnalysisService.FullAnalysisResponse result,
+            @JsonProperty("error") String error) {
+
+        static BulkResult success(int index, String name, AnalysisService.FullAnalysisResponse result) {
+            return new BulkResult(index, name, result, null);
+        }
+
+        static BulkResult failure(int index, String name, String error) {
+            return new BulkResult(index, name, null, error);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package br.com.tcc_bot.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Adapta os formatos aceitos pelo endpoint de lote para um {@link Iterator} lido sob demanda,
+ * para que só as imagens em processamento fiquem em memória.
+ * <p>
+ * Zip e NDJSON chegam como corpo cru, fora dos limites do multipart, então cada imagem é lida com
+ * teto de {@link Limits#maxImageBytes()} (a que passa vira um resultado de falha e o lote segue) e o
+ * lote inteiro com teto de {@link Limits#maxBatchBytes()} (ao passar, o iterador lança e o lote para).
+ */
+final class BulkImageSources {
+
+    /**
+     * Folga de uma linha NDJSON além do base64 da imagem (nome e sintaxe JSON).
+     */
+    private static final int NDJSON_LINE_OVERHEAD = 4096;
+
+    record Limits(long maxImageBytes, long maxBatchBytes) {}
+
+    private BulkImageSources() {
+    }
+
+    static Iterator<BulkAnalysisService.BulkImage> fromMultipart(List<MultipartFile> files) {
+        Iterator<MultipartFile> it = files.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public BulkAnalysisService.BulkImage next() {
+                MultipartFile file = it.next();
+                try {
+                    return new BulkAnalysisService.BulkImage(file.getOriginalFilename(), file.getBytes());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Cada arquivo do zip é uma imagem; diretórios e metadados do macOS são ignorados.
+     */
+    static Iterator<BulkAnalysisService.BulkImage> fromZip(InputStream body, Limits limits) {
+        ZipInputStream zip = new ZipInputStream(body);
+        BatchBudget budget = new BatchBudget(limits);
+        return new Iterator<>() {
+            private ZipEntry entry;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    while (entry == null) {
+                        ZipEntry candidate = zip.getNextEntry();
+                        if (candidate == null) {
+                            return false;
+                        }
+                        if (!candidate.isDirectory() && !candidate.getName().startsWith("__MACOSX")) {
+                            entry = candidate;
+                        }
+                    }
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public BulkAnalysisService.BulkImage next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    String name = entry.getName();
+                    entry = null;
+                    // O tamanho declarado no zip não é confiável: o teto vale para o que é descompactado
+                    byte[] bytes = readCapped(zip, limits.maxImageBytes());
+                    if (bytes == null) {
+                        return tooLarge(name, limits);
+                    }
+                    budget.spend(bytes.length);
+                    return new BulkAnalysisService.BulkImage(name, bytes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Uma linha JSON por imagem: {@code {"name": "prato1.jpg", "image": "<base64>"}}. Linhas vazias
+     * são ignoradas; uma linha ilegível ou grande demais vira falha só daquela imagem.
+     */
+    static Iterator<BulkAnalysisService.BulkImage> fromNdjson(InputStream body, ObjectMapper mapper, Limits limits) {
+        LineReader lines = new LineReader(body);
+        BatchBudget budget = new BatchBudget(limits);
+        // Base64 ocupa 4 bytes para cada 3 da imagem
+        long maxLineBytes = (limits.maxImageBytes() + 2) / 3 * 4 + NDJSON_LINE_OVERHEAD;
+        return new Iterator<>() {
+            private Line line;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    while (line == null) {
+                        Line candidate = lines.next(maxLineBytes);
+                        if (candidate == null) {
+                            return false;
+                        }
+                        if (candidate.tooLong() || !isBlank(candidate.bytes())) {
+                            line = candidate;
+                        }
+                    }
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public BulkAnalysisService.BulkImage next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Line current = line;
+                line = null;
+                if (current.tooLong()) {
+                    return tooLarge(null, limits);
+                }
+                String name = null;
+                try {
+                    JsonNode json = mapper.readTree(current.bytes());
+                    name = json.path("name").asText(null);
+                    byte[] bytes = Base64.getDecoder().decode(json.path("image").asText(""));
+                    if (bytes.length > limits.maxImageBytes()) {
+                        return tooLarge(name, limits);
+                    }
+                    budget.spend(bytes.length);
+                    return new BulkAnalysisService.BulkImage(name, bytes);
+                } catch (IOException | IllegalArgumentException e) {
+                    return BulkAnalysisService.BulkImage.rejected(name, "Linha inválida: " + e.getMessage());
+                }
+            }
+        };
+    }
+
+    /**
+     * Lê o restante de {@code in} se couber em {@code max} bytes; {@code null} se passar.
+     */
+    private static byte[] readCapped(InputStream in, long max) throws IOException {
+        byte[] bytes = in.readNBytes((int) Math.min(max + 1, Integer.MAX_VALUE - 8));
+        return bytes.length > max ? null : bytes;
+    }
+
+    private static BulkAnalysisService.BulkImage tooLarge(String name, Limits limits) {
+        return BulkAnalysisService.BulkImage.rejected(name,
+                "Imagem excede o limite de " + limits.maxImageBytes() / (1024 * 1024) + "MB");
+    }
+
+    /**
+     * Lê o corpo linha a linha. Uma linha maior que o teto é consumida até o {@code \n} sem ser guardada.
+     */
+    private static final class LineReader {
+        private final InputStream in;
+        private final byte[] buffer = new byte[8192];
+        private int position;
+        private int limit;
+
+        LineReader(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Próxima linha sem o {@code \n}; {@code null} no fim do corpo.
+         */
+        Line next(long max) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long length = 0;
+            boolean read = false;
+            while (true) {
+                if (position == limit) {
+                    limit = Math.max(0, in.read(buffer));
+                    position = 0;
+                    if (limit == 0) {
+                        if (!read) {
+                            return null;
+                        }
+                        break;
+                    }
+                }
+                read = true;
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                int n = position - start;
+                if (length + n <= max) {
+                    out.write(buffer, start, n);
+                }
+                length += n;
+                if (position < limit) {
+                    position++;
+                    break;
+                }
+            }
+            return length > max ? new Line(null, true) : new Line(out.toByteArray(), false);
+        }
+    }
+
+    private static boolean isBlank(byte[] bytes) {
+        for (byte b : bytes) {
+            if (!Character.isWhitespace(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private record Line(byte[] bytes, boolean tooLong) {}
+
+    /**
+     * Soma dos bytes aceitos no lote.
+     */
+    private static final class BatchBudget {
+        private final long max;
+        private long spent;
+
+        BatchBudget(Limits limits) {
+            this.max = limits.maxBatchBytes();
+        }
+
+        void spend(long bytes) {
+            spent += bytes;
+            if (spent > max) {
+                throw new IllegalStateException("Lote excede o limite de " + max / (1024 * 1024) + "MB");
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package br.com.tcc_bot.ai;
+
+import br.com.tcc_bot.lifecycle.ReopenableRestClient;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Ciclo de vida do cached content do Vertex AI que guarda a instrução do sistema.
+ * <p>
+ * O cache é criado em segundo plano na inicialização, tem o TTL renovado na metade do prazo e
+ * é apagado no desligamento. As chamadas ao modelo nunca esperam por ele: enquanto não houver
+ * cache válido (ou se a criação falhar, por exemplo por não atingir o mínimo de tokens do Vertex),
+ * {@link #template()} fica vazio e o cliente usa o request com a instrução inline.
+ */
+final class GeminiContextCache {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiContextCache.class);
+
+    private static final Duration EXPIRY_MARGIN = Duration.ofMinutes(1);
+    private static final Duration RETRY_AFTER_FAILURE = Duration.ofMinutes(5);
+
+    private final ReopenableRestClient restClient;
+    private final String cachedContentsUrl;
+    private final String modelResource;
+    private final String instruction;
+    private final Duration ttl;
+    private final Callable<String> accessToken;
+    private final Function<String, GeminiRequestTemplate> templateFactory;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Entry current;
+    private ScheduledFuture<?> pending;
+
+    GeminiContextCache(ReopenableRestClient restClient,
+                       String cachedContentsUrl,
+                       String modelResource,
+                       String instruction,
+                       Duration ttl,
+                       Callable<String> accessToken,
+                       Function<String, GeminiRequestTemplate> templateFactory) {
+        this.restClient = restClient;
+        this.cachedContentsUrl = cachedContentsUrl;
+        this.modelResource = modelResource;
+        this.instruction = instruction;
+        this.ttl = ttl;
+        this.accessToken = accessToken;
+        this.templateFactory = templateFactory;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "gemini-context-cache");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    void start() {
+        scheduleMaintenance(Duration.ZERO);
+    }
+
+    void stop() {
+        scheduler.shutdownNow();
+        Entry entry = current;
+        current = null;
+        if (entry != null) {
+            try {
+                restClient.client().delete()
+                        .uri("https://aiplatform.googleapis.com/v1/" + entry.name)
+                        .header("Authorization", "Bearer " + accessToken.call())
+                        .retrieve()
+                        .toBodilessEntity();
+                log.info("Cache de contexto do Gemini removido: {}", entry.name);
+            } catch (Exception e) {
+                log.warn("Falha ao remover cache de contexto {} (expira sozinho): {}", entry.name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Template que referencia o cache, se houver um válido agora.
+     */
+    Optional<GeminiRequestTemplate> template() {
+        Entry entry = current;
+        if (entry == null || Instant.now().isAfter(entry.expiresAt.minus(EXPIRY_MARGIN))) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.template);
+    }
+
+    /**
+     * Chamado quando o modelo recusa o cache (ex.: expirou antes do previsto): volta ao inline e recria.
+     */
+    void invalidate() {
+        Entry entry = current;
+        if (entry != null) {
+            log.warn("Cache de contexto do Gemini invalidado: {}", entry.name);
+            current = null;
+            scheduleMaintenance(Duration.ZERO);
+        }
+    }
+
+    private void maintain() {
+        Duration next;
+        try {
+            Entry entry = current;
+            current = entry == null ? create() : refresh(entry);
+            next = ttl.dividedBy(2);
+        } catch (Exception e) {
+            log.warn("Cache de contexto do Gemini indisponível, usando instrução inline: {}", e.getMessage());
+            current = null;
+            next = RETRY_AFTER_FAILURE;
+        }
+        scheduleMaintenance(next);
+    }
+
+    private synchronized void scheduleMaintenance(Duration delay) {
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = scheduler.schedule(this::maintain, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private Entry create() throws Exception {
+        Map<String, Object> body = Map.of(
+                "model", modelResource,
+                "systemInstruction", Map.of("parts", List.of(Map.of("text", instruction))),
+                "ttl", ttl.toSeconds() + "s"
+        );
+
+        JsonNode created = restClient.client().post()
+                .uri(cachedContentsUrl)
+                .header("Authorization", "Bearer " + accessToken.call())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body)
+                .retrieve()
+                .body(JsonNode.class);
+
+        String name = created == null ? "" : created.path("name").asText("");
+        if (name.isBlank()) {
+            throw new IllegalStateException("Resposta do cachedContents sem nome");
+        }
+        log.info("Cache de contexto do Gemini criado: {}", name);
+        return new Entry(name, expiresAt(created), templateFactory.apply(name));
+    }
+
+    private Entry refresh(Entry entry) throws Exception {
+        JsonNode updated = restClient.client().patch()
+                .uri("https://aiplatform.googleapis.com/v1/" + entry.name)
+                .header("Authorization", "Bearer " + accessToken.call())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("ttl", ttl.toSeconds() + "s"))
+                .retrieve()
+                .body(JsonNode.class);
+
+        log.debug("TTL do cache de contexto renovado: {}", entry.name);
+        return new Entry(entry.name, expiresAt(updated), entry.template);
+    }
+
+    private Instant expiresAt(JsonNode node) {
+        String expireTime = node == null ? "" : node.path("expireTime").asText("");
+        return expireTime.isBlank() ? Instant.now().plus(ttl) : Instant.parse(expireTime);
+    }
+
+    private record Entry(String name, Instant expiresAt, GeminiRequestTemplate template) {}
+}
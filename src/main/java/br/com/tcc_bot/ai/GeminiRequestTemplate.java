@@ -0,0 +1,107 @@
+package br.com.tcc_bot.ai;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Corpo do generateContent serializado uma única vez.
+ * <p>
+ * O request é montado com um marcador no lugar das partes de imagem e serializado na
+ * inicialização; a cada chamada só as imagens são escritas entre os pedaços fixos, com o
+ * base64 gerado direto no stream da requisição. Quando há mais de uma foto, uma nota
+ * (também pré-serializada) avisa o modelo que todas são da mesma refeição.
+ */
+final class GeminiRequestTemplate {
+
+    private static final String IMAGES_MARKER = "__TCC_BOT_IMAGES__";
+
+    private static final byte[] PART_BEFORE_MIME = "{\"inlineData\":{\"mimeType\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PART_BEFORE_DATA = "\",\"data\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PART_END = "\"}}".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] head;
+    private final byte[] tail;
+    private final byte[] multiImageNote;
+
+    private GeminiRequestTemplate(byte[] head, byte[] tail, byte[] multiImageNote) {
+        this.head = head;
+        this.tail = tail;
+        this.multiImageNote = multiImageNote;
+    }
+
+    /**
+     * Marcador que ocupa o lugar das partes de imagem na lista "parts"; deve aparecer exatamente uma vez.
+     */
+    static Object imageParts() {
+        return IMAGES_MARKER;
+    }
+
+    static GeminiRequestTemplate compile(ObjectMapper mapper, Object request, String multiImageNote) {
+        try {
+            String json = mapper.writeValueAsString(request);
+            String marker = mapper.writeValueAsString(IMAGES_MARKER);
+            int at = json.indexOf(marker);
+            if (at < 0) {
+                throw new IllegalStateException("Request do Gemini sem o marcador das imagens");
+            }
+            return new GeminiRequestTemplate(
+                    json.substring(0, at).getBytes(StandardCharsets.UTF_8),
+                    json.substring(at + marker.length()).getBytes(StandardCharsets.UTF_8),
+                    ("," + mapper.writeValueAsString(Map.of("text", multiImageNote))).getBytes(StandardCharsets.UTF_8));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar o request do Gemini", e);
+        }
+    }
+
+    void writeTo(OutputStream out, List<GeminiVisionClient.Image> images) throws IOException {
+        out.write(head);
+        for (int i = 0; i < images.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeImagePart(out, images.get(i));
+        }
+        if (images.size() > 1) {
+            out.write(multiImageNote);
+        }
+        out.write(tail);
+    }
+
+    private static void writeImagePart(OutputStream out, GeminiVisionClient.Image image) throws IOException {
+        out.write(PART_BEFORE_MIME);
+        // mimeType vem do Graph API ("image/jpeg", "image/png"...); o filtro dispensa escape JSON
+        out.write(image.mimeType().replaceAll("[^A-Za-z0-9/+.\\-]", "").getBytes(StandardCharsets.US_ASCII));
+        out.write(PART_BEFORE_DATA);
+        try (OutputStream b64 = Base64.getEncoder().wrap(new NonClosingOutputStream(out))) {
+            b64.write(image.bytes());
+        }
+        out.write(PART_END);
+    }
+
+    /**
+     * O encoder base64 precisa ser fechado para emitir o padding, mas o stream da requisição não.
+     */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -1,88 +1,338 @@
 package br.com.tcc_bot.ai;
 
+import br.com.tcc_bot.admission.AdmissionControl;
+import br.com.tcc_bot.admission.Upstream;
+import br.com.tcc_bot.lifecycle.ReopenableRestClient;
+import br.com.tcc_bot.profiling.GeminiAnalysisEvent;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.auth.oauth2.GoogleCredentials;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.http.client.ClientHttpRequestFactorySettings;
+import org.springframework.context.Lifecycle;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
 
-import java.util.Base64;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Component
-public class GeminiVisionClient {
+public class GeminiVisionClient implements Lifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiVisionClient.class);
+
+    private static final String INSTRUCTION = """
+            Atue como um Nutricionista Sênior especialista em Visão Computacional e USDA.
+
+            Analise a imagem e gere um JSON estrito com os itens do prato.
+
+            DIRETRIZES TÉCNICAS:
+            1. Escala: Assuma prato padrão de 26cm.
+            2. Vocabulário: Use termos técnicos exatos do USDA no campo 'name_en' (ex: "Rice, white, long-grain, cooked").
+            3. Preparo: Diferencie Frito/Cozido/Assado e Com/Sem pele.
+
+            No campo 'reasoning', seja TELEGRÁFICO e direto (máximo 5 palavras).
+            Ex: "Textura fibrosa, brilho de óleo". Não escreva frases longas.
+            """;
+
+    private static final String CONTINUATION = """
+            Sua resposta anterior foi cortada no meio. Itens que você já listou: %s.
+            Gere um novo JSON com SOMENTE os itens restantes do prato (items vazio se não faltar nenhum).
+            """;
+
+    private static final String MULTI_IMAGE_NOTE = """
+            As fotos acima são da MESMA refeição (prato, acompanhamentos, bebida).
+            Gere uma única lista: cada item aparece uma vez, mesmo que esteja em mais de uma foto.
+            """;
+
     private final ObjectMapper mapper;
-    private final RestClient restClient;
+    private final ReopenableRestClient restClient;
+    private final AdmissionControl admission;
+    private final MeterRegistry registry;
+
+    @Value("${GEMINI_PROJECT_ID:tcc-bot-wpp}")
+    private String projectId;
+
+    @Value("${GEMINI_LOCATION:us-central1}")
+    private String location;
 
-    public GeminiVisionClient(RestClient.Builder builder, ObjectMapper mapper) {
-        this.restClient = builder.build();
+    @Value("${GEMINI_MODEL:gemini-3.1-pro-preview}")
+    private String model;
+
+    @Value("${GEMINI_CONTEXT_CACHE_ENABLED:false}")
+    private boolean contextCacheEnabled;
+
+    @Value("${GEMINI_CONTEXT_CACHE_TTL_MIN:60}")
+    private long contextCacheTtlMin;
+
+    @Value("${GEMINI_CONTINUATION_ENABLED:true}")
+    private boolean continuationEnabled;
+
+    @Value("${GEMINI_CONTINUATION_MAX_TOKENS:1024}")
+    private int continuationMaxTokens;
+
+    private String generateContentUrl;
+    private GeminiRequestTemplate inlineTemplate;
+    private GeminiContextCache contextCache;
+
+    // Criadas uma vez e renovadas pelo próprio google-auth; descartadas no checkpoint (CRaC)
+    private volatile GoogleCredentials credentials;
+
+    public GeminiVisionClient(RestClient.Builder builder,
+                              ObjectMapper mapper,
+                              AdmissionControl admission,
+                              MeterRegistry registry,
+                              ClientHttpRequestFactorySettings httpSettings) {
+        this.restClient = new ReopenableRestClient(builder, httpSettings);
         this.mapper = mapper;
+        this.admission = admission;
+        this.registry = registry;
+    }
+
+    /**
+     * Serializa uma única vez a parte fixa do request (instrução, schema e generationConfig).
+     * A instrução vai sempre como {@code systemInstruction}, inline ou no cache de contexto,
+     * para o modelo receber o mesmo prompt nos dois modos.
+     */
+    @PostConstruct
+    void init() {
+        String modelResource = "projects/" + projectId + "/locations/" + location + "/publishers/google/models/" + model;
+        generateContentUrl = "https://aiplatform.googleapis.com/v1/" + modelResource + ":generateContent";
+
+        Map<String, Object> generationConfig = buildGenerationConfig(4096);
+        inlineTemplate = GeminiRequestTemplate.compile(mapper, Map.of(
+                "systemInstruction", systemInstruction(),
+                "contents", List.of(Map.of(
+                        "role", "user",
+                        "parts", List.of(GeminiRequestTemplate.imageParts())
+                )),
+                "generationConfig", generationConfig
+        ), MULTI_IMAGE_NOTE);
+
+        if (contextCacheEnabled) {
+            contextCache = new GeminiContextCache(
+                    restClient,
+                    "https://aiplatform.googleapis.com/v1/projects/" + projectId + "/locations/" + location + "/cachedContents",
+                    modelResource,
+                    INSTRUCTION,
+                    Duration.ofMinutes(contextCacheTtlMin),
+                    this::fetchAccessToken,
+                    cacheName -> GeminiRequestTemplate.compile(mapper, Map.of(
+                            "cachedContent", cacheName,
+                            "contents", List.of(Map.of(
+                                    "role", "user",
+                                    "parts", List.of(GeminiRequestTemplate.imageParts())
+                            )),
+                            "generationConfig", generationConfig
+                    ), MULTI_IMAGE_NOTE));
+            contextCache.start();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (contextCache != null) {
+            contextCache.stop();
+        }
+    }
+
+    // Checkpoint/restore (CRaC): fecha as conexões e esquece o token; tudo é recriado no primeiro uso.
+    // O cache de contexto do Vertex continua válido do outro lado e não é apagado aqui.
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void stop() {
+        restClient.close();
+        credentials = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return restClient.isOpen() || credentials != null;
     }
 
     public PlateAnalysis analyzePlate(byte[] imageBytes) throws Exception {
-        String mimeType = "image/jpeg";
+        return analyzeMeal(List.of(new Image(imageBytes, "image/jpeg")));
+    }
+
+    /**
+     * Analisa várias fotos da mesma refeição numa única chamada, gerando uma lista de itens só
+     */
+    public PlateAnalysis analyzeMeal(List<Image> images) throws Exception {
+        GeminiAnalysisEvent event = new GeminiAnalysisEvent();
+        event.begin();
         String token = fetchAccessToken();
 
-        String instruction = """
-                Atue como um Nutricionista Sênior especialista em Visão Computacional e USDA.
-                
-                Analise a imagem e gere um JSON estrito com os itens do prato.
-                
-                DIRETRIZES TÉCNICAS:
-                1. Escala: Assuma prato padrão de 26cm.
-                2. Vocabulário: Use termos técnicos exatos do USDA no campo 'name_en' (ex: "Rice, white, long-grain, cooked").
-                3. Preparo: Diferencie Frito/Cozido/Assado e Com/Sem pele.
-                
-                No campo 'reasoning', seja TELEGRÁFICO e direto (máximo 5 palavras).
-                Ex: "Textura fibrosa, brilho de óleo". Não escreva frases longas.
-                """;
-
-        Map<String, Object> req = buildRequest(imageBytes, mimeType, instruction);
-
-        String url = "https://aiplatform.googleapis.com/v1/projects/tcc-bot-wpp/locations/us-central1/publishers/google/models/gemini-3.1-pro-preview:generateContent";
-
-        String responseBody = restClient.post()
-                .uri(url)
-                .header("Authorization", "Bearer " + token)
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(req)
-                .retrieve()
-                .body(String.class);
+        Optional<GeminiRequestTemplate> cached = contextCache == null ? Optional.empty() : contextCache.template();
+
+        String responseBody;
+        try {
+            responseBody = generateContent(cached.orElse(inlineTemplate), token, images);
+        } catch (HttpClientErrorException e) {
+            if (cached.isEmpty()) {
+                throw e;
+            }
+            // Cache expirado ou removido do lado do Vertex: repete com a instrução inline
+            log.warn("Gemini recusou o cache de contexto ({}), repetindo sem cache", e.getStatusCode());
+            contextCache.invalidate();
+            responseBody = generateContent(inlineTemplate, token, images);
+        }
+
+        PlateAnalysis analysis = readPlate(responseText(responseBody), token, images);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.images = images.size();
+            event.imageBytes = images.stream().mapToLong(image -> image.bytes().length).sum();
+            event.items = analysis.items.size();
+            event.partial = analysis.partial;
+            event.commit();
+        }
+        return analysis;
+    }
+
+    /**
+     * Parse estrito primeiro; se falhar, recupera os itens completos e, se a lista foi cortada,
+     * pede só os itens que faltam. Resultado em {@code bot.gemini.responses} (tag {@code parse}):
+     * clean, repaired (conserto sem nova chamada), continued (com continuação curta) ou partial/failed.
+     */
+    private PlateAnalysis readPlate(String text, String token, List<Image> images) throws Exception {
+        try {
+            PlateAnalysis analysis = mapper.readValue(text, PlateAnalysis.class);
+            countResponse("clean");
+            return analysis;
+        } catch (JsonProcessingException e) {
+            log.warn("JSON do Gemini inválido ou cortado, tentando recuperar: {}", e.getOriginalMessage());
+        }
+
+        TolerantPlateParser.Result parsed = TolerantPlateParser.parse(text);
+        PlateAnalysis analysis = new PlateAnalysis();
+        analysis.items = new ArrayList<>(parsed.items());
+
+        if (parsed.complete()) {
+            countResponse("repaired");
+            return analysis;
+        }
 
+        if (continuationEnabled) {
+            try {
+                TolerantPlateParser.Result rest = requestContinuation(parsed, token, images);
+                for (FoodItem item : rest.items()) {
+                    if (analysis.items.stream().noneMatch(known -> sameFood(known, item))) {
+                        analysis.items.add(item);
+                    }
+                }
+                if (rest.complete()) {
+                    countResponse("continued");
+                    log.info("Resposta cortada completada com continuação: {} + {} itens", parsed.items().size(), rest.items().size());
+                    return analysis;
+                }
+            } catch (Exception e) {
+                log.warn("Continuação do Gemini falhou: {}", e.getMessage());
+            }
+        }
+
+        if (analysis.items.isEmpty()) {
+            countResponse("failed");
+            throw new RuntimeException("Resposta do modelo cortada antes do primeiro item.");
+        }
+        countResponse("partial");
+        analysis.partial = true;
+        return analysis;
+    }
+
+    /**
+     * Mesma conversa (instrução + fotos), com o trecho já gerado como turno do modelo e um pedido
+     * curto pelos itens restantes; o limite de saída é {@code GEMINI_CONTINUATION_MAX_TOKENS}.
+     */
+    private TolerantPlateParser.Result requestContinuation(TolerantPlateParser.Result parsed,
+                                                           String token,
+                                                           List<Image> images) throws Exception {
+        String listed = parsed.items().isEmpty()
+                ? "nenhum"
+                : String.join(", ", parsed.items().stream().map(i -> "\"" + i.namePt + "\"").toList());
+
+        List<Map<String, Object>> contents = new ArrayList<>();
+        contents.add(Map.of("role", "user", "parts", List.of(GeminiRequestTemplate.imageParts())));
+        if (!parsed.prefix().isEmpty()) {
+            contents.add(Map.of("role", "model", "parts", List.of(Map.of("text", parsed.prefix()))));
+        }
+        contents.add(Map.of("role", "user", "parts", List.of(Map.of("text", CONTINUATION.formatted(listed)))));
+
+        GeminiRequestTemplate template = GeminiRequestTemplate.compile(mapper, Map.of(
+                "systemInstruction", systemInstruction(),
+                "contents", contents,
+                "generationConfig", buildGenerationConfig(continuationMaxTokens)
+        ), MULTI_IMAGE_NOTE);
+
+        String text = responseText(generateContent(template, token, images));
+        try {
+            PlateAnalysis rest = mapper.readValue(text, PlateAnalysis.class);
+            return new TolerantPlateParser.Result(rest.items, true, text);
+        } catch (JsonProcessingException e) {
+            return TolerantPlateParser.parse(text);
+        }
+    }
+
+    private String responseText(String responseBody) throws JsonProcessingException {
         JsonNode textNode = mapper.readTree(responseBody)
                 .path("candidates").path(0).path("content").path("parts").path(0).path("text");
 
         if (textNode.isMissingNode() || textNode.asText().isBlank()) {
             throw new RuntimeException("Resposta do modelo sem conteúdo de texto.");
         }
-        return mapper.readValue(textNode.asText(), PlateAnalysis.class);
+        return textNode.asText();
     }
 
-    private Map<String, Object> buildRequest(byte[] image, String mime, String instruction) {
-        String b64 = Base64.getEncoder().encodeToString(image);
-        Map<String, Object> content = Map.of(
-                "role", "user",
-                "parts", List.of(
-                        Map.of("text", instruction),
-                        Map.of("inlineData", Map.of("mimeType", mime, "data", b64))
-                )
-        );
+    private static boolean sameFood(FoodItem a, FoodItem b) {
+        String nameA = a.nameEn != null ? a.nameEn : a.namePt;
+        String nameB = b.nameEn != null ? b.nameEn : b.namePt;
+        return nameA != null && nameA.equalsIgnoreCase(nameB);
+    }
+
+    private void countResponse(String outcome) {
+        registry.counter("bot.gemini.responses", "parse", outcome).increment();
+    }
 
+    private String generateContent(GeminiRequestTemplate template, String token, List<Image> images) {
+        return admission.record(Upstream.GEMINI, () -> restClient.client().post()
+                .uri(generateContentUrl)
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> template.writeTo(out, images))
+                .retrieve()
+                .body(String.class));
+    }
+
+    private static Map<String, Object> systemInstruction() {
+        return Map.of("parts", List.of(Map.of("text", INSTRUCTION)));
+    }
+
+    private Map<String, Object> buildGenerationConfig(int maxOutputTokens) {
         Map<String, Object> generationConfig = new HashMap<>();
         generationConfig.put("temperature", 0.2);
         generationConfig.put("responseMimeType", "application/json");
         generationConfig.put("responseSchema", getResponseSchema());
-        generationConfig.put("maxOutputTokens", 4096);
-
-        return Map.of(
-                "contents", List.of(content),
-                "generationConfig", generationConfig
-        );
+        generationConfig.put("maxOutputTokens", maxOutputTokens);
+        return generationConfig;
     }
 
     private Map<String, Object> getResponseSchema() {
@@ -106,15 +356,25 @@ public class GeminiVisionClient {
     }
 
     private String fetchAccessToken() throws Exception {
-        GoogleCredentials cred = GoogleCredentials.getApplicationDefault()
-                .createScoped(List.of("https://www.googleapis.com/auth/cloud-platform"));
+        GoogleCredentials cred = credentials;
+        if (cred == null) {
+            cred = GoogleCredentials.getApplicationDefault()
+                    .createScoped(List.of("https://www.googleapis.com/auth/cloud-platform"));
+            credentials = cred;
+        }
         cred.refreshIfExpired();
         return cred.getAccessToken().getTokenValue();
     }
 
+    public record Image(byte[] bytes, String mimeType) {}
+
     public static class PlateAnalysis {
         @JsonProperty("items")
         public List<FoodItem> items = List.of();
+        /** A resposta do modelo veio cortada e nem a continuação completou: pode faltar item */
+        @JsonProperty("partial")
+        @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+        public boolean partial;
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
@@ -127,5 +387,9 @@ public class GeminiVisionClient {
         public Double quantityGrams;
         @JsonProperty("confidence")
         public Double confidence;
+        /** Preenchido quando o item veio da refeição digitada: os nutrientes saem da tabela TACO, não do USDA */
+        @JsonProperty("taco_id")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public Integer tacoId;
     }
-}
\ No newline at end of file
+}
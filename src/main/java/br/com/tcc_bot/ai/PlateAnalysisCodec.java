@@ -0,0 +1,67 @@
+package br.com.tcc_bot.ai;
+
+import br.com.tcc_bot.cache.CacheCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code [byte versão][short n]} seguido de {@code n} itens:
+ * {@code [UTF? name_pt][UTF? name_en][double gramas][double confiança][int taco_id]}.
+ * Strings opcionais levam um byte de presença antes; números ausentes viram NaN (ou -1 no taco_id).
+ */
+final class PlateAnalysisCodec implements CacheCodec<GeminiVisionClient.PlateAnalysis> {
+
+    private static final byte VERSION = 1;
+
+    @Override
+    public void write(GeminiVisionClient.PlateAnalysis value, DataOutputStream out) throws IOException {
+        out.writeByte(VERSION);
+        out.writeShort(value.items.size());
+        for (GeminiVisionClient.FoodItem item : value.items) {
+            writeString(out, item.namePt);
+            writeString(out, item.nameEn);
+            out.writeDouble(item.quantityGrams == null ? Double.NaN : item.quantityGrams);
+            out.writeDouble(item.confidence == null ? Double.NaN : item.confidence);
+            out.writeInt(item.tacoId == null ? -1 : item.tacoId);
+        }
+    }
+
+    @Override
+    public GeminiVisionClient.PlateAnalysis read(DataInputStream in) throws IOException {
+        if (in.readByte() != VERSION) {
+            throw new IOException("Versão desconhecida de PlateAnalysis");
+        }
+        int n = in.readUnsignedShort();
+        List<GeminiVisionClient.FoodItem> items = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            GeminiVisionClient.FoodItem item = new GeminiVisionClient.FoodItem();
+            item.namePt = readString(in);
+            item.nameEn = readString(in);
+            double grams = in.readDouble();
+            item.quantityGrams = Double.isNaN(grams) ? null : grams;
+            double confidence = in.readDouble();
+            item.confidence = Double.isNaN(confidence) ? null : confidence;
+            int tacoId = in.readInt();
+            item.tacoId = tacoId < 0 ? null : tacoId;
+            items.add(item);
+        }
+        GeminiVisionClient.PlateAnalysis analysis = new GeminiVisionClient.PlateAnalysis();
+        analysis.items = items;
+        return analysis;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,115 @@
+package br.com.tcc_bot.ai;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Leitura tolerante do JSON do Gemini quando o parse estrito falha.
+ * <p>
+ * Percorre o texto com o parser de streaming e guarda cada objeto de {@code items} que fechou por
+ * inteiro; o primeiro erro (corte no {@code maxOutputTokens}, lixo depois do JSON) só encerra a
+ * leitura. Também aceita vírgula sobrando, aspas simples, comentários e cerca de markdown.
+ * {@link Result#complete()} diz se o array de itens chegou a fechar; se não, {@link Result#prefix()}
+ * é o texto até o último item completo, para pedir só a continuação.
+ */
+final class TolerantPlateParser {
+
+    private static final ObjectMapper LENIENT = JsonMapper.builder()
+            .enable(JsonReadFeature.ALLOW_TRAILING_COMMA,
+                    JsonReadFeature.ALLOW_SINGLE_QUOTES,
+                    JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES,
+                    JsonReadFeature.ALLOW_JAVA_COMMENTS,
+                    JsonReadFeature.ALLOW_NON_NUMERIC_NUMBERS,
+                    JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS)
+            .build();
+
+    private TolerantPlateParser() {}
+
+    record Result(List<GeminiVisionClient.FoodItem> items, boolean complete, String prefix) {}
+
+    static Result parse(String text) {
+        String json = stripFences(text);
+        List<GeminiVisionClient.FoodItem> items = new ArrayList<>();
+        boolean complete = false;
+        int lastItemEnd = -1;
+
+        try (JsonParser p = LENIENT.createParser(json)) {
+            JsonToken first = p.nextToken();
+            boolean inItems = first == JsonToken.START_ARRAY; // modelo devolveu só a lista
+            if (!inItems && first == JsonToken.START_OBJECT) {
+                inItems = seekItemsArray(p);
+            }
+            while (inItems) {
+                JsonToken t = p.nextToken();
+                if (t == null) {
+                    break;
+                }
+                if (t == JsonToken.END_ARRAY) {
+                    complete = true;
+                    break;
+                }
+                if (t != JsonToken.START_OBJECT) {
+                    p.skipChildren();
+                    continue;
+                }
+                JsonNode node = LENIENT.readTree(p);
+                toItem(node).ifPresent(items::add);
+                lastItemEnd = (int) p.currentLocation().getCharOffset();
+            }
+        } catch (IOException e) {
+            // Fim do que dá para aproveitar: fica com os itens que fecharam
+        }
+
+        String prefix = lastItemEnd > 0 ? json.substring(0, lastItemEnd) : "";
+        return new Result(items, complete, prefix);
+    }
+
+    /**
+     * Item com tipo errado num campo (ex.: gramas como texto) é descartado sem parar a leitura.
+     */
+    private static Optional<GeminiVisionClient.FoodItem> toItem(JsonNode node) {
+        try {
+            GeminiVisionClient.FoodItem item = LENIENT.treeToValue(node, GeminiVisionClient.FoodItem.class);
+            return item.namePt != null || item.nameEn != null ? Optional.of(item) : Optional.empty();
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Avança até o início do array "items" do objeto raiz.
+     */
+    private static boolean seekItemsArray(JsonParser p) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("items".equals(field) && value == JsonToken.START_ARRAY) {
+                return true;
+            }
+            p.skipChildren();
+        }
+        return false;
+    }
+
+    private static String stripFences(String text) {
+        String s = text.strip();
+        if (s.startsWith("```")) {
+            int lineEnd = s.indexOf('\n');
+            s = lineEnd < 0 ? "" : s.substring(lineEnd + 1);
+            if (s.endsWith("```")) {
+                s = s.substring(0, s.length() - 3);
+            }
+        }
+        return s;
+    }
+}
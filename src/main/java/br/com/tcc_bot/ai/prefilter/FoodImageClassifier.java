@@ -0,0 +1,20 @@
+package br.com.tcc_bot.ai.prefilter;
+
+/**
+ * Classificador local "é comida / não é comida" que roda antes do Gemini.
+ * <p>
+ * Implementações devem ser thread-safe: a mesma instância atende o webhook e o lote em paralelo.
+ * Para trocar o modelo padrão basta registrar outro bean deste tipo com {@code @Primary}.
+ */
+public interface FoodImageClassifier {
+
+    /**
+     * Probabilidade (0 a 1) de a imagem mostrar comida.
+     */
+    float foodProbability(byte[] imageBytes) throws Exception;
+
+    /**
+     * Nome curto usado nos logs e na tag das métricas.
+     */
+    String name();
+}
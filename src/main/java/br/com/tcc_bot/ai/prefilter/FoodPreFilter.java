@@ -0,0 +1,70 @@
+package br.com.tcc_bot.ai.prefilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decide se uma imagem vale uma chamada ao Gemini.
+ * <p>
+ * Abaixo de {@code FOOD_CLASSIFIER_THRESHOLD} a imagem é recusada na hora. Se o classificador
+ * falhar (formato que não decodifica, modelo com problema), a imagem segue: o pré-filtro só
+ * economiza chamadas, nunca bloqueia uma foto válida por erro próprio.
+ * <p>
+ * Métricas: {@code bot.prefilter.images} (tag {@code verdict} = food/not_food/error) e
+ * {@code bot.prefilter.latency}.
+ */
+@Component
+public class FoodPreFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(FoodPreFilter.class);
+
+    private final FoodImageClassifier classifier;
+    private final float threshold;
+    private final Counter food;
+    private final Counter notFood;
+    private final Counter errors;
+    private final Timer latency;
+
+    public FoodPreFilter(FoodImageClassifier classifier,
+                         MeterRegistry registry,
+                         @Value("${FOOD_CLASSIFIER_THRESHOLD:0.3}") float threshold) {
+        this.classifier = classifier;
+        this.threshold = threshold;
+        String tag = classifier.name();
+        this.food = Counter.builder("bot.prefilter.images").tag("classifier", tag).tag("verdict", "food").register(registry);
+        this.notFood = Counter.builder("bot.prefilter.images").tag("classifier", tag).tag("verdict", "not_food").register(registry);
+        this.errors = Counter.builder("bot.prefilter.images").tag("classifier", tag).tag("verdict", "error").register(registry);
+        this.latency = Timer.builder("bot.prefilter.latency").tag("classifier", tag).register(registry);
+    }
+
+    /**
+     * Lança {@link NotFoodImageException} se a imagem claramente não é comida.
+     */
+    public void check(byte[] imageBytes) {
+        float probability;
+        long start = System.nanoTime();
+        try {
+            probability = classifier.foodProbability(imageBytes);
+        } catch (Exception e) {
+            errors.increment();
+            log.warn("Pré-filtro ({}) falhou, seguindo para o Gemini: {}", classifier.name(), e.getMessage());
+            return;
+        } finally {
+            latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (probability < threshold) {
+            notFood.increment();
+            log.info("Pré-filtro ({}) recusou a imagem: p(comida)={}", classifier.name(), probability);
+            throw new NotFoodImageException(probability);
+        }
+        food.increment();
+    }
+}
@@ -0,0 +1,18 @@
+package br.com.tcc_bot.ai.prefilter;
+
+/**
+ * A imagem foi descartada pelo pré-filtro local, sem chamar o Gemini.
+ */
+public class NotFoodImageException extends RuntimeException {
+
+    private final float foodProbability;
+
+    public NotFoodImageException(float foodProbability) {
+        super("Imagem não parece ser comida (p=" + foodProbability + ")");
+        this.foodProbability = foodProbability;
+    }
+
+    public float foodProbability() {
+        return foodProbability;
+    }
+}
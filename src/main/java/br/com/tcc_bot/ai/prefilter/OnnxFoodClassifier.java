@@ -0,0 +1,164 @@
+package br.com.tcc_bot.ai.prefilter;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Classificador de imagem em ONNX (ex.: MobileNet/EfficientNet-Lite quantizado em int8) executado
+ * na CPU pelo ONNX Runtime embarcado.
+ * <p>
+ * Entrada esperada: tensor {@code [1, 3, S, S]} RGB normalizado com média/desvio do ImageNet.
+ * Saída: um logit (sigmoide = P(comida)) ou um vetor de logits em que {@code foodIndex} é a classe
+ * comida. Cada chamada usa {@code intraOpThreads} threads (1 por padrão), então a vazão escala
+ * com o número de requisições simultâneas, um núcleo por imagem.
+ * <p>
+ * As dimensões vêm do cabeçalho antes de decodificar: acima de {@code maxPixels} a imagem é
+ * recusada com {@link IOException} (um PNG de poucos KB pode declarar bilhões de pixels), e abaixo
+ * dele é decodificada já reduzida ao que o modelo precisa.
+ */
+public class OnnxFoodClassifier implements FoodImageClassifier, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OnnxFoodClassifier.class);
+
+    private static final float[] MEAN = {0.485f, 0.456f, 0.406f};
+    private static final float[] STD = {0.229f, 0.224f, 0.225f};
+
+    private final OrtEnvironment env;
+    private final OrtSession session;
+    private final String inputName;
+    private final int inputSize;
+    private final int foodIndex;
+    private final long maxPixels;
+
+    public OnnxFoodClassifier(Path modelPath, int inputSize, int foodIndex, int intraOpThreads, long maxPixels) throws OrtException {
+        this.env = OrtEnvironment.getEnvironment();
+        try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+            options.setIntraOpNumThreads(intraOpThreads);
+            options.setInterOpNumThreads(1);
+            options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            this.session = env.createSession(modelPath.toString(), options);
+        }
+        this.inputName = session.getInputNames().iterator().next();
+        this.inputSize = inputSize;
+        this.foodIndex = foodIndex;
+        this.maxPixels = maxPixels;
+        log.info("Pré-filtro ONNX carregado: {} (entrada {}x{}, classe comida={})", modelPath, inputSize, inputSize, foodIndex);
+    }
+
+    @Override
+    public float foodProbability(byte[] imageBytes) throws Exception {
+        float[] pixels = preprocess(imageBytes, inputSize, maxPixels);
+
+        try (OnnxTensor input = OnnxTensor.createTensor(env, FloatBuffer.wrap(pixels), new long[]{1, 3, inputSize, inputSize});
+             OrtSession.Result result = session.run(Map.of(inputName, input))) {
+
+            float[] logits = ((float[][]) result.get(0).getValue())[0];
+            return logits.length == 1 ? sigmoid(logits[0]) : softmax(logits, foodIndex);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "onnx";
+    }
+
+    @Override
+    public void close() throws OrtException {
+        session.close();
+    }
+
+    /**
+     * Decodifica, recorta o quadrado central, redimensiona (bilinear) e normaliza em NCHW.
+     */
+    public static float[] preprocess(byte[] imageBytes, int size, long maxPixels) throws IOException {
+        BufferedImage source = decode(imageBytes, size, maxPixels);
+
+        int side = Math.min(source.getWidth(), source.getHeight());
+        int x = (source.getWidth() - side) / 2;
+        int y = (source.getHeight() - side) / 2;
+
+        BufferedImage scaled = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(source, 0, 0, size, size, x, y, x + side, y + side, null);
+        } finally {
+            g.dispose();
+        }
+
+        int plane = size * size;
+        int[] rgb = scaled.getRGB(0, 0, size, size, null, 0, size);
+        float[] out = new float[3 * plane];
+        for (int i = 0; i < plane; i++) {
+            int p = rgb[i];
+            out[i] = (((p >> 16) & 0xFF) / 255f - MEAN[0]) / STD[0];
+            out[plane + i] = (((p >> 8) & 0xFF) / 255f - MEAN[1]) / STD[1];
+            out[2 * plane + i] = ((p & 0xFF) / 255f - MEAN[2]) / STD[2];
+        }
+        return out;
+    }
+
+    /**
+     * Lê largura e altura do cabeçalho e só então decodifica, pulando linhas e colunas para que
+     * o lado menor fique com pelo menos o dobro da entrada do modelo.
+     */
+    private static BufferedImage decode(byte[] imageBytes, int size, long maxPixels) throws IOException {
+        try (ImageInputStream in = new MemoryCacheImageInputStream(new ByteArrayInputStream(imageBytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("Formato de imagem não suportado");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IOException("Imagem de " + width + "x" + height + " excede o limite de " + maxPixels + " pixels");
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.min(width, height) / (2 * size));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static float sigmoid(float logit) {
+        return (float) (1.0 / (1.0 + Math.exp(-logit)));
+    }
+
+    private static float softmax(float[] logits, int index) {
+        float max = Float.NEGATIVE_INFINITY;
+        for (float l : logits) {
+            max = Math.max(max, l);
+        }
+        double sum = 0;
+        for (float l : logits) {
+            sum += Math.exp(l - max);
+        }
+        return (float) (Math.exp(logits[index] - max) / sum);
+    }
+}
@@ -0,0 +1,17 @@
+package br.com.tcc_bot.ai.prefilter;
+
+/**
+ * Usado quando nenhum modelo está configurado: toda imagem segue para o Gemini.
+ */
+public class PassThroughFoodClassifier implements FoodImageClassifier {
+
+    @Override
+    public float foodProbability(byte[] imageBytes) {
+        return 1f;
+    }
+
+    @Override
+    public String name() {
+        return "pass-through";
+    }
+}
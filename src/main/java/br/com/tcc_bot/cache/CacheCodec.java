@@ -0,0 +1,19 @@
+package br.com.tcc_bot.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Serialização binária compacta de um valor de cache. O mesmo formato vai para o L1 e o L2,
+ * então cada leitura devolve uma instância nova (quem recebe pode alterá-la à vontade).
+ * <p>
+ * Implementações devem gravar um byte de versão primeiro e lançar {@link IOException} para
+ * formatos que não reconhecem; o cache trata isso como ausência.
+ */
+public interface CacheCodec<V> {
+
+    void write(V value, DataOutputStream out) throws IOException;
+
+    V read(DataInputStream in) throws IOException;
+}
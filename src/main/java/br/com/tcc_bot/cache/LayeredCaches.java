@@ -0,0 +1,58 @@
+package br.com.tcc_bot.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cria os {@link TwoLevelCache} da aplicação sobre o mesmo L2 e distribui as mensagens de
+ * invalidação recebidas ({@code nó|cache|chave}) para o cache certo, ignorando as próprias.
+ */
+@Component
+public class LayeredCaches {
+
+    private static final Logger log = LoggerFactory.getLogger(LayeredCaches.class);
+
+    private final SharedCacheStore store;
+    private final MeterRegistry registry;
+    private final long l1MaxBytes;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, TwoLevelCache<?>> caches = new ConcurrentHashMap<>();
+
+    public LayeredCaches(SharedCacheStore store,
+                         MeterRegistry registry,
+                         @Value("${CACHE_L1_MAX_BYTES:16777216}") long l1MaxBytes) {
+        this.store = store;
+        this.registry = registry;
+        this.l1MaxBytes = l1MaxBytes;
+        store.subscribe(this::onInvalidation);
+        log.info("Cache em dois níveis: L1 de {} bytes por cache, L2 {}", l1MaxBytes, store.name());
+    }
+
+    public <V> TwoLevelCache<V> create(String name, CacheCodec<V> codec, Duration ttl) {
+        TwoLevelCache<V> cache = new TwoLevelCache<>(name, codec, ttl, l1MaxBytes, store,
+                key -> store.publish(nodeId + "|" + name + "|" + key), registry);
+        if (caches.putIfAbsent(name, cache) != null) {
+            throw new IllegalStateException("Cache já criado: " + name);
+        }
+        return cache;
+    }
+
+    private void onInvalidation(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length != 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        TwoLevelCache<?> cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.evictLocal(parts[2]);
+        }
+    }
+}
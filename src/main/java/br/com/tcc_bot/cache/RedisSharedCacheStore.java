@@ -0,0 +1,152 @@
+package br.com.tcc_bot.cache;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import org.springframework.context.Lifecycle;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * L2 em Redis: valores com {@code SET PX} e invalidações num canal pub/sub.
+ * Usa uma conexão multiplexada para comandos e outra dedicada à inscrição, abertas só no primeiro uso:
+ * com o Redis fora do ar a aplicação sobe mesmo assim e cada operação falha rápido (uma nova tentativa
+ * de conexão a cada {@link #RETRY_INTERVAL_MS} ms), deixando o cache seguir no L1. As conexões fecham
+ * num checkpoint (CRaC) e voltam a abrir sob demanda depois do restore.
+ */
+public class RedisSharedCacheStore implements SharedCacheStore, Lifecycle {
+
+    private static final String CHANNEL = "tcc-bot:cache:invalidate";
+    private static final long RETRY_INTERVAL_MS = 5_000;
+
+    private final RedisClient client;
+    private volatile StatefulRedisConnection<byte[], byte[]> connection;
+    private volatile StatefulRedisPubSubConnection<String, String> pubSub;
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean stopped;
+    private long retryAfterMs;
+
+    public RedisSharedCacheStore(String url, Duration timeout) {
+        this.client = RedisClient.create(url);
+        this.client.setDefaultTimeout(timeout);
+    }
+
+    /**
+     * Libera as operações depois de um {@link #stop()}; a conexão só é aberta no próximo uso.
+     */
+    @Override
+    public synchronized void start() {
+        stopped = false;
+        retryAfterMs = 0;
+    }
+
+    @Override
+    public synchronized void stop() {
+        stopped = true;
+        if (pubSub != null) {
+            pubSub.close();
+            pubSub = null;
+        }
+        if (connection != null) {
+            connection.close();
+            connection = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return !stopped;
+    }
+
+    @Override
+    public byte[] get(String key) {
+        return connection().sync().get(bytes(key));
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        connection().sync().set(bytes(key), value, SetArgs.Builder.px(ttl.toMillis()));
+    }
+
+    @Override
+    public void delete(String key) {
+        connection().sync().del(bytes(key));
+    }
+
+    @Override
+    public void publish(String message) {
+        connection().sync().publish(bytes(CHANNEL), bytes(message));
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public String name() {
+        return "redis";
+    }
+
+    @Override
+    public void close() {
+        stop();
+        client.shutdown();
+    }
+
+    private StatefulRedisConnection<byte[], byte[]> connection() {
+        StatefulRedisConnection<byte[], byte[]> current = connection;
+        return current != null ? current : connect();
+    }
+
+    private synchronized StatefulRedisConnection<byte[], byte[]> connect() {
+        if (connection != null) {
+            return connection;
+        }
+        if (stopped) {
+            throw new IllegalStateException("L2 Redis parado");
+        }
+        long now = System.currentTimeMillis();
+        if (now < retryAfterMs) {
+            throw new IllegalStateException("L2 Redis indisponível; nova tentativa em " + (retryAfterMs - now) + " ms");
+        }
+        StatefulRedisConnection<byte[], byte[]> commands = null;
+        StatefulRedisPubSubConnection<String, String> sub = null;
+        try {
+            commands = client.connect(ByteArrayCodec.INSTANCE);
+            sub = client.connectPubSub();
+            sub.addListener(new RedisPubSubAdapter<>() {
+                @Override
+                public void message(String channel, String message) {
+                    for (Consumer<String> listener : listeners) {
+                        listener.accept(message);
+                    }
+                }
+            });
+            sub.sync().subscribe(CHANNEL);
+            pubSub = sub;
+            connection = commands;
+            return commands;
+        } catch (RuntimeException e) {
+            if (sub != null) {
+                sub.close();
+            }
+            if (commands != null) {
+                commands.close();
+            }
+            retryAfterMs = now + RETRY_INTERVAL_MS;
+            throw e;
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,34 @@
+package br.com.tcc_bot.cache;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Armazenamento L2 compartilhado entre as réplicas (chave → bytes com TTL) e o canal de
+ * invalidação entre elas. Falhas de rede viram exceções não checadas; o {@link TwoLevelCache}
+ * as conta e segue só com o L1.
+ */
+public interface SharedCacheStore extends AutoCloseable {
+
+    byte[] get(String key);
+
+    void put(String key, byte[] value, Duration ttl);
+
+    void delete(String key);
+
+    /**
+     * Envia a mensagem a todas as réplicas inscritas (inclusive esta).
+     */
+    void publish(String message);
+
+    void subscribe(Consumer<String> listener);
+
+    /**
+     * Nome curto para logs e métricas ("memory", "redis").
+     */
+    String name();
+
+    @Override
+    default void close() {
+    }
+}
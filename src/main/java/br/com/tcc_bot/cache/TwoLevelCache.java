@@ -0,0 +1,275 @@
+package br.com.tcc_bot.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Cache em dois níveis: L1 na memória da réplica (LRU limitado em bytes) na frente do L2
+ * compartilhado ({@link SharedCacheStore}).
+ * <p>
+ * Os dois níveis guardam o valor já codificado ({@link CacheCodec}); toda leitura decodifica uma
+ * instância nova. Um acerto no L2 também preenche o L1. {@link #invalidate} remove dos dois e
+ * avisa as outras réplicas para limparem o L1 delas. Erros do L2 nunca chegam a quem chamou.
+ * <p>
+ * Métricas: {@code bot.cache.gets} (tags {@code cache}, {@code level} = l1/l2, {@code result} = hit/miss/error),
+ * {@code bot.cache.l1.bytes}, {@code bot.cache.l1.entries} e {@code bot.cache.invalidations}.
+ */
+public final class TwoLevelCache<V> {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    private final String name;
+    private final CacheCodec<V> codec;
+    private final Duration ttl;
+    private final SharedCacheStore store;
+    private final Consumer<String> invalidationPublisher;
+    private final long l1MaxBytes;
+    private final List<Consumer<String>> invalidationListeners = new CopyOnWriteArrayList<>();
+
+    // access-order = LRU; protegido por synchronized(l1)
+    private final LinkedHashMap<String, L1Entry> l1 = new LinkedHashMap<>(64, 0.75f, true);
+    private long l1Bytes;
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Counter l2Errors;
+    private final Counter invalidations;
+
+    TwoLevelCache(String name,
+                  CacheCodec<V> codec,
+                  Duration ttl,
+                  long l1MaxBytes,
+                  SharedCacheStore store,
+                  Consumer<String> invalidationPublisher,
+                  MeterRegistry registry) {
+        this.name = name;
+        this.codec = codec;
+        this.ttl = ttl;
+        this.l1MaxBytes = l1MaxBytes;
+        this.store = store;
+        this.invalidationPublisher = invalidationPublisher;
+
+        this.l1Hits = gets(registry, "l1", "hit");
+        this.l1Misses = gets(registry, "l1", "miss");
+        this.l2Hits = gets(registry, "l2", "hit");
+        this.l2Misses = gets(registry, "l2", "miss");
+        this.l2Errors = gets(registry, "l2", "error");
+        this.invalidations = Counter.builder("bot.cache.invalidations").tag("cache", name).register(registry);
+        Gauge.builder("bot.cache.l1.bytes", this, TwoLevelCache::l1Bytes).tag("cache", name).register(registry);
+        Gauge.builder("bot.cache.l1.entries", this, TwoLevelCache::l1Entries).tag("cache", name).register(registry);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Optional<V> get(String key) {
+        byte[] bytes = l1Get(key);
+        if (bytes != null) {
+            l1Hits.increment();
+            return decode(key, bytes);
+        }
+        l1Misses.increment();
+
+        try {
+            bytes = store.get(storeKey(key));
+        } catch (RuntimeException e) {
+            l2Errors.increment();
+            log.debug("L2 ({}) indisponível para {}: {}", store.name(), name, e.getMessage());
+            return Optional.empty();
+        }
+        if (bytes == null) {
+            l2Misses.increment();
+            return Optional.empty();
+        }
+        l2Hits.increment();
+        l1Put(key, bytes);
+        return decode(key, bytes);
+    }
+
+    public void put(String key, V value) {
+        byte[] bytes = encode(value);
+        l1Put(key, bytes);
+        try {
+            store.put(storeKey(key), bytes, ttl);
+        } catch (RuntimeException e) {
+            l2Errors.increment();
+            log.debug("Falha ao gravar {} no L2 ({}): {}", name, store.name(), e.getMessage());
+        }
+    }
+
+    /**
+     * Remove dos dois níveis e avisa as outras réplicas.
+     */
+    public void invalidate(String key) {
+        invalidations.increment();
+        evictLocal(key);
+        try {
+            store.delete(storeKey(key));
+            invalidationPublisher.accept(key);
+        } catch (RuntimeException e) {
+            l2Errors.increment();
+            log.warn("Falha ao propagar invalidação de {}/{}: {}", name, key, e.getMessage());
+        }
+    }
+
+    /**
+     * {@code listener} recebe cada chave invalidada, aqui ou em outra réplica; serve para
+     * descartar estado derivado da entrada que vive fora do cache.
+     */
+    public void onInvalidate(Consumer<String> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    /**
+     * Chamado quando outra réplica invalidou a chave: só o L1 local precisa sair.
+     */
+    void evictLocal(String key) {
+        synchronized (l1) {
+            L1Entry removed = l1.remove(key);
+            if (removed != null) {
+                l1Bytes -= removed.value.length;
+            }
+        }
+        for (Consumer<String> listener : invalidationListeners) {
+            listener.accept(key);
+        }
+    }
+
+    /**
+     * Cópia das entradas vivas do L1 (chave → bytes codificados e expiração em horário de parede),
+     * da mais antiga para a mais recente.
+     */
+    public Map<String, Snapshot> l1Snapshot() {
+        Map<String, Snapshot> copy = new LinkedHashMap<>();
+        long nowNanos = System.nanoTime();
+        long nowMillis = System.currentTimeMillis();
+        synchronized (l1) {
+            for (Map.Entry<String, L1Entry> e : l1.entrySet()) {
+                long remainingNanos = e.getValue().expiresAtNanos - nowNanos;
+                if (remainingNanos > 0) {
+                    copy.put(e.getKey(), new Snapshot(e.getValue().value, nowMillis + remainingNanos / 1_000_000));
+                }
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Coloca no L1 um valor já codificado (ex.: carregado de um snapshot), sem tocar no L2. A entrada
+     * vale só até {@code expiresAtMillis} (nunca além do TTL do cache); se já expirou, é ignorada.
+     */
+    public void preload(String key, Snapshot entry) {
+        long remainingMs = Math.min(entry.expiresAtMillis() - System.currentTimeMillis(), ttl.toMillis());
+        if (remainingMs > 0) {
+            l1Put(key, entry.value(), Duration.ofMillis(remainingMs));
+        }
+    }
+
+    public byte[] encode(V value) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            codec.write(value, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private Optional<V> decode(String key, byte[] bytes) {
+        try {
+            return Optional.of(codec.read(new DataInputStream(new ByteArrayInputStream(bytes))));
+        } catch (IOException e) {
+            // Formato antigo ou corrompido: descarta e deixa quem chamou buscar de novo
+            log.warn("Entrada ilegível em {}/{}: {}", name, key, e.getMessage());
+            evictLocal(key);
+            return Optional.empty();
+        }
+    }
+
+    private byte[] l1Get(String key) {
+        synchronized (l1) {
+            L1Entry entry = l1.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAtNanos > 0) {
+                l1.remove(key);
+                l1Bytes -= entry.value.length;
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    private void l1Put(String key, byte[] bytes) {
+        l1Put(key, bytes, ttl);
+    }
+
+    private void l1Put(String key, byte[] bytes, Duration timeToLive) {
+        if (bytes.length > l1MaxBytes) {
+            return;
+        }
+        synchronized (l1) {
+            L1Entry previous = l1.put(key, new L1Entry(bytes, System.nanoTime() + timeToLive.toNanos()));
+            l1Bytes += bytes.length - (previous == null ? 0 : previous.value.length);
+
+            Iterator<L1Entry> eldest = l1.values().iterator();
+            while (l1Bytes > l1MaxBytes && eldest.hasNext()) {
+                l1Bytes -= eldest.next().value.length;
+                eldest.remove();
+            }
+        }
+    }
+
+    private double l1Bytes() {
+        synchronized (l1) {
+            return l1Bytes;
+        }
+    }
+
+    private double l1Entries() {
+        synchronized (l1) {
+            return l1.size();
+        }
+    }
+
+    private String storeKey(String key) {
+        return "tcc-bot:" + name + ":" + key;
+    }
+
+    private Counter gets(MeterRegistry registry, String level, String result) {
+        return Counter.builder("bot.cache.gets")
+                .tag("cache", name)
+                .tag("level", level)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private record L1Entry(byte[] value, long expiresAtNanos) {}
+
+    /**
+     * Entrada do L1 copiada para fora do processo: o valor codificado e quando ele expira.
+     */
+    public record Snapshot(byte[] value, long expiresAtMillis) {}
+}
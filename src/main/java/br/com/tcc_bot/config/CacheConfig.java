@@ -0,0 +1,28 @@
+package br.com.tcc_bot.config;
+
+import br.com.tcc_bot.cache.InMemorySharedCacheStore;
+import br.com.tcc_bot.cache.RedisSharedCacheStore;
+import br.com.tcc_bot.cache.SharedCacheStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+
+/**
+ * L2 dos caches: Redis quando {@code CACHE_L2_REDIS_URL} está definido (ex.: {@code redis://cache:6379}),
+ * senão um armazenamento em memória local (cada réplica com o seu).
+ */
+@Configuration
+public class CacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public SharedCacheStore sharedCacheStore(@Value("${CACHE_L2_REDIS_URL:}") String redisUrl,
+                                             @Value("${CACHE_L2_TIMEOUT_MS:200}") long timeoutMs) {
+        if (!StringUtils.hasText(redisUrl)) {
+            return new InMemorySharedCacheStore();
+        }
+        return new RedisSharedCacheStore(redisUrl, Duration.ofMillis(timeoutMs));
+    }
+}
@@ -0,0 +1,34 @@
+package br.com.tcc_bot.config;
+
+import br.com.tcc_bot.ai.prefilter.FoodImageClassifier;
+import br.com.tcc_bot.ai.prefilter.OnnxFoodClassifier;
+import br.com.tcc_bot.ai.prefilter.PassThroughFoodClassifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Path;
+
+/**
+ * Classificador do pré-filtro: ONNX quando {@code FOOD_CLASSIFIER_MODEL} aponta para um modelo,
+ * senão tudo passa direto para o Gemini. Outro classificador substitui este sendo registrado
+ * como {@code @Primary}.
+ */
+@Configuration
+public class FoodClassifierConfig {
+
+    @Bean
+    public FoodImageClassifier foodImageClassifier(
+            @Value("${FOOD_CLASSIFIER_MODEL:}") String modelPath,
+            @Value("${FOOD_CLASSIFIER_INPUT_SIZE:224}") int inputSize,
+            @Value("${FOOD_CLASSIFIER_FOOD_INDEX:1}") int foodIndex,
+            @Value("${FOOD_CLASSIFIER_THREADS:1}") int threads,
+            @Value("${FOOD_CLASSIFIER_MAX_PIXELS:100000000}") long maxPixels) throws Exception {
+
+        if (!StringUtils.hasText(modelPath)) {
+            return new PassThroughFoodClassifier();
+        }
+        return new OnnxFoodClassifier(Path.of(modelPath), inputSize, foodIndex, threads, maxPixels);
+    }
+}
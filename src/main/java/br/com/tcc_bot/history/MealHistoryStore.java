@@ -0,0 +1,416 @@
+package br.com.tcc_bot.history;
+
+import br.com.tcc_bot.ai.AnalysisService;
+import br.com.tcc_bot.nutrition.profile.Nutrient;
+import br.com.tcc_bot.nutrition.profile.NutrientProfile;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.Lifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Histórico de refeições confirmadas.
+ * <p>
+ * Cada usuário tem um arquivo append-only {@code <usuario>.profile}: um cabeçalho com os
+ * números USDA das colunas ({@code [int magic][short n][short número × n]}) seguido de registros
+ * de tamanho fixo {@code [long instante][int dia][double × n]} com o perfil completo da refeição.
+ * Se o catálogo de nutrientes mudar, o arquivo é remapeado pelo número USDA na primeira carga.
+ * O formato anterior ({@code <usuario>.meals}, só os quatro macros) continua sendo lido.
+ * <p>
+ * O arquivo é mapeado em memória e lido uma única vez, na primeira consulta do usuário, e mantido
+ * como agregados diários ({@link UserMealHistory}); novas refeições atualizam os dois. Só os
+ * {@code HISTORY_CACHED_USERS} usuários usados mais recentemente ficam em memória, cada um com o
+ * canal de append aberto; os demais são relidos do disco quando voltarem.
+ */
+@Component
+public class MealHistoryStore implements Lifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(MealHistoryStore.class);
+
+    private static final int MAGIC = 0x4E505231; // "NPR1"
+    private static final int LEGACY_RECORD_BYTES = Long.BYTES + Integer.BYTES + Double.BYTES * 4;
+    private static final int[] IDENTITY_COLUMNS = IntStream.range(0, Nutrient.COUNT).toArray();
+
+    @Value("${HISTORY_DIR:data/history}")
+    private String historyDir;
+
+    @Value("${HISTORY_ZONE:America/Sao_Paulo}")
+    private String zone;
+
+    @Value("${HISTORY_CACHED_USERS:1000}")
+    private int maxCachedUsers;
+
+    private ZoneId zoneId;
+    private volatile boolean running = true;
+
+    // access-order = LRU; protegido por synchronized(users)
+    private final LinkedHashMap<String, UserFile> users = new LinkedHashMap<>(64, 0.75f, true);
+
+    @PostConstruct
+    void init() throws IOException {
+        zoneId = ZoneId.of(zone);
+        Files.createDirectories(Path.of(historyDir));
+    }
+
+    // Checkpoint/restore (CRaC): o histórico em memória é só cache dos arquivos;
+    // esvazia para ser relido do disco do pod restaurado
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        List<UserFile> cached;
+        synchronized (users) {
+            cached = new ArrayList<>(users.values());
+            users.clear();
+        }
+        cached.forEach(UserFile::close);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void record(String user, AnalysisService.NutritionalTotals totals) {
+        Instant now = Instant.now();
+        int epochDay = (int) LocalDate.ofInstant(now, zoneId).toEpochDay();
+        double[] profile = totals.nutrients.values();
+
+        ByteBuffer rec = ByteBuffer.allocate(recordBytes(Nutrient.COUNT))
+                .putLong(now.toEpochMilli())
+                .putInt(epochDay);
+        for (double v : profile) {
+            rec.putDouble(v);
+        }
+        rec.flip();
+
+        try {
+            boolean written;
+            do {
+                // false = a entrada saiu do cache entre a busca e o append; grava pela entrada atual
+                written = userFile(user).append(rec, epochDay, profile);
+            } while (!written);
+        } catch (IOException e) {
+            log.error("Falha ao gravar refeição no histórico de {}", user, e);
+        }
+    }
+
+    /**
+     * Totais dos últimos {@code days} dias, incluindo hoje.
+     */
+    public Totals lastDays(String user, int days) {
+        int today = today();
+        return userFile(user).history().sum(today - days + 1, today);
+    }
+
+    /**
+     * Totais desde o primeiro registro do usuário.
+     */
+    public Totals allTime(String user) {
+        return userFile(user).history().sum(Integer.MIN_VALUE, today());
+    }
+
+    private int today() {
+        return (int) LocalDate.now(zoneId).toEpochDay();
+    }
+
+    /**
+     * Entrada do usuário no cache, criada vazia; a leitura do disco acontece fora do lock do mapa,
+     * em {@link UserFile#history()}.
+     */
+    private UserFile userFile(String user) {
+        UserFile file;
+        UserFile evicted = null;
+        synchronized (users) {
+            file = users.get(user);
+            if (file == null) {
+                file = new UserFile(user);
+                users.put(user, file);
+                if (users.size() > maxCachedUsers) {
+                    Iterator<UserFile> eldest = users.values().iterator();
+                    evicted = eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
+        if (evicted != null) {
+            evicted.close();
+        }
+        return file;
+    }
+
+    private UserMealHistory load(String user) {
+        UserMealHistory history = new UserMealHistory();
+        try {
+            loadLegacy(legacyFileOf(user), history);
+
+            Path file = fileOf(user);
+            if (Files.exists(file)) {
+                int[] columns = loadProfiles(file, history);
+                if (!Arrays.equals(columns, IDENTITY_COLUMNS)) {
+                    migrate(file, columns);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao carregar histórico de " + user, e);
+        }
+        return history;
+    }
+
+    private void loadLegacy(Path file, UserMealHistory history) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long complete = ch.size() - (ch.size() % LEGACY_RECORD_BYTES);
+            MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, complete);
+            NutrientProfile row = new NutrientProfile();
+            while (in.remaining() >= LEGACY_RECORD_BYTES) {
+                in.getLong();
+                int day = in.getInt();
+                row.set(Nutrient.ENERGY, in.getDouble())
+                        .set(Nutrient.PROTEIN, in.getDouble())
+                        .set(Nutrient.CARBOHYDRATES, in.getDouble())
+                        .set(Nutrient.FAT, in.getDouble());
+                history.add(day, row.values());
+            }
+        }
+    }
+
+    /**
+     * Lê os registros e devolve, para cada coluna do arquivo, o índice no catálogo atual (-1 = descontinuado).
+     */
+    private int[] loadProfiles(Path file, UserMealHistory history) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            int[] columns = readHeader(in, file);
+            int recordBytes = recordBytes(columns.length);
+
+            double[] row = new double[Nutrient.COUNT];
+            while (in.remaining() >= recordBytes) {
+                in.getLong();
+                int day = in.getInt();
+                readRow(in, columns, row);
+                history.add(day, row);
+            }
+            if (in.hasRemaining()) {
+                // Registro incompleto de uma gravação interrompida: descarta para os próximos appends ficarem alinhados
+                log.warn("Descartando {} bytes incompletos no fim de {}", in.remaining(), file.getFileName());
+                ch.truncate(in.position());
+            }
+            return columns;
+        }
+    }
+
+    /**
+     * Reescreve o arquivo com as colunas do catálogo atual (troca atômica).
+     */
+    private void migrate(Path file, int[] columns) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            MappedByteBuffer src = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            readHeader(src, file);
+            int recordBytes = recordBytes(columns.length);
+
+            writeFully(out, header());
+            double[] row = new double[Nutrient.COUNT];
+            ByteBuffer rec = ByteBuffer.allocate(recordBytes(Nutrient.COUNT));
+            while (src.remaining() >= recordBytes) {
+                rec.clear().putLong(src.getLong()).putInt(src.getInt());
+                readRow(src, columns, row);
+                for (double v : row) {
+                    rec.putDouble(v);
+                }
+                writeFully(out, rec.flip());
+            }
+            out.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Histórico {} remapeado para o catálogo atual de nutrientes", file.getFileName());
+    }
+
+    private static int[] readHeader(ByteBuffer in, Path file) throws IOException {
+        if (in.remaining() < Integer.BYTES + Short.BYTES || in.getInt() != MAGIC) {
+            throw new IOException("Cabeçalho inválido em " + file);
+        }
+        int[] columns = new int[in.getShort()];
+        for (int c = 0; c < columns.length; c++) {
+            String number = Integer.toString(in.getShort());
+            columns[c] = Nutrient.byUsdaNumber(number).map(Nutrient::index).orElse(-1);
+        }
+        return columns;
+    }
+
+    private static void readRow(ByteBuffer in, int[] columns, double[] row) {
+        Arrays.fill(row, 0.0);
+        for (int column : columns) {
+            double v = in.getDouble();
+            if (column >= 0) {
+                row[column] = v;
+            }
+        }
+    }
+
+    /**
+     * Remove o fim de um append que falhou no meio, para o próximo registro ficar alinhado.
+     */
+    private static void dropPartialRecord(FileChannel ch) throws IOException {
+        long partial = (ch.size() - header().remaining()) % recordBytes(Nutrient.COUNT);
+        if (partial > 0) {
+            ch.truncate(ch.size() - partial);
+        }
+    }
+
+    private static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + Short.BYTES * (1 + Nutrient.COUNT))
+                .putInt(MAGIC)
+                .putShort((short) Nutrient.COUNT);
+        for (Nutrient n : Nutrient.values()) {
+            header.putShort(Short.parseShort(n.usdaNumber));
+        }
+        return header.flip();
+    }
+
+    private static int recordBytes(int columns) {
+        return Long.BYTES + Integer.BYTES + Double.BYTES * columns;
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            ch.write(buffer);
+        }
+    }
+
+    private Path fileOf(String user) {
+        return Path.of(historyDir).resolve(safeName(user) + ".profile");
+    }
+
+    private Path legacyFileOf(String user) {
+        return Path.of(historyDir).resolve(safeName(user) + ".meals");
+    }
+
+    private static String safeName(String user) {
+        // O remetente do WhatsApp é só dígitos; o filtro evita qualquer path traversal
+        return user.replaceAll("[^0-9A-Za-z]", "_");
+    }
+
+    /**
+     * Histórico em memória e canal de append de um usuário. A carga e os appends são serializados
+     * pelo monitor da entrada, então uma refeição nunca é gravada no meio da leitura do arquivo.
+     */
+    private final class UserFile {
+
+        private final String user;
+        private UserMealHistory history;
+        private FileChannel channel;
+        private boolean closed;
+
+        UserFile(String user) {
+            this.user = user;
+        }
+
+        synchronized UserMealHistory history() {
+            if (history == null) {
+                history = load(user);
+            }
+            return history;
+        }
+
+        /**
+         * Grava o registro e soma ao agregado; {@code false} se a entrada já foi removida do cache.
+         */
+        synchronized boolean append(ByteBuffer rec, int epochDay, double[] profile) throws IOException {
+            if (closed) {
+                return false;
+            }
+            UserMealHistory loaded = history();
+            try {
+                if (channel == null) {
+                    channel = FileChannel.open(fileOf(user),
+                            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                    if (channel.size() == 0) {
+                        writeFully(channel, header());
+                    } else {
+                        dropPartialRecord(channel);
+                    }
+                }
+                writeFully(channel, rec);
+            } catch (IOException e) {
+                // Reabre na próxima refeição; um registro parcial é descartado na próxima carga
+                closeChannel();
+                throw e;
+            }
+            loaded.add(epochDay, profile);
+            return true;
+        }
+
+        synchronized void close() {
+            closed = true;
+            closeChannel();
+        }
+
+        private void closeChannel() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Falha ao fechar histórico de {}: {}", user, e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    public record Totals(int meals, int days, NutrientProfile nutrients) {
+
+        public double calories() {
+            return nutrients.get(Nutrient.ENERGY);
+        }
+
+        public double protein() {
+            return nutrients.get(Nutrient.PROTEIN);
+        }
+
+        public double carbs() {
+            return nutrients.get(Nutrient.CARBOHYDRATES);
+        }
+
+        public double fat() {
+            return nutrients.get(Nutrient.FAT);
+        }
+
+        public double caloriesPerMeal() {
+            return meals == 0 ? 0.0 : calories() / meals;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package br.com.tcc_bot.history;
+
+import br.com.tcc_bot.nutrition.profile.Nutrient;
+import br.com.tcc_bot.nutrition.profile.NutrientOps;
+import br.com.tcc_bot.nutrition.profile.NutrientProfile;
+
+import java.util.Arrays;
+
+/**
+ * Agregados diários de um usuário: uma linha por dia, com os nutrientes do dia num único
+ * {@code double[]} plano ({@code linha * Nutrient.COUNT + nutriente}).
+ * <p>
+ * Os dias ficam em ordem crescente, então as consultas fazem uma busca binária pelo
+ * primeiro dia do intervalo e somam apenas as linhas seguintes: custo O(dias), nunca O(refeições).
+ * As somas de linha usam {@link NutrientOps#best()}.
+ */
+class UserMealHistory {
+
+    private static final int WIDTH = Nutrient.COUNT;
+
+    private final NutrientOps ops = NutrientOps.best();
+
+    private int size;
+    private int[] days = new int[16];
+    private int[] meals = new int[16];
+    private double[] values = new double[16 * WIDTH];
+
+    /**
+     * Soma uma refeição ({@code profile} indexado por {@link Nutrient#index()}) ao dia.
+     */
+    synchronized void add(int epochDay, double[] profile) {
+        int row = rowFor(epochDay);
+        meals[row]++;
+        ops.add(values, row * WIDTH, profile, 0, WIDTH);
+    }
+
+    /**
+     * Soma os dias no intervalo fechado [fromDay, toDay].
+     */
+    synchronized MealHistoryStore.Totals sum(int fromDay, int toDay) {
+        int start = Arrays.binarySearch(days, 0, size, fromDay);
+        if (start < 0) {
+            start = -start - 1;
+        }
+
+        int mealCount = 0;
+        int dayCount = 0;
+        NutrientProfile totals = new NutrientProfile();
+        double[] acc = totals.values();
+        for (int i = start; i < size && days[i] <= toDay; i++) {
+            dayCount++;
+            mealCount += meals[i];
+            ops.add(acc, 0, values, i * WIDTH, WIDTH);
+        }
+        // Os arquivos não guardam quais nutrientes foram medidos: zero no período conta como não medido
+        return new MealHistoryStore.Totals(mealCount, dayCount, totals.markNonZeroMeasured());
+    }
+
+    private int rowFor(int epochDay) {
+        // Caso comum: refeição de hoje, que é a última linha ou uma linha nova no fim
+        if (size > 0 && days[size - 1] == epochDay) {
+            return size - 1;
+        }
+
+        int pos = Arrays.binarySearch(days, 0, size, epochDay);
+        if (pos >= 0) {
+            return pos;
+        }
+
+        int insertAt = -pos - 1;
+        if (size == days.length) {
+            grow();
+        }
+        shift(insertAt);
+        days[insertAt] = epochDay;
+        meals[insertAt] = 0;
+        Arrays.fill(values, insertAt * WIDTH, (insertAt + 1) * WIDTH, 0.0);
+        size++;
+        return insertAt;
+    }
+
+    private void shift(int from) {
+        int count = size - from;
+        if (count == 0) return;
+        System.arraycopy(days, from, days, from + 1, count);
+        System.arraycopy(meals, from, meals, from + 1, count);
+        System.arraycopy(values, from * WIDTH, values, (from + 1) * WIDTH, count * WIDTH);
+    }
+
+    private void grow() {
+        int capacity = days.length * 2;
+        days = Arrays.copyOf(days, capacity);
+        meals = Arrays.copyOf(meals, capacity);
+        values = Arrays.copyOf(values, capacity * WIDTH);
+    }
+}
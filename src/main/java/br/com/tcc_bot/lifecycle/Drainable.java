@@ -0,0 +1,13 @@
+package br.com.tcc_bot.lifecycle;
+
+/**
+ * Componente que segura trabalho já aceito em memória (ex.: janelas de agrupamento) e precisa
+ * liberá-lo para execução quando o {@link WorkCoordinator} começa a drenar.
+ */
+public interface Drainable {
+
+    /**
+     * Libera imediatamente o trabalho retido; o que for disparado deve ser registrado no coordenador.
+     */
+    void drain();
+}
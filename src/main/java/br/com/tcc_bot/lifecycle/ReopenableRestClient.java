@@ -0,0 +1,72 @@
+package br.com.tcc_bot.lifecycle;
+
+import org.springframework.boot.http.client.ClientHttpRequestFactorySettings;
+import org.springframework.boot.http.client.HttpClientSettings;
+import org.springframework.boot.http.client.HttpRedirects;
+import org.springframework.boot.http.client.JdkHttpClientBuilder;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+
+/**
+ * {@link RestClient} cujo {@link HttpClient} (e as conexões keep-alive dele) pode ser fechado e
+ * recriado, para o processo passar por um checkpoint do CRaC sem sockets abertos.
+ * <p>
+ * O cliente é criado no primeiro {@link #client()} e recriado no primeiro uso depois de {@link #close()};
+ * quem o usa só precisa chamar {@code close()} no {@code stop()} do seu {@link org.springframework.context.Lifecycle}.
+ * O {@link HttpClient} é montado pelo mesmo {@link JdkHttpClientBuilder} do Boot, com as
+ * {@link ClientHttpRequestFactorySettings} configuradas ({@code spring.http.client.*}: timeouts,
+ * redirecionamento e SSL bundle); os customizers do {@link RestClient.Builder} continuam valendo.
+ */
+public final class ReopenableRestClient {
+
+    private final RestClient.Builder builder;
+    private final ClientHttpRequestFactorySettings settings;
+
+    private volatile RestClient client;
+    private HttpClient http;
+
+    public ReopenableRestClient(RestClient.Builder builder, ClientHttpRequestFactorySettings settings) {
+        this.builder = builder.clone();
+        this.settings = settings;
+    }
+
+    public RestClient client() {
+        RestClient current = client;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (client == null) {
+                http = new JdkHttpClientBuilder().build(httpClientSettings());
+                JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(http);
+                if (settings.readTimeout() != null) {
+                    factory.setReadTimeout(settings.readTimeout());
+                }
+                client = builder.clone().requestFactory(factory).build();
+            }
+            return client;
+        }
+    }
+
+    /**
+     * Fecha o {@link HttpClient}, esperando as requisições em andamento terminarem.
+     */
+    public synchronized void close() {
+        if (http != null) {
+            client = null;
+            http.close();
+            http = null;
+        }
+    }
+
+    public boolean isOpen() {
+        return client != null;
+    }
+
+    private HttpClientSettings httpClientSettings() {
+        HttpRedirects redirects = settings.redirects() != null ? HttpRedirects.valueOf(settings.redirects().name()) : null;
+        return new HttpClientSettings(redirects, settings.connectTimeout(), settings.readTimeout(), settings.sslBundle());
+    }
+}
@@ -0,0 +1,232 @@
+package br.com.tcc_bot.lifecycle;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drenagem do trabalho em andamento no desligamento (deploy, scale-in) e no checkpoint do CRaC.
+ * <p>
+ * Todo trabalho é registrado com um {@link Ticket}. Requisições novas pedem o seu com
+ * {@link #tryEnter()} e são recusadas durante a drenagem (o webhook responde 503 e a Meta reenvia
+ * para outra instância); trabalho que já foi confirmado ao remetente (a análise da foto, que roda
+ * depois do 200) entra com {@link #enterAccepted} e informa como salvar o que ainda falta.
+ * <p>
+ * No {@code stop()} — a primeira fase do desligamento, antes do shutdown gracioso do Tomcat — o
+ * coordenador para de aceitar trabalho, pede aos {@link Drainable} que liberem o que está retido
+ * e espera os tickets até {@code DRAIN_TIMEOUT_S}. Os envios ao WhatsApp são síncronos dentro de
+ * cada ticket, então terminar o ticket é também esvaziar os envios dele. O que não terminar no
+ * prazo roda o checkpoint (ex.: media_ids gravados no journal, retomados pela próxima instância)
+ * ou, sem checkpoint, é contado como perdido.
+ * <p>
+ * Métricas: {@code bot.drain.duration} (última drenagem), {@code bot.drain.work} por
+ * {@code outcome} (completed, checkpointed, dropped), {@code bot.drain.rejected} e
+ * {@code bot.drain.in_flight}.
+ */
+@Component
+public class WorkCoordinator implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkCoordinator.class);
+
+    private final long timeoutMs;
+    private final ObjectProvider<Drainable> drainables;
+    private final Set<Ticket> inFlight = ConcurrentHashMap.newKeySet();
+    private final Object lock = new Object();
+
+    private final AtomicLong lastDrainMs = new AtomicLong();
+    private final AtomicInteger finishedWhileDraining = new AtomicInteger();
+    private final Counter completed;
+    private final Counter checkpointed;
+    private final Counter dropped;
+    private final Counter rejected;
+
+    private volatile boolean draining;
+    private volatile boolean running;
+
+    public WorkCoordinator(ObjectProvider<Drainable> drainables,
+                           MeterRegistry registry,
+                           @Value("${DRAIN_TIMEOUT_S:20}") long timeoutSeconds) {
+        this.drainables = drainables;
+        this.timeoutMs = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        this.completed = Counter.builder("bot.drain.work").tag("outcome", "completed").register(registry);
+        this.checkpointed = Counter.builder("bot.drain.work").tag("outcome", "checkpointed").register(registry);
+        this.dropped = Counter.builder("bot.drain.work").tag("outcome", "dropped").register(registry);
+        this.rejected = Counter.builder("bot.drain.rejected").register(registry);
+        TimeGauge.builder("bot.drain.duration", lastDrainMs, TimeUnit.MILLISECONDS, AtomicLong::get).register(registry);
+        Gauge.builder("bot.drain.in_flight", inFlight, Set::size).register(registry);
+    }
+
+    /**
+     * Registra uma requisição nova; vazio durante a drenagem (quem chamou deve recusar com 503).
+     */
+    public Optional<Ticket> tryEnter() {
+        if (draining) {
+            rejected.increment();
+            return Optional.empty();
+        }
+        Ticket ticket = new Ticket(null);
+        inFlight.add(ticket);
+        // Fecha a corrida com o início da drenagem: quem entrou depois do flag não é esperado
+        if (draining) {
+            ticket.release(false);
+            rejected.increment();
+            return Optional.empty();
+        }
+        return Optional.of(ticket);
+    }
+
+    /**
+     * Registra trabalho que já foi aceito e não pode ser recusado. {@code checkpoint} roda se ele
+     * não terminar dentro do prazo da drenagem.
+     */
+    public Ticket enterAccepted(Runnable checkpoint) {
+        Ticket ticket = new Ticket(checkpoint);
+        inFlight.add(ticket);
+        return ticket;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    @Override
+    public void start() {
+        draining = false;
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        long start = System.currentTimeMillis();
+        finishedWhileDraining.set(0);
+        draining = true;
+        log.info("Drenando: {} trabalhos em andamento, prazo de {} s", inFlight.size(), timeoutMs / 1000);
+
+        for (Drainable drainable : drainables) {
+            try {
+                drainable.drain();
+            } catch (Exception e) {
+                log.error("Falha ao drenar {}", drainable.getClass().getSimpleName(), e);
+            }
+        }
+
+        long deadline = start + timeoutMs;
+        synchronized (lock) {
+            long remaining;
+            while (!inFlight.isEmpty() && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                try {
+                    lock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        int saved = 0;
+        int lost = 0;
+        for (Ticket ticket : List.copyOf(inFlight)) {
+            switch (ticket.abandon()) {
+                case CHECKPOINTED -> saved++;
+                case DROPPED -> lost++;
+                case FINISHED -> { }
+            }
+        }
+        int finished = finishedWhileDraining.get();
+        checkpointed.increment(saved);
+        dropped.increment(lost);
+
+        lastDrainMs.set(System.currentTimeMillis() - start);
+        running = false;
+        log.info("Drenagem concluída em {} ms: {} terminados, {} salvos para a próxima instância, {} perdidos",
+                lastDrainMs.get(), finished, saved, lost);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Fase mais alta: para antes do shutdown gracioso do servidor web e dos demais componentes.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+
+    public final class Ticket implements AutoCloseable {
+        private final Runnable checkpoint;
+        private boolean done;
+
+        private Ticket(Runnable checkpoint) {
+            this.checkpoint = checkpoint;
+        }
+
+        @Override
+        public void close() {
+            release(true);
+        }
+
+        /**
+         * Trabalho que termina durante a drenagem conta como {@code completed}; o ticket de uma
+         * requisição recusada na corrida com o início da drenagem só sai da lista.
+         */
+        private void release(boolean finished) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+            }
+            inFlight.remove(this);
+            if (finished && draining) {
+                completed.increment();
+                finishedWhileDraining.incrementAndGet();
+            }
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+        }
+
+        /**
+         * Prazo esgotado: salva o trabalho inacabado, se houver como. Um {@code close()} posterior é ignorado.
+         */
+        private Abandoned abandon() {
+            synchronized (this) {
+                if (done) {
+                    return Abandoned.FINISHED;
+                }
+                done = true;
+            }
+            inFlight.remove(this);
+            if (checkpoint == null) {
+                return Abandoned.DROPPED;
+            }
+            try {
+                checkpoint.run();
+                return Abandoned.CHECKPOINTED;
+            } catch (Exception e) {
+                log.error("Falha ao salvar trabalho inacabado", e);
+                return Abandoned.DROPPED;
+            }
+        }
+    }
+
+    private enum Abandoned { FINISHED, CHECKPOINTED, DROPPED }
+}
@@ -0,0 +1,52 @@
+package br.com.tcc_bot.nutrition;
+
+import br.com.tcc_bot.cache.CacheCodec;
+import br.com.tcc_bot.nutrition.profile.Nutrient;
+import br.com.tcc_bot.nutrition.profile.NutrientProfile;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * {@code [byte versão][short n]} seguido de {@code n × [UTF número USDA][double por 100 g]}.
+ * Só os nutrientes medidos entram (inclusive os zeros); os ausentes voltam como não medidos.
+ * Pelo número USDA (e não pelo índice do enum) o formato continua legível quando o catálogo muda.
+ * A versão 1 omitia os zeros medidos e é descartada.
+ */
+final class NutritionalDataCodec implements CacheCodec<UsdaApiClient.NutritionalData100g> {
+
+    private static final byte VERSION = 2;
+
+    @Override
+    public void write(UsdaApiClient.NutritionalData100g value, DataOutputStream out) throws IOException {
+        NutrientProfile nutrients = value.nutrients;
+        int measured = 0;
+        for (Nutrient n : Nutrient.values()) {
+            if (nutrients.has(n)) measured++;
+        }
+        out.writeByte(VERSION);
+        out.writeShort(measured);
+        for (Nutrient n : Nutrient.values()) {
+            if (nutrients.has(n)) {
+                out.writeUTF(n.usdaNumber);
+                out.writeDouble(nutrients.get(n));
+            }
+        }
+    }
+
+    @Override
+    public UsdaApiClient.NutritionalData100g read(DataInputStream in) throws IOException {
+        if (in.readByte() != VERSION) {
+            throw new IOException("Versão desconhecida de NutritionalData100g");
+        }
+        UsdaApiClient.NutritionalData100g data = new UsdaApiClient.NutritionalData100g();
+        int n = in.readUnsignedShort();
+        for (int i = 0; i < n; i++) {
+            String number = in.readUTF();
+            double amount = in.readDouble();
+            Nutrient.byUsdaNumber(number).ifPresent(nutrient -> data.nutrients.set(nutrient, amount));
+        }
+        return data;
+    }
+}
@@ -1,58 +1,155 @@
 package br.com.tcc_bot.nutrition;
 
+import br.com.tcc_bot.admission.AdmissionControl;
+import br.com.tcc_bot.admission.AdmissionRejectedException;
+import br.com.tcc_bot.admission.Priority;
+import br.com.tcc_bot.admission.Upstream;
+import br.com.tcc_bot.cache.LayeredCaches;
+import br.com.tcc_bot.cache.TwoLevelCache;
+import br.com.tcc_bot.lifecycle.ReopenableRestClient;
+import br.com.tcc_bot.nutrition.profile.Nutrient;
+import br.com.tcc_bot.nutrition.profile.NutrientProfile;
+import br.com.tcc_bot.profiling.UsdaDetailsEvent;
+import br.com.tcc_bot.profiling.UsdaSearchEvent;
 import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.boot.http.client.ClientHttpRequestFactorySettings;
+import org.springframework.context.Lifecycle;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 @Component
-public class UsdaApiClient {
+public class UsdaApiClient implements Lifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(UsdaApiClient.class);
 
     @Value("${USDA_API_KEY}")
     private String apiKey;
 
-    private final RestClient restClient;
+    private final ReopenableRestClient restClient;
+    private final AdmissionControl admission;
+    private final TwoLevelCache<NutritionalData100g> cache;
+
+    // Termo de busca (normalizado) → fdcId; resoluções mudam raramente e entram no snapshot de partida
+    private static final int MAX_FDC_IDS = 20_000;
+    private final Map<String, String> fdcIds = new ConcurrentHashMap<>();
+
+    // Todos os nutrientes do catálogo numa única chamada ao /food/{fdcId}
+    private static final Object[] NUTRIENT_NUMBERS = Arrays.stream(Nutrient.values()).map(n -> n.usdaNumber).toArray();
+
+    public UsdaApiClient(RestClient.Builder builder,
+                         AdmissionControl admission,
+                         LayeredCaches caches,
+                         ClientHttpRequestFactorySettings httpSettings,
+                         @Value("${CACHE_USDA_TTL_H:168}") long cacheTtlHours) {
+        this.restClient = new ReopenableRestClient(builder.baseUrl("https://api.nal.usda.gov/fdc/v1"), httpSettings);
+        this.admission = admission;
+        this.cache = caches.create("usda", new NutritionalDataCodec(), Duration.ofHours(cacheTtlHours));
+        // Invalidar o alimento (aqui ou em outra réplica) também esquece o fdcId, para a busca ser refeita
+        this.cache.onInvalidate(fdcIds::remove);
+    }
+
+    // Checkpoint/restore (CRaC): as conexões HTTP fecham no checkpoint e reabrem no primeiro uso depois
 
-    private static final String NUTRIENT_CALORIES = "208";
-    private static final String NUTRIENT_PROTEIN = "203";
-    private static final String NUTRIENT_CARBS = "205";
-    private static final String NUTRIENT_FAT = "204";
+    @Override
+    public void start() {
+    }
 
-    public UsdaApiClient(RestClient.Builder builder) {
-        this.restClient = builder.baseUrl("https://api.nal.usda.gov/fdc/v1").build();
+    @Override
+    public void stop() {
+        restClient.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return restClient.isOpen();
     }
 
     public static class NutritionalData100g {
-        public double calories = 0.0;
-        public double protein = 0.0;
-        public double carbohydrates = 0.0;
-        public double fat = 0.0;
+        public final NutrientProfile nutrients = new NutrientProfile();
     }
 
-    @Cacheable("usda_foods")
-    public Optional<NutritionalData100g> fetchNutritionalData(String foodName) {
+    /**
+     * Nutrientes por 100 g do alimento, passando antes pelo cache em dois níveis (chave = name_en
+     * normalizado). Só resultados encontrados são guardados; um "não encontrado" é tentado de novo.
+     * <p>
+     * Cada chamada à API é admitida na classe de quem pediu, esperando no máximo {@code maxWait};
+     * se for recusada, lança {@link AdmissionRejectedException} em vez de responder "não encontrado".
+     */
+    public Optional<NutritionalData100g> fetchNutritionalData(String foodName, Priority priority, Duration maxWait) {
+        String key = cacheKey(foodName);
+        Optional<NutritionalData100g> cached = cache.get(key);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<NutritionalData100g> fetched = fetchFromApi(foodName, priority, maxWait);
+        fetched.ifPresent(data -> cache.put(key, data));
+        return fetched;
+    }
+
+    /**
+     * Descarta a entrada do alimento e o fdcId resolvido em todas as réplicas, para a próxima
+     * consulta buscar de novo (ex.: alimento mapeado para o item errado; ver {@link UsdaCacheEndpoint}).
+     */
+    public void evict(String foodName) {
+        cache.invalidate(cacheKey(foodName));
+    }
+
+    /**
+     * Entradas quentes do cache (chave → valor codificado), da menos para a mais recente.
+     */
+    public Map<String, TwoLevelCache.Snapshot> hotEntries() {
+        return cache.l1Snapshot();
+    }
+
+    public void preloadEntry(String key, TwoLevelCache.Snapshot entry) {
+        cache.preload(key, entry);
+    }
+
+    public Map<String, String> fdcIdResolutions() {
+        return Map.copyOf(fdcIds);
+    }
+
+    public void preloadFdcId(String query, String fdcId) {
+        rememberFdcId(cacheKey(query), fdcId);
+    }
+
+    static String cacheKey(String foodName) {
+        return foodName == null ? "" : foodName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private Optional<NutritionalData100g> fetchFromApi(String foodName, Priority priority, Duration maxWait) {
         try {
             String sanitizedName = sanitize(foodName);
-            Optional<String> fdcId = searchForFdcId(sanitizedName);
+            Optional<String> fdcId = searchForFdcId(sanitizedName, priority, maxWait);
 
             if (fdcId.isEmpty() && sanitizedName.contains(",")) {
                 String simpleName = sanitizedName.split(",")[0].trim();
-                System.out.println("USDA: Tentando fallback simplificado para: " + simpleName);
-                fdcId = searchForFdcId(simpleName);
+                log.debug("USDA: tentando fallback simplificado para: {}", simpleName);
+                fdcId = searchForFdcId(simpleName, priority, maxWait);
             }
 
             if (fdcId.isEmpty()) {
-                System.err.println("USDA: Não foi encontrado FDC-ID para: " + foodName);
+                log.warn("USDA: não foi encontrado FDC-ID para: {}", foodName);
                 return Optional.empty();
             }
 
-            return getDetailsByFdcId(fdcId.get());
+            return getDetailsByFdcId(fdcId.get(), priority, maxWait);
 
+        } catch (AdmissionRejectedException e) {
+            throw e;
         } catch (Exception e) {
-            System.err.println("Falha ao buscar dados do USDA para: " + foodName + " - Erro: " + e.getMessage());
+            log.warn("Falha ao buscar dados do USDA para {}: {}", foodName, e.getMessage());
             return Optional.empty();
         }
     }
@@ -65,9 +162,37 @@ public class UsdaApiClient {
                 .trim();
     }
 
-    private Optional<String> searchForFdcId(String foodName) {
+    private Optional<String> searchForFdcId(String foodName, Priority priority, Duration maxWait) {
+        UsdaSearchEvent event = new UsdaSearchEvent();
+        event.begin();
+        String known = fdcIds.get(cacheKey(foodName));
+        Optional<String> found;
+        if (known != null) {
+            found = Optional.of(known);
+        } else {
+            found = searchApiForFdcId(foodName, priority, maxWait);
+            found.ifPresent(id -> rememberFdcId(cacheKey(foodName), id));
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.query = foodName;
+            event.cached = known != null;
+            event.found = found.isPresent();
+            event.commit();
+        }
+        return found;
+    }
+
+    private void rememberFdcId(String query, String fdcId) {
+        if (fdcIds.size() < MAX_FDC_IDS) {
+            fdcIds.put(query, fdcId);
+        }
+    }
+
+    private Optional<String> searchApiForFdcId(String foodName, Priority priority, Duration maxWait) {
         try {
-            JsonNode root = restClient.get()
+            JsonNode root = callApi(priority, maxWait, () -> restClient.client().get()
                     .uri(uriBuilder -> uriBuilder
                             .path("/foods/search")
                             .queryParam("api_key", apiKey)
@@ -77,7 +202,7 @@ public class UsdaApiClient {
                             .queryParam("dataType", "Foundation,SR Legacy")
                             .build())
                     .retrieve()
-                    .body(JsonNode.class);
+                    .body(JsonNode.class));
 
             if (root == null) return Optional.empty();
 
@@ -88,22 +213,26 @@ public class UsdaApiClient {
 
             return Optional.ofNullable(foods.path(0).path("fdcId").asText(null));
 
+        } catch (AdmissionRejectedException e) {
+            throw e;
         } catch (Exception e) {
-            System.err.println("Erro na chamada de busca USDA (" + foodName + "): " + e.getMessage());
+            log.warn("Erro na chamada de busca USDA ({}): {}", foodName, e.getMessage());
             return Optional.empty();
         }
     }
 
-    private Optional<NutritionalData100g> getDetailsByFdcId(String fdcId) {
+    private Optional<NutritionalData100g> getDetailsByFdcId(String fdcId, Priority priority, Duration maxWait) {
+        UsdaDetailsEvent event = new UsdaDetailsEvent();
+        event.begin();
         try {
-            JsonNode root = restClient.get()
+            JsonNode root = callApi(priority, maxWait, () -> restClient.client().get()
                     .uri(uriBuilder -> uriBuilder
                             .path("/food/{fdcId}")
                             .queryParam("api_key", apiKey)
-                            .queryParam("nutrients", NUTRIENT_CALORIES, NUTRIENT_PROTEIN, NUTRIENT_CARBS, NUTRIENT_FAT)
+                            .queryParam("nutrients", NUTRIENT_NUMBERS)
                             .build(fdcId))
                     .retrieve()
-                    .body(JsonNode.class);
+                    .body(JsonNode.class));
 
             if (root == null) return Optional.empty();
 
@@ -117,17 +246,31 @@ public class UsdaApiClient {
                 String nutrientNumber = nutrientNode.path("nutrient").path("number").asText();
                 double amount = nutrientNode.path("amount").asDouble(0.0);
 
-                switch (nutrientNumber) {
-                    case NUTRIENT_CALORIES -> data.calories = amount;
-                    case NUTRIENT_PROTEIN -> data.protein = amount;
-                    case NUTRIENT_CARBS -> data.carbohydrates = amount;
-                    case NUTRIENT_FAT -> data.fat = amount;
-                }
+                Nutrient.byUsdaNumber(nutrientNumber).ifPresent(n -> data.nutrients.set(n, amount));
+            }
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.fdcId = fdcId;
+                event.nutrients = nutrientsNode.size();
+                event.commit();
             }
             return Optional.of(data);
+        } catch (AdmissionRejectedException e) {
+            throw e;
         } catch (Exception e) {
-            System.err.println("Erro ao buscar detalhes do FDC ID " + fdcId + ": " + e.getMessage());
+            log.warn("Erro ao buscar detalhes do FDC ID {}: {}", fdcId, e.getMessage());
             return Optional.empty();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Uma chamada ao USDA: uma permissão própria no limite do USDA, na classe de quem pediu.
+     */
+    private <T> T callApi(Priority priority, Duration maxWait, Supplier<T> call) {
+        try (AdmissionControl.Permit ignored = admission.tryAdmit(priority, Upstream.USDA, maxWait)
+                .orElseThrow(() -> new AdmissionRejectedException(priority, Upstream.USDA))) {
+            return admission.record(Upstream.USDA, call);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package br.com.tcc_bot.nutrition;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code DELETE /actuator/usdacache/{name_en}} descarta o alimento do cache do USDA em todas as
+ * réplicas, junto com o fdcId resolvido. Serve para corrigir um alimento que caiu no item errado
+ * do FoodData Central sem esperar o TTL de {@code CACHE_USDA_TTL_H}.
+ * <p>
+ * O acesso exige o token de {@code PROFILING_TOKEN} ({@link br.com.tcc_bot.profiling.ProfilingAccessFilter}).
+ */
+@Component
+@Endpoint(id = "usdacache")
+public class UsdaCacheEndpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(UsdaCacheEndpoint.class);
+
+    private final UsdaApiClient usdaClient;
+
+    public UsdaCacheEndpoint(UsdaApiClient usdaClient) {
+        this.usdaClient = usdaClient;
+    }
+
+    @DeleteOperation
+    public Map<String, String> evict(@Selector String food) {
+        usdaClient.evict(food);
+        log.info("Alimento '{}' descartado do cache do USDA", food);
+        return Map.of("evicted", food);
+    }
+}
@@ -0,0 +1,176 @@
+package br.com.tcc_bot.nutrition.profile;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Catálogo de nutrientes rastreados. A posição no enum ({@link #index()}) é a coluna do
+ * {@code double[]} de um {@link NutrientProfile}; {@code usdaNumber} é o "nutrient.number" do
+ * FoodData Central, usado na leitura do USDA e no cabeçalho dos arquivos de histórico.
+ * <p>
+ * Novos nutrientes entram no fim da lista: arquivos antigos são remapeados pelo número USDA.
+ */
+public enum Nutrient {
+
+    // Os quatro primeiros são o padrão das respostas e mantêm o layout histórico da mensagem
+    ENERGY("208", "calorias", "Calorias", "kcal", 0),
+    CARBOHYDRATES("205", "carboidratos", "Carboidratos", "g", 1),
+    PROTEIN("203", "proteinas", "Proteínas", "g", 1),
+    FAT("204", "gorduras", "Gorduras", "g", 1),
+
+    FIBER("291", "fibras", "Fibras", "g", 1),
+    SUGARS("269", "acucares", "Açúcares", "g", 1),
+    ADDED_SUGARS("539", "acucares adicionados", "Açúcares adicionados", "g", 1),
+    SATURATED_FAT("606", "gordura saturada", "Gordura saturada", "g", 1),
+    MONOUNSATURATED_FAT("645", "gordura monoinsaturada", "Gordura monoinsaturada", "g", 1),
+    POLYUNSATURATED_FAT("646", "gordura poliinsaturada", "Gordura poli-insaturada", "g", 1),
+    TRANS_FAT("605", "gordura trans", "Gordura trans", "g", 2),
+    CHOLESTEROL("601", "colesterol", "Colesterol", "mg", 0),
+    WATER("255", "agua", "Água", "g", 0),
+    ALCOHOL("221", "alcool", "Álcool", "g", 1),
+    CAFFEINE("262", "cafeina", "Cafeína", "mg", 0),
+
+    SODIUM("307", "sodio", "Sódio", "mg", 0),
+    POTASSIUM("306", "potassio", "Potássio", "mg", 0),
+    CALCIUM("301", "calcio", "Cálcio", "mg", 0),
+    IRON("303", "ferro", "Ferro", "mg", 1),
+    MAGNESIUM("304", "magnesio", "Magnésio", "mg", 0),
+    PHOSPHORUS("305", "fosforo", "Fósforo", "mg", 0),
+    ZINC("309", "zinco", "Zinco", "mg", 1),
+    COPPER("312", "cobre", "Cobre", "mg", 2),
+    MANGANESE("315", "manganes", "Manganês", "mg", 2),
+    SELENIUM("317", "selenio", "Selênio", "µg", 0),
+
+    VITAMIN_A("320", "vitamina a", "Vitamina A", "µg", 0),
+    BETA_CAROTENE("321", "betacaroteno", "Betacaroteno", "µg", 0),
+    VITAMIN_C("401", "vitamina c", "Vitamina C", "mg", 1),
+    VITAMIN_D("328", "vitamina d", "Vitamina D", "µg", 1),
+    VITAMIN_E("323", "vitamina e", "Vitamina E", "mg", 1),
+    VITAMIN_K("430", "vitamina k", "Vitamina K", "µg", 0),
+    THIAMIN("404", "tiamina", "Tiamina (B1)", "mg", 2),
+    RIBOFLAVIN("405", "riboflavina", "Riboflavina (B2)", "mg", 2),
+    NIACIN("406", "niacina", "Niacina (B3)", "mg", 1),
+    PANTOTHENIC_ACID("410", "acido pantotenico", "Ácido pantotênico (B5)", "mg", 2),
+    VITAMIN_B6("415", "vitamina b6", "Vitamina B6", "mg", 2),
+    FOLATE("435", "folato", "Folato", "µg", 0),
+    VITAMIN_B12("418", "vitamina b12", "Vitamina B12", "µg", 1),
+    CHOLINE("421", "colina", "Colina", "mg", 0),
+    LYCOPENE("337", "licopeno", "Licopeno", "µg", 0),
+
+    STARCH("209", "amido", "Amido", "g", 1),
+    SUCROSE("210", "sacarose", "Sacarose", "g", 1),
+    GLUCOSE("211", "glicose", "Glicose", "g", 1),
+    FRUCTOSE("212", "frutose", "Frutose", "g", 1),
+    LACTOSE("213", "lactose", "Lactose", "g", 1),
+    MALTOSE("214", "maltose", "Maltose", "g", 1),
+    GALACTOSE("287", "galactose", "Galactose", "g", 1),
+    ASH("207", "cinzas", "Cinzas", "g", 1),
+    THEOBROMINE("263", "teobromina", "Teobromina", "mg", 0),
+    FLUORIDE("313", "fluor", "Flúor", "µg", 0),
+
+    RETINOL("319", "retinol", "Retinol", "µg", 0),
+    ALPHA_CAROTENE("322", "alfacaroteno", "Alfacaroteno", "µg", 0),
+    BETA_CRYPTOXANTHIN("334", "betacriptoxantina", "Betacriptoxantina", "µg", 0),
+    LUTEIN_ZEAXANTHIN("338", "luteina e zeaxantina", "Luteína + zeaxantina", "µg", 0),
+    VITAMIN_D2("325", "vitamina d2", "Vitamina D2 (ergocalciferol)", "µg", 1),
+    VITAMIN_D3("326", "vitamina d3", "Vitamina D3 (colecalciferol)", "µg", 1),
+    VITAMIN_E_ADDED("573", "vitamina e adicionada", "Vitamina E adicionada", "mg", 1),
+    VITAMIN_K2("428", "vitamina k2", "Vitamina K2 (MK-4)", "µg", 1),
+    DIHYDROPHYLLOQUINONE("429", "di-hidrofiloquinona", "Di-hidrofiloquinona", "µg", 1),
+    FOLIC_ACID("431", "acido folico", "Ácido fólico", "µg", 0),
+    FOOD_FOLATE("432", "folato alimentar", "Folato alimentar", "µg", 0),
+    VITAMIN_B12_ADDED("578", "vitamina b12 adicionada", "Vitamina B12 adicionada", "µg", 1),
+    BETAINE("454", "betaina", "Betaína", "mg", 1),
+
+    ALA("851", "omega 3 ala", "Ômega-3 ALA (18:3)", "g", 2),
+    EPA("629", "omega 3 epa", "Ômega-3 EPA (20:5)", "g", 2),
+    DHA("621", "omega 3 dha", "Ômega-3 DHA (22:6)", "g", 2),
+    LINOLEIC_ACID("675", "omega 6 linoleico", "Ômega-6 linoleico (18:2)", "g", 2),
+    PHYTOSTEROLS("636", "fitosterois", "Fitosteróis", "mg", 0),
+
+    TRYPTOPHAN("501", "triptofano", "Triptofano", "g", 2),
+    THREONINE("502", "treonina", "Treonina", "g", 2),
+    ISOLEUCINE("503", "isoleucina", "Isoleucina", "g", 2),
+    LEUCINE("504", "leucina", "Leucina", "g", 2),
+    LYSINE("505", "lisina", "Lisina", "g", 2),
+    METHIONINE("506", "metionina", "Metionina", "g", 2),
+    CYSTINE("507", "cistina", "Cistina", "g", 2),
+    PHENYLALANINE("508", "fenilalanina", "Fenilalanina", "g", 2),
+    TYROSINE("509", "tirosina", "Tirosina", "g", 2),
+    VALINE("510", "valina", "Valina", "g", 2),
+    ARGININE("511", "arginina", "Arginina", "g", 2),
+    HISTIDINE("512", "histidina", "Histidina", "g", 2),
+    ALANINE("513", "alanina", "Alanina", "g", 2),
+    ASPARTIC_ACID("514", "acido aspartico", "Ácido aspártico", "g", 2),
+    GLUTAMIC_ACID("515", "acido glutamico", "Ácido glutâmico", "g", 2),
+    GLYCINE("516", "glicina", "Glicina", "g", 2),
+    PROLINE("517", "prolina", "Prolina", "g", 2),
+    SERINE("518", "serina", "Serina", "g", 2);
+
+    public static final int COUNT = values().length;
+
+    /** Padrão das respostas quando o usuário não escolheu nada */
+    public static final List<Nutrient> DEFAULT_SELECTION = List.of(ENERGY, CARBOHYDRATES, PROTEIN, FAT);
+
+    private static final Nutrient[] VALUES = values();
+    private static final Map<String, Nutrient> BY_USDA_NUMBER = new HashMap<>();
+    private static final Map<String, Nutrient> BY_KEY = new HashMap<>();
+
+    static {
+        for (Nutrient n : VALUES) {
+            BY_USDA_NUMBER.put(n.usdaNumber, n);
+            BY_KEY.put(n.key, n);
+            BY_KEY.put(n.key.replace(" ", ""), n);
+        }
+        // Formas que os usuários costumam digitar
+        BY_KEY.put("kcal", ENERGY);
+        BY_KEY.put("caloria", ENERGY);
+        BY_KEY.put("carboidrato", CARBOHYDRATES);
+        BY_KEY.put("carbs", CARBOHYDRATES);
+        BY_KEY.put("proteina", PROTEIN);
+        BY_KEY.put("gordura", FAT);
+        BY_KEY.put("fibra", FIBER);
+        BY_KEY.put("acucar", SUGARS);
+        BY_KEY.put("sal", SODIUM);
+    }
+
+    public final String usdaNumber;
+    public final String key;
+    public final String label;
+    public final String unit;
+    public final int decimals;
+
+    Nutrient(String usdaNumber, String key, String label, String unit, int decimals) {
+        this.usdaNumber = usdaNumber;
+        this.key = key;
+        this.label = label;
+        this.unit = unit;
+        this.decimals = decimals;
+    }
+
+    public int index() {
+        return ordinal();
+    }
+
+    public static Nutrient ofIndex(int index) {
+        return VALUES[index];
+    }
+
+    public static Optional<Nutrient> byUsdaNumber(String number) {
+        return Optional.ofNullable(BY_USDA_NUMBER.get(number));
+    }
+
+    /**
+     * Nome digitado pelo usuário ("sódio", "vitamina c", "gordura saturada"), sem acento e sem caixa.
+     */
+    public static Optional<Nutrient> byKey(String text) {
+        String key = Normalizer.normalize(text.trim().toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replaceAll("\\s+", " ");
+        return Optional.ofNullable(BY_KEY.get(key));
+    }
+}
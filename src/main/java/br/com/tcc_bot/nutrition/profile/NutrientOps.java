@@ -0,0 +1,57 @@
+package br.com.tcc_bot.nutrition.profile;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Kernels de agregação sobre trechos de {@code double[]}: escalar um perfil por 100 g para a
+ * porção e somar perfis em totais de prato/dia.
+ * <p>
+ * {@link #best()} usa a Vector API ({@code jdk.incubator.vector}) quando a JVM foi iniciada com
+ * {@code --add-modules jdk.incubator.vector}, e o laço escalar caso contrário (ou com
+ * {@code -Dnutrients.simd=false}). As duas implementações dão o mesmo resultado.
+ */
+public interface NutrientOps {
+
+    /** dst[dstOff + i] = src[srcOff + i] * factor */
+    void scale(double[] src, int srcOff, double factor, double[] dst, int dstOff, int length);
+
+    /** dst[dstOff + i] += src[srcOff + i] */
+    void add(double[] dst, int dstOff, double[] src, int srcOff, int length);
+
+    /** dst[dstOff + i] += src[srcOff + i] * factor */
+    void addScaled(double[] dst, int dstOff, double[] src, int srcOff, double factor, int length);
+
+    String name();
+
+    static NutrientOps best() {
+        return Holder.BEST;
+    }
+
+    static NutrientOps scalar() {
+        return ScalarNutrientOps.INSTANCE;
+    }
+
+    /**
+     * Implementação SIMD; lança {@link UnsupportedOperationException} se o módulo não está disponível.
+     */
+    static NutrientOps vectorized() {
+        if (!Holder.VECTOR_AVAILABLE) {
+            throw new UnsupportedOperationException("jdk.incubator.vector indisponível (use --add-modules jdk.incubator.vector)");
+        }
+        return VectorNutrientOps.INSTANCE;
+    }
+
+    final class Holder {
+        static final boolean VECTOR_AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        static final NutrientOps BEST = VECTOR_AVAILABLE && Boolean.parseBoolean(System.getProperty("nutrients.simd", "true"))
+                ? VectorNutrientOps.INSTANCE
+                : ScalarNutrientOps.INSTANCE;
+
+        static {
+            LoggerFactory.getLogger(NutrientOps.class).info("Agregação de nutrientes: {}", BEST.name());
+        }
+
+        private Holder() {
+        }
+    }
+}
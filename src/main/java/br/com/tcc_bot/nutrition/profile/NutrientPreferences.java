@@ -0,0 +1,112 @@
+package br.com.tcc_bot.nutrition.profile;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.Lifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Quais nutrientes cada usuário quer ver nas respostas, na ordem escolhida.
+ * <p>
+ * Guardado em {@code <PREFERENCES_DIR>/<usuario>.nutrients} (nomes do enum separados por vírgula)
+ * e mantido em memória depois da primeira leitura. Sem arquivo = {@link Nutrient#DEFAULT_SELECTION}.
+ */
+@Component
+public class NutrientPreferences implements Lifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(NutrientPreferences.class);
+
+    @Value("${PREFERENCES_DIR:data/preferences}")
+    private String preferencesDir;
+
+    private volatile boolean running = true;
+    private final Map<String, List<Nutrient>> selections = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(Path.of(preferencesDir));
+    }
+
+    // Checkpoint/restore (CRaC): as preferências em memória é só cache dos arquivos;
+    // esvazia para ser relido do disco do pod restaurado
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        selections.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public List<Nutrient> of(String user) {
+        List<Nutrient> cached = selections.get(user);
+        if (cached != null) {
+            return cached;
+        }
+        // Lê fora do computeIfAbsent para não segurar o lock do mapa durante o IO; se um set()
+        // concorrente já gravou, o putIfAbsent mantém a escolha nova
+        List<Nutrient> loaded = load(user);
+        List<Nutrient> previous = selections.putIfAbsent(user, loaded);
+        return previous != null ? previous : loaded;
+    }
+
+    public void set(String user, List<Nutrient> shown) {
+        List<Nutrient> selection = shown.isEmpty() ? Nutrient.DEFAULT_SELECTION : List.copyOf(shown);
+        selections.put(user, selection);
+        try {
+            Path file = fileOf(user);
+            if (selection.equals(Nutrient.DEFAULT_SELECTION)) {
+                Files.deleteIfExists(file);
+            } else {
+                Files.writeString(file, String.join(",", selection.stream().map(Nutrient::name).toList()), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            log.error("Falha ao salvar nutrientes escolhidos por {}", user, e);
+        }
+    }
+
+    private List<Nutrient> load(String user) {
+        Path file = fileOf(user);
+        if (!Files.exists(file)) {
+            return Nutrient.DEFAULT_SELECTION;
+        }
+        try {
+            List<Nutrient> selection = new ArrayList<>();
+            for (String name : Files.readString(file, StandardCharsets.UTF_8).split(",")) {
+                Arrays.stream(Nutrient.values())
+                        .filter(n -> n.name().equals(name.trim()))
+                        .findFirst()
+                        .ifPresent(selection::add);
+            }
+            return selection.isEmpty() ? Nutrient.DEFAULT_SELECTION : List.copyOf(selection);
+        } catch (IOException e) {
+            log.warn("Falha ao ler nutrientes escolhidos por {}: {}", user, e.getMessage());
+            return Nutrient.DEFAULT_SELECTION;
+        }
+    }
+
+    private Path fileOf(String user) {
+        // O remetente do WhatsApp é só dígitos; o filtro evita qualquer path traversal
+        return Path.of(preferencesDir).resolve(user.replaceAll("[^0-9A-Za-z]", "_") + ".nutrients");
+    }
+}
@@ -0,0 +1,116 @@
+package br.com.tcc_bot.nutrition.profile;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Quantidades de todos os nutrientes do {@link Nutrient catálogo} num {@code double[]} plano,
+ * indexado por {@link Nutrient#index()}. Escala e soma passam por {@link NutrientOps}.
+ * <p>
+ * Uma máscara de bits ({@code long[]} com um bit por nutriente do catálogo) guarda quais foram medidos, para separar "0" de "a fonte não
+ * informou" (a TACO, por exemplo, só traz os quatro macros). Na soma, um nutriente conta como
+ * medido se algum dos perfis somados o mediu.
+ */
+public final class NutrientProfile {
+
+    private static final int MASK_WORDS = (Nutrient.COUNT + Long.SIZE - 1) / Long.SIZE;
+
+    private final double[] values;
+    private final long[] measured = new long[MASK_WORDS];
+
+    public NutrientProfile() {
+        this(new double[Nutrient.COUNT]);
+    }
+
+    private NutrientProfile(double[] values) {
+        this.values = values;
+    }
+
+    public double get(Nutrient nutrient) {
+        return values[nutrient.index()];
+    }
+
+    public NutrientProfile set(Nutrient nutrient, double amount) {
+        values[nutrient.index()] = amount;
+        mark(nutrient.index());
+        return this;
+    }
+
+    /**
+     * Se a fonte informou o nutriente (mesmo que o valor seja 0).
+     */
+    public boolean has(Nutrient nutrient) {
+        int i = nutrient.index();
+        return (measured[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Marca como medidos os valores diferentes de zero, para dados que não guardam a máscara
+     * (ex.: os agregados do histórico, somados direto no array).
+     */
+    public NutrientProfile markNonZeroMeasured() {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != 0.0) {
+                mark(i);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Array subjacente (sem cópia), para os kernels de agregação. Escritas diretas no array não
+     * atualizam a máscara de medidos.
+     */
+    public double[] values() {
+        return values;
+    }
+
+    /**
+     * Novo perfil com este multiplicado por {@code factor} (ex.: por 100 g → porção).
+     */
+    public NutrientProfile scaled(double factor) {
+        NutrientProfile result = new NutrientProfile();
+        return result.scaleFrom(this, factor);
+    }
+
+    /**
+     * Este perfil passa a ser {@code source} multiplicado por {@code factor}, sem alocar.
+     */
+    public NutrientProfile scaleFrom(NutrientProfile source, double factor) {
+        NutrientOps.best().scale(source.values, 0, factor, values, 0, Nutrient.COUNT);
+        System.arraycopy(source.measured, 0, measured, 0, MASK_WORDS);
+        return this;
+    }
+
+    /**
+     * Soma {@code other} a este perfil, no lugar.
+     */
+    public NutrientProfile add(NutrientProfile other) {
+        NutrientOps.best().add(values, 0, other.values, 0, Nutrient.COUNT);
+        for (int w = 0; w < MASK_WORDS; w++) {
+            measured[w] |= other.measured[w];
+        }
+        return this;
+    }
+
+    private void mark(int index) {
+        // Deslocamentos de long usam só os 6 bits baixos: a palavra é index / 64
+        measured[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Só os nutrientes medidos, pela chave do catálogo (formato do JSON da API).
+     */
+    @JsonValue
+    public Map<String, Double> asMap() {
+        Map<String, Double> map = new LinkedHashMap<>();
+        for (Nutrient n : Nutrient.values()) {
+            if (has(n)) {
+                map.put(n.key, values[n.index()]);
+            }
+        }
+        return map;
+    }
+}
@@ -0,0 +1,35 @@
+package br.com.tcc_bot.nutrition.profile;
+
+final class ScalarNutrientOps implements NutrientOps {
+
+    static final ScalarNutrientOps INSTANCE = new ScalarNutrientOps();
+
+    private ScalarNutrientOps() {
+    }
+
+    @Override
+    public void scale(double[] src, int srcOff, double factor, double[] dst, int dstOff, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOff + i] = src[srcOff + i] * factor;
+        }
+    }
+
+    @Override
+    public void add(double[] dst, int dstOff, double[] src, int srcOff, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOff + i] += src[srcOff + i];
+        }
+    }
+
+    @Override
+    public void addScaled(double[] dst, int dstOff, double[] src, int srcOff, double factor, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOff + i] += src[srcOff + i] * factor;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,61 @@
+package br.com.tcc_bot.nutrition.profile;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Só é carregada quando o módulo {@code jdk.incubator.vector} está na boot layer
+ * (ver {@link NutrientOps#best()}); o resto do código nunca referencia a Vector API diretamente.
+ */
+final class VectorNutrientOps implements NutrientOps {
+
+    static final VectorNutrientOps INSTANCE = new VectorNutrientOps();
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorNutrientOps() {
+    }
+
+    @Override
+    public void scale(double[] src, int srcOff, double factor, double[] dst, int dstOff, int length) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, src, srcOff + i).mul(factor).intoArray(dst, dstOff + i);
+        }
+        for (; i < length; i++) {
+            dst[dstOff + i] = src[srcOff + i] * factor;
+        }
+    }
+
+    @Override
+    public void add(double[] dst, int dstOff, double[] src, int srcOff, int length) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector acc = DoubleVector.fromArray(SPECIES, dst, dstOff + i);
+            acc.add(DoubleVector.fromArray(SPECIES, src, srcOff + i)).intoArray(dst, dstOff + i);
+        }
+        for (; i < length; i++) {
+            dst[dstOff + i] += src[srcOff + i];
+        }
+    }
+
+    @Override
+    public void addScaled(double[] dst, int dstOff, double[] src, int srcOff, double factor, int length) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector acc = DoubleVector.fromArray(SPECIES, dst, dstOff + i);
+            DoubleVector.fromArray(SPECIES, src, srcOff + i).mul(factor).add(acc).intoArray(dst, dstOff + i);
+        }
+        for (; i < length; i++) {
+            dst[dstOff + i] += src[srcOff + i] * factor;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "simd-" + SPECIES.vectorBitSize() + "bit";
+    }
+}
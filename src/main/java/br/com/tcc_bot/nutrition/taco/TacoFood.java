@@ -0,0 +1,16 @@
+package br.com.tcc_bot.nutrition.taco;
+
+/**
+ * Linha da tabela TACO: composição por 100 g e medidas caseiras em gramas (0 = não informada).
+ */
+public record TacoFood(int id,
+                       String name,
+                       double calories,
+                       double protein,
+                       double carbohydrates,
+                       double fat,
+                       double portionGrams,
+                       double spoonGrams,
+                       double ladleGrams,
+                       double unitGrams) {
+}
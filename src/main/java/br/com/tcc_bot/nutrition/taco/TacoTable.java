@@ -0,0 +1,180 @@
+package br.com.tcc_bot.nutrition.taco;
+
+import br.com.tcc_bot.nutrition.UsdaApiClient;
+import br.com.tcc_bot.nutrition.profile.Nutrient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Tabela TACO embarcada ({@code taco/taco.csv}), carregada uma vez e indexada em memória.
+ * <p>
+ * Cada apelido vira uma sequência de tokens normalizados (minúsculas, sem acento, singular).
+ * O índice invertido token → apelidos limita a busca aos apelidos que compartilham a primeira
+ * palavra com algum trecho do texto; entre os candidatos vence o apelido mais longo.
+ */
+@Component
+public class TacoTable {
+
+    private static final Logger log = LoggerFactory.getLogger(TacoTable.class);
+
+    private static final String RESOURCE = "taco/taco.csv";
+
+    private final Map<Integer, TacoFood> byId = new HashMap<>();
+    private final Map<String, List<Alias>> byFirstToken = new HashMap<>();
+
+    public TacoTable() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource(RESOURCE).getInputStream(), StandardCharsets.UTF_8))) {
+
+            boolean header = true;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                if (header) {
+                    header = false;
+                    continue;
+                }
+                addRow(line.split(";", -1));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao carregar " + RESOURCE, e);
+        }
+
+        // Apelidos mais longos primeiro: "feijao preto" deve ganhar de "feijao"
+        byFirstToken.values().forEach(list -> list.sort((a, b) -> b.tokens.length - a.tokens.length));
+        log.info("Tabela TACO carregada: {} alimentos", byId.size());
+    }
+
+    private void addRow(String[] cols) {
+        TacoFood food = new TacoFood(
+                Integer.parseInt(cols[0].trim()),
+                cols[1].trim(),
+                number(cols[3]),
+                number(cols[4]),
+                number(cols[5]),
+                number(cols[6]),
+                number(cols[7]),
+                number(cols[8]),
+                number(cols[9]),
+                number(cols[10]));
+        byId.put(food.id(), food);
+
+        for (String alias : cols[2].split("\\|")) {
+            String[] tokens = tokens(alias);
+            if (tokens.length > 0) {
+                byFirstToken.computeIfAbsent(tokens[0], k -> new ArrayList<>()).add(new Alias(tokens, food));
+            }
+        }
+    }
+
+    public Optional<TacoFood> byId(int id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    /**
+     * Composição por 100 g no mesmo formato usado para o USDA. A tabela embarcada só traz os
+     * quatro macros; os demais nutrientes ficam como não medidos (as respostas mostram "n/d").
+     */
+    public Optional<UsdaApiClient.NutritionalData100g> nutrients(int id) {
+        return byId(id).map(food -> {
+            UsdaApiClient.NutritionalData100g data = new UsdaApiClient.NutritionalData100g();
+            data.nutrients
+                    .set(Nutrient.ENERGY, food.calories())
+                    .set(Nutrient.PROTEIN, food.protein())
+                    .set(Nutrient.CARBOHYDRATES, food.carbohydrates())
+                    .set(Nutrient.FAT, food.fat());
+            return data;
+        });
+    }
+
+    /**
+     * Procura o alimento mencionado no trecho (já sem quantidade/unidade).
+     */
+    public Optional<TacoFood> find(String text) {
+        String[] words = tokens(text);
+        Alias best = null;
+        for (int start = 0; start < words.length; start++) {
+            List<Alias> candidates = byFirstToken.get(words[start]);
+            if (candidates == null) {
+                continue;
+            }
+            for (Alias alias : candidates) {
+                if (best != null && alias.tokens.length <= best.tokens.length) {
+                    break;
+                }
+                if (alias.matchesAt(words, start)) {
+                    best = alias;
+                    break;
+                }
+            }
+        }
+        return best == null ? Optional.empty() : Optional.of(best.food);
+    }
+
+    /**
+     * Minúsculas, sem acento, só letras/dígitos, com um singular simples ("ovos" → "ovo", "paes" → "pao").
+     */
+    static String[] tokens(String text) {
+        String normalized = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replaceAll("[^a-z0-9]+", " ")
+                .trim();
+        if (normalized.isEmpty()) {
+            return new String[0];
+        }
+        String[] words = normalized.split(" ");
+        for (int i = 0; i < words.length; i++) {
+            words[i] = singular(words[i]);
+        }
+        return words;
+    }
+
+    private static String singular(String word) {
+        if (word.length() <= 3) {
+            return word;
+        }
+        if (word.endsWith("oes") || word.endsWith("aes")) {
+            return word.substring(0, word.length() - 3) + "ao";
+        }
+        if (word.endsWith("s")) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+
+    private static double number(String col) {
+        String value = col.trim();
+        return value.isEmpty() ? 0 : Double.parseDouble(value);
+    }
+
+    private record Alias(String[] tokens, TacoFood food) {
+        boolean matchesAt(String[] words, int start) {
+            if (start + tokens.length > words.length) {
+                return false;
+            }
+            for (int i = 0; i < tokens.length; i++) {
+                if (!tokens[i].equals(words[start + i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
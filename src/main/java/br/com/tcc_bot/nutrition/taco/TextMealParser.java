@@ -0,0 +1,138 @@
+package br.com.tcc_bot.nutrition.taco;
+
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lê refeições digitadas em português ("200g de arroz e um bife", "2 conchas de feijão, 1 ovo")
+ * e resolve cada trecho na {@link TacoTable}, sem nenhuma chamada remota.
+ * <p>
+ * Unidades aceitas: g/kg/ml, colher (de sopa ou de chá), concha, unidade/fatia/pedaço, copo e
+ * xícara. Número sem unidade conta como unidades do alimento; trecho sem número usa a porção
+ * padrão da tabela.
+ */
+@Component
+public class TextMealParser {
+
+    static final double DEFAULT_SPOON_GRAMS = 25;
+    static final double DEFAULT_LADLE_GRAMS = 120;
+    static final double CUP_ML = 200;
+    static final double MUG_ML = 240;
+
+    private static final Pattern SEPARATORS = Pattern.compile(
+            "\\s*(?:(?<!\\d),|,(?!\\d)|;|\\+|\\n|\\be\\b|\\bcom\\b|\\bmais\\b)\\s*");
+
+    private static final Pattern QUANTITY = Pattern.compile(
+            "^(?:(\\d+/\\d+|\\d+(?:[.,]\\d+)?)|(um|uma|dois|duas|tres|quatro|cinco|meio|meia)\\b)?\\s*"
+                    + "(?:(kg|g|gr|grs|gramas?|ml|colher(?:es)?(?:\\s+de\\s+(?:sopa|cha))?|conchas?|unidades?|fatias?"
+                    + "|pedacos?|copos?|xicaras?|porcao|porcoes)\\b)?\\s*(?:(?:de|do|da|dos|das)\\b\\s*)?(.*)$");
+
+    private static final Map<String, Double> NUMBER_WORDS = Map.of(
+            "um", 1.0, "uma", 1.0, "dois", 2.0, "duas", 2.0, "tres", 3.0,
+            "quatro", 4.0, "cinco", 5.0, "meio", 0.5, "meia", 0.5);
+
+    private final TacoTable table;
+
+    public TextMealParser(TacoTable table) {
+        this.table = table;
+    }
+
+    public ParsedMeal parse(String text) {
+        String normalized = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .trim();
+
+        List<ParsedItem> items = new ArrayList<>();
+        List<String> unrecognized = new ArrayList<>();
+
+        for (String segment : SEPARATORS.split(normalized)) {
+            if (segment.isBlank()) {
+                continue;
+            }
+            parseSegment(segment.trim()).ifPresentOrElse(items::add, () -> unrecognized.add(segment.trim()));
+        }
+        return new ParsedMeal(items, unrecognized);
+    }
+
+    private Optional<ParsedItem> parseSegment(String segment) {
+        Matcher m = QUANTITY.matcher(segment);
+        if (!m.matches()) {
+            return Optional.empty();
+        }
+
+        Optional<TacoFood> food = table.find(m.group(4));
+        if (food.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Double amount = amount(m.group(1), m.group(2));
+        double grams = grams(food.get(), amount, m.group(3));
+        if (grams <= 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new ParsedItem(food.get(), grams));
+    }
+
+    private static Double amount(String digits, String word) {
+        if (digits != null) {
+            int slash = digits.indexOf('/');
+            if (slash > 0) {
+                double denominator = Double.parseDouble(digits.substring(slash + 1));
+                return denominator == 0 ? null : Double.parseDouble(digits.substring(0, slash)) / denominator;
+            }
+            return Double.parseDouble(digits.replace(',', '.'));
+        }
+        return word == null ? null : NUMBER_WORDS.get(word);
+    }
+
+    private static double grams(TacoFood food, Double amount, String unit) {
+        double n = amount == null ? 1 : amount;
+
+        if (unit == null) {
+            // "2 ovos" = duas unidades; "arroz" = uma porção
+            return amount == null ? food.portionGrams() : n * unitGrams(food);
+        }
+        if (unit.equals("kg")) {
+            return n * 1000;
+        }
+        if (unit.startsWith("g") || unit.equals("ml")) {
+            return n;
+        }
+        if (unit.startsWith("colher")) {
+            double spoon = food.spoonGrams() > 0 ? food.spoonGrams() : DEFAULT_SPOON_GRAMS;
+            return n * (unit.endsWith("cha") ? spoon / 3 : spoon);
+        }
+        if (unit.startsWith("concha")) {
+            return n * (food.ladleGrams() > 0 ? food.ladleGrams() : DEFAULT_LADLE_GRAMS);
+        }
+        if (unit.startsWith("copo")) {
+            return n * CUP_ML;
+        }
+        if (unit.startsWith("xicara")) {
+            return n * MUG_ML;
+        }
+        if (unit.startsWith("porc")) {
+            return n * food.portionGrams();
+        }
+        return n * unitGrams(food);
+    }
+
+    private static double unitGrams(TacoFood food) {
+        return food.unitGrams() > 0 ? food.unitGrams() : food.portionGrams();
+    }
+
+    public record ParsedItem(TacoFood food, double grams) {}
+
+    /**
+     * Itens reconhecidos e os trechos que não casaram com nenhum alimento da tabela.
+     */
+    public record ParsedMeal(List<ParsedItem> items, List<String> unrecognized) {}
+}
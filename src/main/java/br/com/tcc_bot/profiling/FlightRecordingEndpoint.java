@@ -0,0 +1,188 @@
+package br.com.tcc_bot.profiling;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Gravações do JDK Flight Recorder sob demanda em {@code /actuator/recording}.
+ * <p>
+ * {@code POST} inicia uma gravação limitada em duração e tamanho (corpo opcional
+ * {@code {"seconds": 60, "settings": "profile"}}), {@code DELETE} encerra antes do prazo,
+ * {@code GET} mostra o estado e {@code GET /{arquivo}} baixa o {@code .jfr}. Só uma gravação por
+ * vez; os arquivos mais antigos que {@code PROFILING_KEEP} são apagados. Sem gravação ativa os
+ * eventos do bot ({@code tcc_bot.*}) ficam desligados e custam praticamente nada.
+ * <p>
+ * O acesso exige o token de {@code PROFILING_TOKEN} ({@link ProfilingAccessFilter}).
+ */
+@Component
+@Endpoint(id = "recording")
+public class FlightRecordingEndpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecordingEndpoint.class);
+
+    private static final int STATUS_CONFLICT = 409;
+
+    private static final Pattern FILE_NAME = Pattern.compile("bot-\\d{8}-\\d{6}\\.jfr");
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path dir;
+    private final long maxSeconds;
+    private final long maxBytes;
+    private final int keep;
+
+    private Recording current;
+
+    public FlightRecordingEndpoint(@Value("${PROFILING_DIR:data/recordings}") String dir,
+                                   @Value("${PROFILING_MAX_DURATION_S:300}") long maxSeconds,
+                                   @Value("${PROFILING_MAX_SIZE_MB:64}") long maxSizeMb,
+                                   @Value("${PROFILING_KEEP:3}") int keep) {
+        this.dir = Path.of(dir);
+        this.maxSeconds = maxSeconds;
+        this.maxBytes = maxSizeMb * 1024 * 1024;
+        this.keep = keep;
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() throws IOException {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (current != null) {
+            status.put("state", current.getState().name());
+            status.put("name", current.getName());
+            status.put("started", current.getStartTime());
+            status.put("duration", current.getDuration());
+        } else {
+            status.put("state", "IDLE");
+        }
+        status.put("files", files().stream().map(f -> f.getFileName().toString()).toList());
+        return status;
+    }
+
+    /**
+     * Inicia uma gravação; {@code settings} é {@code default} (~1% de overhead) ou {@code profile}
+     * (amostragem mais densa). A duração é limitada a {@code PROFILING_MAX_DURATION_S}.
+     */
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> start(@Nullable Long seconds, @Nullable String settings)
+            throws IOException, ParseException {
+        if (current != null && current.getState() == RecordingState.RUNNING) {
+            return new WebEndpointResponse<>(Map.of("error", "já existe uma gravação em andamento",
+                    "name", current.getName()), STATUS_CONFLICT);
+        }
+        String configName = settings == null ? "default" : settings;
+        if (!configName.equals("default") && !configName.equals("profile")) {
+            return new WebEndpointResponse<>(Map.of("error", "settings deve ser default ou profile"),
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        long duration = Math.clamp(seconds == null ? 60 : seconds, 1, maxSeconds);
+
+        Files.createDirectories(dir);
+        Path file = dir.resolve("bot-" + LocalDateTime.now().format(STAMP) + ".jfr");
+
+        Recording recording = new Recording(Configuration.getConfiguration(configName));
+        recording.setName(file.getFileName().toString());
+        recording.setDuration(Duration.ofSeconds(duration));
+        recording.setMaxSize(maxBytes);
+        recording.setToDisk(true);
+        recording.setDestination(file);
+        recording.start();
+
+        closeCurrent();
+        current = recording;
+        prune();
+        log.info("Gravação JFR iniciada: {} ({} s, {}, até {} MB)", file.getFileName(), duration, configName, maxBytes >> 20);
+        return new WebEndpointResponse<>(Map.of("name", recording.getName(), "seconds", duration, "settings", configName));
+    }
+
+    /**
+     * Encerra a gravação em andamento; o arquivo fica disponível para download.
+     */
+    @DeleteOperation
+    public synchronized Map<String, Object> stop() throws IOException {
+        if (current == null || current.getState() != RecordingState.RUNNING) {
+            return Map.of("state", "IDLE");
+        }
+        String name = current.getName();
+        current.stop();
+        log.info("Gravação JFR encerrada: {}", name);
+        return Map.of("state", "STOPPED", "name", name);
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> download(@Selector String name) {
+        if (!FILE_NAME.matcher(name).matches()) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        if (current != null && current.getName().equals(name) && current.getState() == RecordingState.RUNNING) {
+            return new WebEndpointResponse<>(STATUS_CONFLICT);
+        }
+        Path file = dir.resolve(name);
+        if (!Files.isRegularFile(file)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return new WebEndpointResponse<>(new FileSystemResource(file));
+    }
+
+    @PreDestroy
+    synchronized void shutdown() throws IOException {
+        // Desligando no meio de uma gravação: grava o que já foi coletado
+        stop();
+    }
+
+    private void closeCurrent() {
+        // A gravação anterior já terminou (prazo ou DELETE) e escreveu o arquivo; libera os buffers
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+
+    private void prune() throws IOException {
+        List<Path> files = files();
+        for (Path old : files.subList(0, Math.max(0, files.size() - keep))) {
+            Files.deleteIfExists(old);
+        }
+    }
+
+    /**
+     * Arquivos de gravação, do mais antigo para o mais novo (o nome carrega o horário).
+     */
+    private List<Path> files() throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> list = Files.list(dir)) {
+            return list.filter(f -> FILE_NAME.matcher(f.getFileName().toString()).matches())
+                    .sorted(Comparator.comparing(Path::getFileName))
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package br.com.tcc_bot.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tcc_bot.GeminiAnalysis")
+@Label("Análise no Gemini")
+@Category({"TCC Bot", "Gemini"})
+@StackTrace(false)
+public class GeminiAnalysisEvent extends jdk.jfr.Event {
+
+    @Label("Imagens")
+    public int images;
+
+    @Label("Tamanho das imagens")
+    @DataAmount
+    public long imageBytes;
+
+    @Label("Itens identificados")
+    public int items;
+
+    @Label("Resultado parcial")
+    public boolean partial;
+}
@@ -0,0 +1,27 @@
+package br.com.tcc_bot.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tcc_bot.GraphSend")
+@Label("Envio pela Graph API")
+@Category({"TCC Bot", "WhatsApp"})
+@StackTrace(false)
+public class GraphSendEvent extends jdk.jfr.Event {
+
+    @Label("Usuário (hash)")
+    public String userHash;
+
+    @Label("Tipo")
+    public String messageType;
+
+    @Label("Tamanho do payload")
+    @DataAmount
+    public long payloadBytes;
+
+    @Label("Sucesso")
+    public boolean success;
+}
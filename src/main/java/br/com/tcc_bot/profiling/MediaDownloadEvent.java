@@ -0,0 +1,24 @@
+package br.com.tcc_bot.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tcc_bot.MediaDownload")
+@Label("Download de mídia")
+@Category({"TCC Bot", "WhatsApp"})
+@StackTrace(false)
+public class MediaDownloadEvent extends jdk.jfr.Event {
+
+    @Label("ID da mídia")
+    public String mediaId;
+
+    @Label("Tipo MIME")
+    public String mimeType;
+
+    @Label("Tamanho")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,22 @@
+package br.com.tcc_bot.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tcc_bot.MessageFormat")
+@Label("Montagem de resposta")
+@Category({"TCC Bot", "Mensagens"})
+@StackTrace(false)
+public class MessageFormatEvent extends jdk.jfr.Event {
+
+    @Label("Mensagem")
+    public String message;
+
+    @Label("Itens")
+    public int items;
+
+    @Label("Caracteres")
+    public int chars;
+}
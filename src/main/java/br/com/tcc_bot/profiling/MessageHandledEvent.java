@@ -0,0 +1,28 @@
+package br.com.tcc_bot.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tcc_bot.MessageHandled")
+@Label("Mensagem tratada")
+@Description("Tratamento síncrono de uma mensagem do webhook (a análise da foto segue em outra thread)")
+@Category({"TCC Bot", "WhatsApp"})
+@StackTrace(false)
+public class MessageHandledEvent extends jdk.jfr.Event {
+
+    @Label("ID da mensagem")
+    public String messageId;
+
+    @Label("Usuário (hash)")
+    public String userHash;
+
+    @Label("Tipo")
+    public String type;
+
+    @Label("Resultado")
+    @Description("processed, duplicate, throttled ou busy")
+    public String outcome;
+}
@@ -0,0 +1,61 @@
+package br.com.tcc_bot.profiling;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Protege os endpoints administrativos do actuator ({@code /actuator/recording} e
+ * {@code /actuator/usdacache}): exige {@code Authorization: Bearer <PROFILING_TOKEN>}.
+ * Sem token configurado eles ficam indisponíveis (404), como se não existissem.
+ */
+@Component
+public class ProfilingAccessFilter extends OncePerRequestFilter {
+
+    private static final List<String> PATHS = List.of("/actuator/recording", "/actuator/usdacache");
+
+    private final byte[] expected;
+
+    public ProfilingAccessFilter(@Value("${PROFILING_TOKEN:}") String token) {
+        this.expected = token.isBlank() ? null : ("Bearer " + token).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Caminho já normalizado pelo container (sem "..", "//" ou ";parâmetros")
+        String path = request.getServletPath();
+        for (String protectedPath : PATHS) {
+            if (path.equals(protectedPath) || path.startsWith(protectedPath + "/")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (expected == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        // Comparação em tempo constante para não vazar o token por timing
+        if (header == null || !MessageDigest.isEqual(expected, header.getBytes(StandardCharsets.UTF_8))) {
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,19 @@
+package br.com.tcc_bot.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tcc_bot.UsdaDetails")
+@Label("Detalhes de alimento no USDA")
+@Category({"TCC Bot", "USDA"})
+@StackTrace(false)
+public class UsdaDetailsEvent extends jdk.jfr.Event {
+
+    @Label("FDC ID")
+    public String fdcId;
+
+    @Label("Nutrientes recebidos")
+    public int nutrients;
+}
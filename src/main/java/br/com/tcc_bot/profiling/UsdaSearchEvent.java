@@ -0,0 +1,22 @@
+package br.com.tcc_bot.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tcc_bot.UsdaSearch")
+@Label("Busca de FDC ID no USDA")
+@Category({"TCC Bot", "USDA"})
+@StackTrace(false)
+public class UsdaSearchEvent extends jdk.jfr.Event {
+
+    @Label("Consulta")
+    public String query;
+
+    @Label("Resolvido em memória")
+    public boolean cached;
+
+    @Label("Encontrado")
+    public boolean found;
+}
@@ -0,0 +1,38 @@
+package br.com.tcc_bot.profiling;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+
+/**
+ * Identificador do usuário para as gravações do JFR: SHA-256 do telefone com um sal sorteado
+ * por processo, truncado em 8 bytes. Correlaciona eventos da mesma gravação sem expor o número
+ * (e sem permitir reverter o hash por força bruta sobre o espaço de telefones).
+ */
+public final class UserHash {
+
+    private static final byte[] SALT = new byte[16];
+
+    static {
+        new SecureRandom().nextBytes(SALT);
+    }
+
+    private UserHash() {
+    }
+
+    public static String of(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(SALT);
+            byte[] digest = sha.digest(phone.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
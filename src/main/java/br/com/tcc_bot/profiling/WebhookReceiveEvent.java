@@ -0,0 +1,23 @@
+package br.com.tcc_bot.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("tcc_bot.WebhookReceive")
+@Label("Webhook recebido")
+@Description("Uma chamada do webhook do WhatsApp, do corpo recebido até a resposta")
+@Category({"TCC Bot", "WhatsApp"})
+@StackTrace(false)
+public class WebhookReceiveEvent extends jdk.jfr.Event {
+
+    @Label("Tamanho do corpo")
+    @DataAmount
+    public long bodyBytes;
+
+    @Label("Mensagens")
+    public int messages;
+}
@@ -0,0 +1,27 @@
+package br.com.tcc_bot.ratelimit;
+
+/**
+ * Tipos de entrada com limites de taxa próprios. Foto e {@code /ai/analyze} disparam uma chamada
+ * ao Gemini e por isso têm os limites mais apertados; cada requisição de {@code /ai/analyze/batch}
+ * conta uma vez, já que o próprio lote limita as imagens por minuto. Texto e botões são
+ * resolvidos localmente.
+ */
+public enum MessageKind {
+    IMAGE,
+    TEXT,
+    INTERACTIVE,
+    ANALYZE_API,
+    ANALYZE_BATCH;
+
+    /**
+     * Tipo de mensagem do webhook; os não suportados (áudio, vídeo...) contam como texto,
+     * já que também geram uma resposta.
+     */
+    public static MessageKind ofWebhookType(String type) {
+        return switch (type) {
+            case "image" -> IMAGE;
+            case "interactive" -> INTERACTIVE;
+            case null, default -> TEXT;
+        };
+    }
+}
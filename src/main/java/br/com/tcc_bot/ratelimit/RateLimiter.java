@@ -0,0 +1,190 @@
+package br.com.tcc_bot.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite de taxa por usuário e global, em janela deslizante.
+ * <p>
+ * Fica na frente da admissão: a admissão protege os upstreams quando o serviço está saturado,
+ * aqui o objetivo é que um único usuário (ou script) não consuma a cota compartilhada do Gemini
+ * e da Graph API. Cada tipo de mensagem ({@link MessageKind}) tem um limite por usuário e um
+ * global por janela; limite 0 desliga. O limite do usuário é testado primeiro, para que quem já
+ * passou do próprio limite não gaste a cota global dos outros.
+ * <p>
+ * Cada usuário ativo ocupa um contador de tamanho fixo por tipo; usuários sem eventos nas duas
+ * últimas janelas são removidos por uma varredura periódica.
+ * <p>
+ * Métricas: {@code bot.ratelimit.allowed} por tipo, {@code bot.ratelimit.throttled} por tipo e
+ * escopo ({@code user} ou {@code global}) e {@code bot.ratelimit.active_users}.
+ */
+@Component
+public class RateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+
+    public enum Result { ALLOWED, USER_LIMITED, GLOBAL_LIMITED }
+
+    private final long windowMs;
+    private final Map<MessageKind, Integer> perUserLimits = new EnumMap<>(MessageKind.class);
+    private final Map<MessageKind, Integer> globalLimits = new EnumMap<>(MessageKind.class);
+    private final Map<MessageKind, SlidingWindowCounter> global = new EnumMap<>(MessageKind.class);
+    private final Map<String, UserWindows> users = new ConcurrentHashMap<>();
+
+    private final Map<MessageKind, Counter> allowed = new EnumMap<>(MessageKind.class);
+    private final Map<MessageKind, Counter> userThrottled = new EnumMap<>(MessageKind.class);
+    private final Map<MessageKind, Counter> globalThrottled = new EnumMap<>(MessageKind.class);
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "rate-limit-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public RateLimiter(MeterRegistry registry,
+                       @Value("${RATE_LIMIT_WINDOW_S:60}") long windowSeconds,
+                       @Value("${RATE_LIMIT_IMAGE_PER_USER:10}") int imagePerUser,
+                       @Value("${RATE_LIMIT_IMAGE_GLOBAL:300}") int imageGlobal,
+                       @Value("${RATE_LIMIT_TEXT_PER_USER:30}") int textPerUser,
+                       @Value("${RATE_LIMIT_TEXT_GLOBAL:0}") int textGlobal,
+                       @Value("${RATE_LIMIT_INTERACTIVE_PER_USER:60}") int interactivePerUser,
+                       @Value("${RATE_LIMIT_INTERACTIVE_GLOBAL:0}") int interactiveGlobal,
+                       @Value("${RATE_LIMIT_ANALYZE_PER_CLIENT:10}") int analyzePerClient,
+                       @Value("${RATE_LIMIT_ANALYZE_GLOBAL:60}") int analyzeGlobal,
+                       @Value("${RATE_LIMIT_BATCH_PER_CLIENT:2}") int batchPerClient,
+                       @Value("${RATE_LIMIT_BATCH_GLOBAL:10}") int batchGlobal) {
+        this.windowMs = TimeUnit.SECONDS.toMillis(windowSeconds);
+        limit(MessageKind.IMAGE, imagePerUser, imageGlobal);
+        limit(MessageKind.TEXT, textPerUser, textGlobal);
+        limit(MessageKind.INTERACTIVE, interactivePerUser, interactiveGlobal);
+        limit(MessageKind.ANALYZE_API, analyzePerClient, analyzeGlobal);
+        limit(MessageKind.ANALYZE_BATCH, batchPerClient, batchGlobal);
+
+        for (MessageKind kind : MessageKind.values()) {
+            String tag = kind.name().toLowerCase();
+            global.put(kind, new SlidingWindowCounter(windowMs));
+            allowed.put(kind, Counter.builder("bot.ratelimit.allowed").tag("kind", tag).register(registry));
+            userThrottled.put(kind, Counter.builder("bot.ratelimit.throttled")
+                    .tag("kind", tag).tag("scope", "user").register(registry));
+            globalThrottled.put(kind, Counter.builder("bot.ratelimit.throttled")
+                    .tag("kind", tag).tag("scope", "global").register(registry));
+        }
+        Gauge.builder("bot.ratelimit.active_users", users, Map::size).register(registry);
+    }
+
+    private void limit(MessageKind kind, int perUser, int global) {
+        perUserLimits.put(kind, perUser);
+        globalLimits.put(kind, global);
+    }
+
+    @PostConstruct
+    void startSweeper() {
+        sweeper.scheduleAtFixedRate(this::evictIdle, windowMs, windowMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopSweeper() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Conta um evento de {@code key} (telefone do usuário ou cliente da API) se couber nos limites.
+     */
+    public Result tryAcquire(MessageKind kind, String key) {
+        long now = System.currentTimeMillis();
+
+        int perUser = perUserLimits.get(kind);
+        SlidingWindowCounter userCounter = perUser > 0 ? windowsOf(key).counters[kind.ordinal()] : null;
+        if (userCounter != null && !userCounter.tryAcquire(now, perUser)) {
+            userThrottled.get(kind).increment();
+            log.warn("Limite por usuário atingido - {} de {}", kind, key);
+            return Result.USER_LIMITED;
+        }
+
+        int globalLimit = globalLimits.get(kind);
+        if (globalLimit > 0 && !global.get(kind).tryAcquire(now, globalLimit)) {
+            // A mensagem não foi atendida: devolve a vaga do usuário
+            if (userCounter != null) {
+                userCounter.release(now);
+            }
+            globalThrottled.get(kind).increment();
+            log.warn("Limite global atingido - {} (limite {} por {}s)", kind, globalLimit, windowMs / 1000);
+            return Result.GLOBAL_LIMITED;
+        }
+
+        allowed.get(kind).increment();
+        return Result.ALLOWED;
+    }
+
+    /**
+     * Se o aviso de limite deve ser enviado a {@code key}: no máximo um por janela, para que o
+     * próprio aviso não vire mais uma rajada de chamadas à Graph API.
+     */
+    public boolean shouldNotify(String key) {
+        int window = (int) (System.currentTimeMillis() / windowMs);
+        AtomicInteger notified = windowsOf(key).notifiedWindow;
+        int last = notified.get();
+        return last != window && notified.compareAndSet(last, window);
+    }
+
+    /**
+     * Segundos até a janela atual virar (valor para o {@code Retry-After}).
+     */
+    public long retryAfterSeconds() {
+        long remaining = windowMs - System.currentTimeMillis() % windowMs;
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(remaining));
+    }
+
+    private UserWindows windowsOf(String key) {
+        return users.computeIfAbsent(key, k -> new UserWindows(windowMs));
+    }
+
+    /**
+     * Remove usuários ociosos. Um evento que corra com a remoção cai num contador descartado,
+     * o que no máximo deixa passar uma mensagem a mais.
+     */
+    void evictIdle() {
+        long now = System.currentTimeMillis();
+        int before = users.size();
+        users.entrySet().removeIf(entry -> entry.getValue().isIdle(now));
+        int evicted = before - users.size();
+        if (evicted > 0) {
+            log.debug("{} usuários ociosos removidos do limitador", evicted);
+        }
+    }
+
+    private static final class UserWindows {
+        final SlidingWindowCounter[] counters = new SlidingWindowCounter[MessageKind.values().length];
+        final AtomicInteger notifiedWindow = new AtomicInteger(-1);
+
+        UserWindows(long windowMs) {
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] = new SlidingWindowCounter(windowMs);
+            }
+        }
+
+        boolean isIdle(long nowMs) {
+            for (SlidingWindowCounter counter : counters) {
+                if (!counter.isIdle(nowMs)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package br.com.tcc_bot.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contador de janela deslizante aproximada, sem locks e com memória constante.
+ * <p>
+ * Guarda só duas contagens — a da janela fixa atual e a da anterior — e estima a janela
+ * deslizante como {@code anterior × (fração ainda coberta) + atual}. Tudo cabe num único
+ * {@code long} ({@code [int janela][short anterior][short atual]}), atualizado por CAS: a virada
+ * de janela e o incremento são uma só troca atômica. As contagens saturam em 65535.
+ */
+final class SlidingWindowCounter {
+
+    private static final int MAX_COUNT = 0xFFFF;
+
+    private final long windowMs;
+    private final AtomicLong state = new AtomicLong();
+
+    SlidingWindowCounter(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    /**
+     * Conta um evento se a estimativa continuar dentro de {@code limit}; recusado não conta.
+     */
+    boolean tryAcquire(long nowMs, int limit) {
+        int window = (int) (nowMs / windowMs);
+        double elapsed = (double) (nowMs % windowMs) / windowMs;
+
+        while (true) {
+            long s = state.get();
+            int previous = previousCount(s, window);
+            int current = currentCount(s, window);
+
+            if (previous * (1.0 - elapsed) + current + 1 > limit) {
+                return false;
+            }
+            long next = pack(window, previous, Math.min(current + 1, MAX_COUNT));
+            if (state.compareAndSet(s, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Desfaz um {@link #tryAcquire} aceito em {@code acquiredAtMs}, tirando o evento da janela em
+     * que ele foi contado (a atual ou, se já virou, a anterior). Mais velho que isso não conta mais.
+     */
+    void release(long acquiredAtMs) {
+        int window = (int) (acquiredAtMs / windowMs);
+
+        while (true) {
+            long s = state.get();
+            int stored = (int) (s >>> 32);
+            int previous = (int) (s >>> 16) & MAX_COUNT;
+            int current = (int) s & MAX_COUNT;
+
+            long next;
+            if (stored == window && current > 0) {
+                next = pack(stored, previous, current - 1);
+            } else if (stored == window + 1 && previous > 0) {
+                next = pack(stored, previous - 1, current);
+            } else {
+                return;
+            }
+            if (state.compareAndSet(s, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Estimativa atual de eventos na janela deslizante.
+     */
+    double estimate(long nowMs) {
+        long s = state.get();
+        int window = (int) (nowMs / windowMs);
+        double elapsed = (double) (nowMs % windowMs) / windowMs;
+        return previousCount(s, window) * (1.0 - elapsed) + currentCount(s, window);
+    }
+
+    /**
+     * Sem eventos nas duas últimas janelas: o contador pode ser descartado sem mudar nenhuma decisão.
+     */
+    boolean isIdle(long nowMs) {
+        long s = state.get();
+        return s == 0 || (int) (nowMs / windowMs) - (int) (s >>> 32) > 1;
+    }
+
+    private static int previousCount(long s, int window) {
+        int stored = (int) (s >>> 32);
+        if (stored == window) {
+            return (int) (s >>> 16) & MAX_COUNT;
+        }
+        // A janela guardada virou a anterior; qualquer coisa mais velha já saiu da janela deslizante
+        return stored == window - 1 ? (int) s & MAX_COUNT : 0;
+    }
+
+    private static int currentCount(long s, int window) {
+        return (int) (s >>> 32) == window ? (int) s & MAX_COUNT : 0;
+    }
+
+    private static long pack(int window, int previous, int current) {
+        return ((long) window << 32) | ((long) previous << 16) | current;
+    }
+}
@@ -0,0 +1,87 @@
+package br.com.tcc_bot.startup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.Lifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mede a partida: {@code bot.startup.time_to_ready} (do início da JVM até o ApplicationReadyEvent)
+ * e {@code bot.startup.first_request} (duração da primeira requisição atendida, fora o Actuator).
+ * Depois de um restore (CRaC) a próxima requisição volta a ser medida como a primeira.
+ */
+@Component
+public class StartupMetrics extends OncePerRequestFilter implements Lifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupMetrics.class);
+
+    private final AtomicLong timeToReadyMs = new AtomicLong(-1);
+    private final AtomicLong firstRequestNanos = new AtomicLong(-1);
+    private final AtomicBoolean firstRequestSeen = new AtomicBoolean();
+
+    public StartupMetrics(MeterRegistry registry) {
+        TimeGauge.builder("bot.startup.time_to_ready", timeToReadyMs, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .register(registry);
+        TimeGauge.builder("bot.startup.first_request", firstRequestNanos, TimeUnit.NANOSECONDS, AtomicLong::get)
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void onReady() {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        timeToReadyMs.set(uptime);
+        log.info("Pronto para tráfego {} ms após o início da JVM", uptime);
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void stop() {
+        firstRequestSeen.set(false);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return firstRequestSeen.get();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return firstRequestSeen.get() || request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!firstRequestSeen.compareAndSet(false, true)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            firstRequestNanos.set(elapsed);
+            log.info("Primeira requisição ({} {}) atendida em {} ms",
+                    request.getMethod(), request.getRequestURI(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package br.com.tcc_bot.startup;
+
+import br.com.tcc_bot.ai.AnalysisService;
+import br.com.tcc_bot.ai.GeminiVisionClient;
+import br.com.tcc_bot.history.MealHistoryStore;
+import br.com.tcc_bot.nutrition.profile.Nutrient;
+import br.com.tcc_bot.nutrition.profile.NutrientProfile;
+import br.com.tcc_bot.nutrition.taco.TextMealParser;
+import br.com.tcc_bot.whatsapp.WebhookMessages;
+import br.com.tcc_bot.whatsapp.WebhookSignature;
+import br.com.tcc_bot.whatsapp.message.AnalysisMessages;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Passa payloads sintéticos pelos caminhos quentes que não dependem de rede (assinatura e parse
+ * do webhook, leitura da resposta do Gemini, parser de texto, formatação das mensagens e JSON da API), para
+ * que as primeiras requisições reais já encontrem o código compilado pelo JIT. Nada é enviado
+ * nem gravado.
+ */
+final class SyntheticWarmUp {
+
+    private static final List<byte[]> WEBHOOKS = List.of(
+            webhook("""
+                    {"id":"wamid.WARMUP1","from":"5500000000000","type":"text","text":{"body":"200g de arroz e um bife"}}"""),
+            webhook("""
+                    {"id":"wamid.WARMUP2","from":"5500000000000","type":"image","image":{"id":"1","mime_type":"image/jpeg"}}"""),
+            webhook("""
+                    {"id":"wamid.WARMUP3","from":"5500000000000","type":"interactive",\
+                    "interactive":{"type":"button_reply","button_reply":{"id":"confirm_analysis","title":"Confirmar"}}}"""));
+
+    private static final String GEMINI_TEXT = """
+            {"items":[
+              {"name_pt":"Arroz branco","name_en":"Rice, white, long-grain, cooked","reasoning":"Grãos soltos",
+               "portion_label":"medium","quantity_grams":150,"confidence":0.9},
+              {"name_pt":"Feijão carioca","name_en":"Beans, pinto, mature seeds, cooked","reasoning":"Caldo marrom",
+               "portion_label":"medium","quantity_grams":100,"confidence":0.85}]}""";
+
+    // Formato válido e HMAC errado: o cálculo completo roda e a verificação falha
+    private static final String WRONG_SIGNATURE = "sha256=" + "0".repeat(64);
+
+    private final ObjectMapper mapper;
+    private final AnalysisMessages messages;
+    private final TextMealParser textParser;
+    private final WebhookSignature signature;
+
+    SyntheticWarmUp(ObjectMapper mapper, AnalysisMessages messages, TextMealParser textParser, WebhookSignature signature) {
+        this.mapper = mapper;
+        this.messages = messages;
+        this.textParser = textParser;
+        this.signature = signature;
+    }
+
+    /**
+     * @return soma de controle dos resultados, só para o JIT não descartar o trabalho
+     */
+    long run(int iterations) throws Exception {
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (byte[] body : WEBHOOKS) {
+                sink += signature.verify(body, WRONG_SIGNATURE) ? 1 : 0;
+                sink += WebhookMessages.parse(mapper.readTree(body)).size();
+            }
+
+            GeminiVisionClient.PlateAnalysis plate = mapper.readValue(GEMINI_TEXT, GeminiVisionClient.PlateAnalysis.class);
+            sink += messages.itemList(plate, "Os pesos estão corretos?").length();
+            sink += messages.rowTitle(plate.items.get(0)).length();
+            sink += textParser.parse("2 colheres de arroz, 1 concha de feijão e um bife").items().size();
+
+            AnalysisService.FullAnalysisResponse response = fullAnalysis(plate);
+            sink += messages.fullAnalysis(response, Nutrient.DEFAULT_SELECTION).length();
+            sink += messages.history("Resumo de hoje",
+                    new MealHistoryStore.Totals(3, 1, response.totals.nutrients), Nutrient.DEFAULT_SELECTION).length();
+            sink += mapper.writeValueAsBytes(response).length;
+        }
+        return sink;
+    }
+
+    private static AnalysisService.FullAnalysisResponse fullAnalysis(GeminiVisionClient.PlateAnalysis plate) {
+        NutrientProfile per100g = new NutrientProfile()
+                .set(Nutrient.ENERGY, 130)
+                .set(Nutrient.CARBOHYDRATES, 28)
+                .set(Nutrient.PROTEIN, 2.7)
+                .set(Nutrient.FAT, 0.3)
+                .set(Nutrient.FIBER, 1.6);
+
+        NutrientProfile totals = new NutrientProfile();
+        List<AnalysisService.EnrichedFoodItem> items = plate.items.stream().map(food -> {
+            AnalysisService.EnrichedFoodItem item = new AnalysisService.EnrichedFoodItem(food);
+            item.nutrients.add(per100g.scaled(food.quantityGrams / 100.0));
+            totals.add(item.nutrients);
+            return item;
+        }).toList();
+
+        AnalysisService.FullAnalysisResponse response = new AnalysisService.FullAnalysisResponse();
+        response.items = items;
+        response.totals = new AnalysisService.NutritionalTotals(totals);
+        return response;
+    }
+
+    private static byte[] webhook(String message) {
+        return ("""
+                {"object":"whatsapp_business_account","entry":[{"id":"0","changes":[{"field":"messages",\
+                "value":{"messaging_product":"whatsapp","metadata":{"phone_number_id":"0"},\
+                "contacts":[{"profile":{"name":"Warm-up"},"wa_id":"5500000000000"}],\
+                "messages":[""" + message + "]}}]}]}").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,167 @@
+package br.com.tcc_bot.startup;
+
+import br.com.tcc_bot.cache.TwoLevelCache;
+import br.com.tcc_bot.nutrition.UsdaApiClient;
+import br.com.tcc_bot.nutrition.taco.TextMealParser;
+import br.com.tcc_bot.whatsapp.WebhookSignature;
+import br.com.tcc_bot.whatsapp.message.AnalysisMessages;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Partida aquecida.
+ * <p>
+ * Antes de a aplicação ficar pronta (os {@link ApplicationRunner} rodam antes do readiness), carrega o
+ * snapshot com as entradas quentes do USDA (cada uma só pelo que restava do seu TTL; as expiradas ficam
+ * de fora) e as resoluções nome → fdcId e faz uma passada sintética pelo parse do webhook e pela
+ * formatação. O snapshot é regravado a cada
+ * {@code WARM_START_SNAPSHOT_INTERVAL_MIN} e no desligamento.
+ * <p>
+ * Métricas: {@code bot.startup.phase} (tag {@code phase} = snapshot/warmup) e {@code bot.startup.snapshot.entries}.
+ */
+@Component
+public class WarmStart implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmStart.class);
+
+    private final UsdaApiClient usda;
+    private final SyntheticWarmUp warmUp;
+    private final MeterRegistry registry;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicInteger loadedEntries = new AtomicInteger();
+
+    @Value("${WARM_START_ENABLED:true}")
+    private boolean enabled;
+
+    @Value("${WARM_START_FILE:data/warm-start.snapshot}")
+    private Path file;
+
+    @Value("${WARM_START_MAX_ENTRIES:5000}")
+    private int maxEntries;
+
+    @Value("${WARM_START_MAX_AGE_H:168}")
+    private long maxAgeHours;
+
+    @Value("${WARM_START_SNAPSHOT_INTERVAL_MIN:15}")
+    private long snapshotIntervalMin;
+
+    @Value("${WARM_UP_ITERATIONS:300}")
+    private int warmUpIterations;
+
+    public WarmStart(UsdaApiClient usda,
+                     ObjectMapper mapper,
+                     AnalysisMessages messages,
+                     TextMealParser textParser,
+                     WebhookSignature signature,
+                     MeterRegistry registry) {
+        this.usda = usda;
+        this.warmUp = new SyntheticWarmUp(mapper, messages, textParser, signature);
+        this.registry = registry;
+        registry.gauge("bot.startup.snapshot.entries", loadedEntries);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "warm-start-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        phase("snapshot").record(this::load);
+        phase("warmup").record(this::warmUp);
+
+        if (snapshotIntervalMin > 0) {
+            scheduler.scheduleWithFixedDelay(this::save, snapshotIntervalMin, snapshotIntervalMin, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        if (enabled) {
+            save();
+        }
+    }
+
+    private void load() {
+        try {
+            WarmStartSnapshot.read(file).ifPresent(snapshot -> {
+                long ageMs = System.currentTimeMillis() - snapshot.writtenAtMillis();
+                if (ageMs > Duration.ofHours(maxAgeHours).toMillis()) {
+                    log.info("Snapshot de warm start antigo demais ({} h), ignorado", ageMs / 3_600_000);
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                int live = 0;
+                for (Map.Entry<String, TwoLevelCache.Snapshot> entry : snapshot.usdaEntries().entrySet()) {
+                    if (entry.getValue().expiresAtMillis() > now) {
+                        usda.preloadEntry(entry.getKey(), entry.getValue());
+                        live++;
+                    }
+                }
+                snapshot.fdcIds().forEach(usda::preloadFdcId);
+                loadedEntries.set(live + snapshot.fdcIds().size());
+                log.info("Warm start: {} alimentos ({} expirados ignorados) e {} fdcIds carregados de {}",
+                        live, snapshot.usdaEntries().size() - live, snapshot.fdcIds().size(), file);
+            });
+        } catch (IOException e) {
+            log.warn("Snapshot de warm start ilegível, partindo a frio: {}", e.getMessage());
+        }
+    }
+
+    private void warmUp() {
+        long start = System.nanoTime();
+        try {
+            warmUp.run(warmUpIterations);
+            log.info("Aquecimento sintético: {} iterações em {} ms",
+                    warmUpIterations, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            // O aquecimento é só otimização; falhar aqui não pode impedir a partida
+            log.warn("Aquecimento sintético interrompido: {}", e.getMessage());
+        }
+    }
+
+    private void save() {
+        try {
+            // As mais recentes ficam no fim do snapshot do L1; mantém só as últimas maxEntries
+            List<Map.Entry<String, TwoLevelCache.Snapshot>> hot = new ArrayList<>(usda.hotEntries().entrySet());
+            Map<String, TwoLevelCache.Snapshot> entries = new LinkedHashMap<>();
+            for (Map.Entry<String, TwoLevelCache.Snapshot> e : hot.subList(Math.max(0, hot.size() - maxEntries), hot.size())) {
+                entries.put(e.getKey(), e.getValue());
+            }
+            Map<String, String> fdcIds = usda.fdcIdResolutions();
+
+            WarmStartSnapshot.write(file, new WarmStartSnapshot.Contents(System.currentTimeMillis(), entries, fdcIds));
+            log.debug("Snapshot de warm start gravado: {} alimentos, {} fdcIds", entries.size(), fdcIds.size());
+        } catch (Exception e) {
+            log.warn("Falha ao gravar snapshot de warm start: {}", e.getMessage());
+        }
+    }
+
+    private Timer phase(String name) {
+        return Timer.builder("bot.startup.phase").tag("phase", name).register(registry);
+    }
+}
@@ -0,0 +1,112 @@
+package br.com.tcc_bot.startup;
+
+import br.com.tcc_bot.cache.TwoLevelCache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Arquivo do warm start: entradas quentes do cache do USDA e resoluções nome → fdcId.
+ * <p>
+ * Formato: {@code [int MAGIC][long gravadoEm][int n]} + {@code n × [str chave][long expiraEm][int len][bytes valor]},
+ * depois {@code [int m]} + {@code m × [str nome][str fdcId]}, com {@code str = [short len][UTF-8]}.
+ * Os valores são os bytes já codificados do cache, então carregar não decodifica nada; {@code expiraEm}
+ * é a expiração original da entrada, para que regravar o snapshot não renove o TTL. A gravação
+ * vai para um temporário e troca de lugar com um move atômico; a leitura usa o arquivo mapeado.
+ */
+public final class WarmStartSnapshot {
+
+    private static final int MAGIC = 0x57534E32; // "WSN2"; o WSN1 não guardava a expiração e é descartado
+
+    private WarmStartSnapshot() {}
+
+    public record Contents(long writtenAtMillis, Map<String, TwoLevelCache.Snapshot> usdaEntries, Map<String, String> fdcIds) {}
+
+    public static void write(Path file, Contents contents) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeLong(contents.writtenAtMillis());
+
+                out.writeInt(contents.usdaEntries().size());
+                for (Map.Entry<String, TwoLevelCache.Snapshot> e : contents.usdaEntries().entrySet()) {
+                    writeString(out, e.getKey());
+                    out.writeLong(e.getValue().expiresAtMillis());
+                    out.writeInt(e.getValue().value().length);
+                    out.write(e.getValue().value());
+                }
+
+                out.writeInt(contents.fdcIds().size());
+                for (Map.Entry<String, String> e : contents.fdcIds().entrySet()) {
+                    writeString(out, e.getKey());
+                    writeString(out, e.getValue());
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * @return vazio se o arquivo não existe; {@link IOException} se está truncado ou não é um snapshot
+     */
+    public static Optional<Contents> read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (in.remaining() < Integer.BYTES || in.getInt() != MAGIC) {
+                throw new IOException("Não é um snapshot de warm start: " + file);
+            }
+            long writtenAt = in.getLong();
+
+            int n = in.getInt();
+            Map<String, TwoLevelCache.Snapshot> entries = new LinkedHashMap<>();
+            for (int i = 0; i < n; i++) {
+                String key = readString(in);
+                long expiresAt = in.getLong();
+                byte[] value = new byte[in.getInt()];
+                in.get(value);
+                entries.put(key, new TwoLevelCache.Snapshot(value, expiresAt));
+            }
+
+            int m = in.getInt();
+            Map<String, String> fdcIds = new LinkedHashMap<>();
+            for (int i = 0; i < m; i++) {
+                fdcIds.put(readString(in), readString(in));
+            }
+            return Optional.of(new Contents(writtenAt, entries, fdcIds));
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException("Snapshot de warm start truncado: " + file, e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(MappedByteBuffer in) {
+        byte[] utf8 = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
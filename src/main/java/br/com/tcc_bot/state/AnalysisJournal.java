@@ -0,0 +1,483 @@
+package br.com.tcc_bot.state;
+
+import br.com.tcc_bot.ai.GeminiVisionClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.Lifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal append-only (memory-mapped) das transições de estado das análises pendentes.
+ * <p>
+ * Cada registro é gravado no buffer mapeado em microssegundos; o fsync acontece em lote
+ * (group commit) numa thread separada a cada {@code JOURNAL_SYNC_INTERVAL_MS}.
+ * Na inicialização os segmentos são reproduzidos para reconstruir as análises que ainda
+ * não foram confirmadas, e em seguida o journal é compactado num novo segmento.
+ * <p>
+ * Também guarda as fotos aceitas cuja análise não terminou antes de um desligamento
+ * ({@link #mealQueued}), para a próxima instância retomá-las.
+ * <p>
+ * Formato de cada registro: {@code [int tamanho][int crc32c][byte tipo][short len][usuário][payload]}.
+ * Um tamanho zero marca o fim do segmento; um CRC inválido indica escrita interrompida (cauda descartada).
+ * <p>
+ * Um registro que não cabe num segmento de {@code JOURNAL_SEGMENT_BYTES} é recusado na entrada. Se o
+ * estado vivo não couber, o novo segmento da compactação cresce; se ainda assim a reescrita falhar, a
+ * compactação é desfeita e o segmento anterior continua valendo.
+ */
+@Component
+public class AnalysisJournal implements Lifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalysisJournal.class);
+
+    private static final byte TYPE_CREATED = 1;
+    private static final byte TYPE_WEIGHT_EDITED = 2;
+    private static final byte TYPE_CONFIRMED = 3;
+    private static final byte TYPE_MEAL_QUEUED = 4;
+    private static final byte TYPE_MEAL_RESUMED = 5;
+
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    @Value("${JOURNAL_ENABLED:true}")
+    private boolean enabled;
+
+    @Value("${JOURNAL_DIR:data/journal}")
+    private String journalDir;
+
+    @Value("${JOURNAL_SEGMENT_BYTES:16777216}")
+    private int segmentBytes;
+
+    @Value("${JOURNAL_SYNC_INTERVAL_MS:5}")
+    private long syncIntervalMs;
+
+    @Value("${JOURNAL_COMPACT_INTERVAL_MIN:10}")
+    private long compactIntervalMin;
+
+    private final ObjectMapper mapper;
+
+    // Espelho do estado vivo: é a partir dele que a compactação reescreve o segmento
+    private final Map<String, GeminiVisionClient.PlateAnalysis> live = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> queuedMeals = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private Path activeSegment;
+    private long generation;
+    private int syncedPosition;
+    private boolean compacting;
+
+    public AnalysisJournal(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!enabled) {
+            log.info("Journal de análises desativado");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        Path dir = Path.of(journalDir);
+        Files.createDirectories(dir);
+
+        List<Path> segments = listSegments(dir);
+        for (Path segment : segments) {
+            replay(segment);
+        }
+        generation = segments.isEmpty() ? 0 : generationOf(segments.get(segments.size() - 1));
+
+        compact();
+        for (Path segment : segments) {
+            Files.deleteIfExists(segment);
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "analysis-journal");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::sync, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::compactQuietly, compactIntervalMin, compactIntervalMin, TimeUnit.MINUTES);
+
+        log.info("Journal recuperado em {}ms: {} análises pendentes, {} refeições na fila ({} segmentos lidos)",
+                System.currentTimeMillis() - start, live.size(), queuedMeals.size(), segments.size());
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (channel != null) {
+            buffer.force();
+            channel.close();
+            channel = null;
+            buffer = null;
+        }
+    }
+
+    // Checkpoint/restore (CRaC): o segmento mapeado é fechado no checkpoint e, no restore, o
+    // diretório é relido do zero (o disco do processo restaurado é quem manda)
+
+    @Override
+    public synchronized void start() {
+        if (channel != null) {
+            return;
+        }
+        try {
+            live.clear();
+            queuedMeals.clear();
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao reabrir o journal após restore", e);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        try {
+            close();
+        } catch (IOException e) {
+            log.error("Falha ao fechar o journal para checkpoint", e);
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return channel != null;
+    }
+
+    /**
+     * Estado reconstruído (usuário → análise pendente). Cada chamada devolve um mapa novo.
+     */
+    public Map<String, GeminiVisionClient.PlateAnalysis> recoveredState() {
+        return new HashMap<>(live);
+    }
+
+    /**
+     * Refeições aceitas e ainda não analisadas (usuário → media_ids). Cada chamada devolve um mapa novo.
+     */
+    public Map<String, List<String>> recoveredMeals() {
+        return new HashMap<>(queuedMeals);
+    }
+
+    public void analysisCreated(String user, GeminiVisionClient.PlateAnalysis analysis) {
+        if (!enabled) return;
+        try {
+            byte[] json = mapper.writeValueAsBytes(analysis);
+            if (recordBytes(user, json.length) > segmentBytes - Integer.BYTES) {
+                log.error("Análise de {} com {} bytes não cabe no segmento do journal (JOURNAL_SEGMENT_BYTES={}) - não será recuperável",
+                        user, json.length, segmentBytes);
+                return;
+            }
+            live.put(user, analysis);
+            append(TYPE_CREATED, user, json.length, payload -> payload.put(json));
+        } catch (Exception e) {
+            log.error("Falha ao gravar análise no journal ({})", user, e);
+        }
+    }
+
+    public void itemWeightEdited(String user, int itemIndex, double newWeight) {
+        if (!enabled) return;
+        applyWeightEdit(user, itemIndex, newWeight);
+        append(TYPE_WEIGHT_EDITED, user, Integer.BYTES + Double.BYTES,
+                payload -> payload.putInt(itemIndex).putDouble(newWeight));
+    }
+
+    public void confirmed(String user) {
+        if (!enabled) return;
+        live.remove(user);
+        append(TYPE_CONFIRMED, user, 0, payload -> { });
+    }
+
+    /**
+     * Fotos já aceitas cuja análise não vai terminar nesta instância. Duas refeições do mesmo
+     * usuário na fila são retomadas como uma só.
+     */
+    public void mealQueued(String user, List<String> mediaIds) {
+        if (!enabled) return;
+        List<String> merged = queuedMeals.merge(user, List.copyOf(mediaIds),
+                (a, b) -> { List<String> all = new ArrayList<>(a); all.addAll(b); return List.copyOf(all); });
+        appendMeal(user, merged);
+    }
+
+    public void mealResumed(String user) {
+        if (!enabled) return;
+        if (queuedMeals.remove(user) != null) {
+            append(TYPE_MEAL_RESUMED, user, 0, payload -> { });
+        }
+    }
+
+    private boolean appendMeal(String user, List<String> mediaIds) {
+        List<byte[]> ids = mediaIds.stream().map(id -> id.getBytes(StandardCharsets.UTF_8)).toList();
+        return append(TYPE_MEAL_QUEUED, user, mealPayloadLength(ids), payload -> {
+            payload.putShort((short) ids.size());
+            for (byte[] id : ids) {
+                payload.putShort((short) id.length).put(id);
+            }
+        });
+    }
+
+    private static int mealPayloadLength(List<byte[]> ids) {
+        return Short.BYTES + ids.stream().mapToInt(id -> Short.BYTES + id.length).sum();
+    }
+
+    private static int recordBytes(String user, int payloadLength) {
+        return HEADER_BYTES + 1 + Short.BYTES + user.getBytes(StandardCharsets.UTF_8).length + payloadLength;
+    }
+
+    /**
+     * Grava o registro no segmento ativo. {@code false} se ele não foi gravado nem coberto por uma compactação.
+     */
+    private boolean append(byte type, String user, int payloadLength, PayloadWriter writer) {
+        byte[] userBytes = user.getBytes(StandardCharsets.UTF_8);
+        int bodyLength = 1 + Short.BYTES + userBytes.length + payloadLength;
+
+        synchronized (this) {
+            if (buffer == null) {
+                return false;
+            }
+            if (buffer.remaining() < HEADER_BYTES + bodyLength + Integer.BYTES) {
+                if (compacting) {
+                    // compact() dimensiona o segmento antes de reescrever; chegar aqui aborta a compactação
+                    return false;
+                }
+                // A compactação reescreve a partir de 'live', que já contém esta transição
+                return compactQuietly();
+            }
+
+            int start = buffer.position();
+            buffer.position(start + HEADER_BYTES);
+            buffer.put(type).putShort((short) userBytes.length).put(userBytes);
+            writer.write(buffer);
+
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(start + HEADER_BYTES, bodyLength));
+            buffer.putInt(start, bodyLength);
+            buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+            return true;
+        }
+    }
+
+    /**
+     * Group commit: um único fsync cobre todos os registros gravados desde o último ciclo.
+     */
+    private void sync() {
+        int from;
+        int to;
+        MappedByteBuffer target;
+        synchronized (this) {
+            if (buffer == null || buffer.position() == syncedPosition) {
+                return;
+            }
+            from = syncedPosition;
+            to = buffer.position();
+            target = buffer;
+            syncedPosition = to;
+        }
+        try {
+            target.force(from, to - from);
+        } catch (Exception e) {
+            log.error("Falha no fsync do journal", e);
+        }
+    }
+
+    private boolean compactQuietly() {
+        try {
+            compact();
+            return true;
+        } catch (IOException e) {
+            log.error("Falha ao compactar o journal", e);
+            return false;
+        }
+    }
+
+    /**
+     * Reescreve o estado vivo num novo segmento e descarta o anterior. O novo segmento tem pelo menos o
+     * dobro do que o estado ocupa, para não compactar de novo a cada registro; se a reescrita falhar,
+     * ele é apagado e o anterior segue ativo.
+     */
+    private synchronized void compact() throws IOException {
+        Map<String, byte[]> analyses = new HashMap<>();
+        long needed = Integer.BYTES;
+        for (Map.Entry<String, GeminiVisionClient.PlateAnalysis> entry : live.entrySet()) {
+            byte[] json = mapper.writeValueAsBytes(entry.getValue());
+            analyses.put(entry.getKey(), json);
+            needed += recordBytes(entry.getKey(), json.length);
+        }
+        Map<String, List<String>> meals = new HashMap<>(queuedMeals);
+        for (Map.Entry<String, List<String>> entry : meals.entrySet()) {
+            List<byte[]> ids = entry.getValue().stream().map(id -> id.getBytes(StandardCharsets.UTF_8)).toList();
+            needed += recordBytes(entry.getKey(), mealPayloadLength(ids));
+        }
+        long size = Math.max(segmentBytes, 2 * needed);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Estado vivo do journal grande demais para um segmento: " + needed + " bytes");
+        }
+        if (size > segmentBytes) {
+            log.warn("Estado vivo do journal ({} bytes) não cabe em JOURNAL_SEGMENT_BYTES={}; segmento de {} bytes",
+                    needed, segmentBytes, size);
+        }
+
+        Path previous = activeSegment;
+        FileChannel previousChannel = channel;
+        MappedByteBuffer previousBuffer = buffer;
+        int previousSynced = syncedPosition;
+
+        generation++;
+        Path next = Path.of(journalDir).resolve(SEGMENT_PREFIX + String.format("%012d", generation) + SEGMENT_SUFFIX);
+        FileChannel nextChannel = FileChannel.open(next,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeSegment = next;
+        channel = nextChannel;
+        syncedPosition = 0;
+
+        compacting = true;
+        try {
+            buffer = nextChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            for (Map.Entry<String, byte[]> entry : analyses.entrySet()) {
+                byte[] json = entry.getValue();
+                if (!append(TYPE_CREATED, entry.getKey(), json.length, payload -> payload.put(json))) {
+                    throw new IOException("Segmento novo cheio durante a compactação");
+                }
+            }
+            for (Map.Entry<String, List<String>> entry : meals.entrySet()) {
+                if (!appendMeal(entry.getKey(), entry.getValue())) {
+                    throw new IOException("Segmento novo cheio durante a compactação");
+                }
+            }
+            buffer.force();
+        } catch (IOException | RuntimeException e) {
+            // O segmento anterior ainda é a única cópia durável: volta para ele
+            activeSegment = previous;
+            channel = previousChannel;
+            buffer = previousBuffer;
+            syncedPosition = previousSynced;
+            nextChannel.close();
+            Files.deleteIfExists(next);
+            throw e;
+        } finally {
+            compacting = false;
+        }
+        syncedPosition = buffer.position();
+
+        if (previousChannel != null) {
+            previousChannel.close();
+            Files.deleteIfExists(previous);
+        }
+    }
+
+    private void replay(Path segment) throws IOException {
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            int records = 0;
+
+            while (in.remaining() >= HEADER_BYTES) {
+                int start = in.position();
+                int bodyLength = in.getInt();
+                int checksum = in.getInt();
+                if (bodyLength <= 0 || bodyLength > in.remaining()) {
+                    break;
+                }
+
+                CRC32C crc = new CRC32C();
+                crc.update(in.slice(start + HEADER_BYTES, bodyLength));
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("Registro corrompido em {} (offset {}) - descartando cauda", segment.getFileName(), start);
+                    break;
+                }
+
+                ByteBuffer body = in.slice(start + HEADER_BYTES, bodyLength);
+                in.position(start + HEADER_BYTES + bodyLength);
+                applyRecord(body);
+                records++;
+            }
+            log.debug("Segmento {} reproduzido: {} registros", segment.getFileName(), records);
+        }
+    }
+
+    private void applyRecord(ByteBuffer body) throws IOException {
+        byte type = body.get();
+        byte[] userBytes = new byte[body.getShort()];
+        body.get(userBytes);
+        String user = new String(userBytes, StandardCharsets.UTF_8);
+
+        switch (type) {
+            case TYPE_CREATED -> {
+                byte[] json = new byte[body.remaining()];
+                body.get(json);
+                live.put(user, mapper.readValue(json, GeminiVisionClient.PlateAnalysis.class));
+            }
+            case TYPE_WEIGHT_EDITED -> applyWeightEdit(user, body.getInt(), body.getDouble());
+            case TYPE_CONFIRMED -> live.remove(user);
+            case TYPE_MEAL_QUEUED -> {
+                int count = body.getShort();
+                List<String> mediaIds = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    byte[] id = new byte[body.getShort()];
+                    body.get(id);
+                    mediaIds.add(new String(id, StandardCharsets.UTF_8));
+                }
+                queuedMeals.put(user, List.copyOf(mediaIds));
+            }
+            case TYPE_MEAL_RESUMED -> queuedMeals.remove(user);
+            default -> log.warn("Tipo de registro desconhecido no journal: {}", type);
+        }
+    }
+
+    private void applyWeightEdit(String user, int itemIndex, double newWeight) {
+        GeminiVisionClient.PlateAnalysis analysis = live.get(user);
+        if (analysis != null && itemIndex >= 0 && itemIndex < analysis.items.size()) {
+            analysis.items.get(itemIndex).quantityGrams = newWeight;
+        }
+    }
+
+    private static List<Path> listSegments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> segments = new ArrayList<>(files
+                    .filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .toList());
+            segments.sort((a, b) -> Long.compare(generationOf(a), generationOf(b)));
+            return segments;
+        }
+    }
+
+    private static long generationOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    @FunctionalInterface
+    private interface PayloadWriter {
+        void write(ByteBuffer payload);
+    }
+}
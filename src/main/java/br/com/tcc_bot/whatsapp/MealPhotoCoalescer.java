@@ -0,0 +1,163 @@
+package br.com.tcc_bot.whatsapp;
+
+import br.com.tcc_bot.lifecycle.Drainable;
+import br.com.tcc_bot.lifecycle.WorkCoordinator;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Agrupa as fotos que um usuário envia em sequência numa única refeição.
+ * <p>
+ * A primeira foto abre uma janela de {@code PHOTO_WINDOW_MS}; as que chegam dentro dela entram
+ * no mesmo grupo. Quando a janela fecha (ou o grupo atinge {@code PHOTO_MAX_PER_MEAL}), o
+ * callback recebe todos os media_ids de uma vez, numa thread do pool de análise.
+ * <p>
+ * Cada refeição fechada vira um ticket no {@link WorkCoordinator}: na drenagem as janelas abertas
+ * fecham na hora, e a refeição que não terminar no prazo é entregue a {@code onUnfinished}
+ * (que a grava para a próxima instância).
+ */
+@Component
+public class MealPhotoCoalescer implements Drainable {
+
+    private static final Logger log = LoggerFactory.getLogger(MealPhotoCoalescer.class);
+
+    @Value("${PHOTO_WINDOW_MS:4000}")
+    private long windowMs;
+
+    @Value("${PHOTO_MAX_PER_MEAL:4}")
+    private int maxPhotosPerMeal;
+
+    private final Map<String, PendingMeal> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+    private final WorkCoordinator coordinator;
+
+    public MealPhotoCoalescer(@Value("${PHOTO_WORKERS:8}") int workerThreads, WorkCoordinator coordinator) {
+        this.coordinator = coordinator;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "meal-photo-window");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, r -> {
+            Thread t = new Thread(r, "meal-photo-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdownNow();
+        workers.shutdown();
+    }
+
+    /**
+     * Adiciona a foto ao grupo aberto do usuário (ou abre um novo).
+     *
+     * @return {@code true} se esta foto abriu o grupo
+     */
+    public boolean add(String user, String mediaId, Consumer<List<String>> onMeal, Consumer<List<String>> onUnfinished) {
+        boolean[] opened = {false};
+        PendingMeal[] closed = {null};
+        PendingMeal meal = pending.compute(user, (u, existing) -> {
+            PendingMeal current = existing;
+            if (current == null) {
+                current = new PendingMeal(onMeal, onUnfinished);
+                opened[0] = true;
+            }
+            current.mediaIds.add(mediaId);
+            // O grupo cheio sai do mapa aqui dentro: fora do compute, outra foto ainda poderia entrar nele.
+            // Durante a drenagem não abre janela nova: a refeição segue direto para análise
+            if (current.mediaIds.size() >= maxPhotosPerMeal || coordinator.isDraining()) {
+                closed[0] = current;
+                return null;
+            }
+            return current;
+        });
+
+        if (closed[0] != null) {
+            close(user, closed[0]);
+        } else if (opened[0]) {
+            meal.timeout = timer.schedule(() -> flush(user, meal), windowMs, TimeUnit.MILLISECONDS);
+        }
+        return opened[0];
+    }
+
+    private void flush(String user, PendingMeal meal) {
+        // remove(key, value) garante que só um dos gatilhos (janela, limite ou drenagem) dispara o grupo
+        if (pending.remove(user, meal)) {
+            close(user, meal);
+        }
+    }
+
+    private void close(String user, PendingMeal meal) {
+        ScheduledFuture<?> timeout = meal.timeout;
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+
+        List<String> mediaIds = List.copyOf(meal.mediaIds);
+        log.info("Refeição de {} fechada com {} foto(s)", user, mediaIds.size());
+        submit(mediaIds, meal.onMeal, meal.onUnfinished);
+    }
+
+    /**
+     * Analisa uma refeição já fechada (ex.: retomada do journal), sem passar pela janela.
+     */
+    public void submit(List<String> mediaIds, Consumer<List<String>> onMeal, Consumer<List<String>> onUnfinished) {
+        WorkCoordinator.Ticket ticket = coordinator.enterAccepted(() -> onUnfinished.accept(mediaIds));
+        try {
+            workers.execute(() -> {
+                try (ticket) {
+                    onMeal.accept(mediaIds);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Pool já encerrado: o ticket fica aberto e a refeição é salva no fim da drenagem
+            log.warn("Pool de análise encerrado; refeição com {} foto(s) fica para a próxima instância", mediaIds.size());
+        }
+    }
+
+    /**
+     * Fecha todas as janelas abertas agora, sem esperar o {@code PHOTO_WINDOW_MS}.
+     */
+    @Override
+    public void drain() {
+        int open = pending.size();
+        pending.forEach(this::flush);
+        if (open > 0) {
+            log.info("Drenagem: {} refeição(ões) com janela aberta enviadas para análise", open);
+        }
+    }
+
+    private static final class PendingMeal {
+        // Só é alterada dentro do compute() do ConcurrentHashMap, que serializa o acesso
+        final List<String> mediaIds = new ArrayList<>();
+        final Consumer<List<String>> onMeal;
+        final Consumer<List<String>> onUnfinished;
+        volatile ScheduledFuture<?> timeout;
+
+        PendingMeal(Consumer<List<String>> onMeal, Consumer<List<String>> onUnfinished) {
+            this.onMeal = onMeal;
+            this.onUnfinished = onUnfinished;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package br.com.tcc_bot.whatsapp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extrai as mensagens de um payload do webhook da Meta. Ignora eventos de outros campos,
+ * atualizações de status e mensagens sem ID ou remetente.
+ */
+public final class WebhookMessages {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookMessages.class);
+
+    private WebhookMessages() {}
+
+    public static List<Incoming> parse(JsonNode root) {
+        List<Incoming> incoming = new ArrayList<>(1);
+        for (JsonNode entry : root.path("entry")) {
+            for (JsonNode change : entry.path("changes")) {
+                JsonNode value = change.path("value");
+
+                String field = change.path("field").asText("");
+                if (!"messages".equals(field)) {
+                    log.debug("Evento ignorado - field: {}", field);
+                    continue;
+                }
+
+                JsonNode messagesNode = value.path("messages");
+                if (messagesNode.isMissingNode() || !messagesNode.isArray() || messagesNode.isEmpty()) {
+                    log.debug("Webhook sem mensagens - provavelmente status update");
+                    continue;
+                }
+
+                JsonNode statusesNode = value.path("statuses");
+                if (!statusesNode.isMissingNode() && statusesNode.isArray() && !statusesNode.isEmpty()) {
+                    log.debug("Status update recebido - ignorando");
+                    continue;
+                }
+
+                for (JsonNode msg : messagesNode) {
+                    String messageId = msg.path("id").asText("");
+                    String from = msg.path("from").asText("");
+
+                    if (!StringUtils.hasText(messageId) || !StringUtils.hasText(from)) {
+                        log.warn("Mensagem sem ID ou remetente - ignorando");
+                        continue;
+                    }
+                    incoming.add(new Incoming(messageId, from, msg.path("type").asText(""), msg));
+                }
+            }
+        }
+        return incoming;
+    }
+
+    public record Incoming(String id, String from, String type, JsonNode message) {}
+}
@@ -1,6 +1,18 @@
 package br.com.tcc_bot.whatsapp;
 
+import br.com.tcc_bot.admission.AdmissionControl;
+import br.com.tcc_bot.admission.Upstream;
+import br.com.tcc_bot.lifecycle.ReopenableRestClient;
+import br.com.tcc_bot.profiling.GraphSendEvent;
+import br.com.tcc_bot.profiling.UserHash;
+import br.com.tcc_bot.whatsapp.message.WhatsAppLimits;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.http.client.ClientHttpRequestFactorySettings;
+import org.springframework.context.Lifecycle;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
@@ -11,9 +23,13 @@ import java.util.List;
 import java.util.Map;
 
 @Component
-public class WhatsAppApiClient {
+public class WhatsAppApiClient implements Lifecycle {
 
-    private final RestClient restClient;
+    private static final Logger log = LoggerFactory.getLogger(WhatsAppApiClient.class);
+
+    private final ReopenableRestClient restClient;
+    private final AdmissionControl admission;
+    private final ObjectMapper mapper;
 
     @Value("${WHATSAPP_TOKEN}")
     private String whatsappToken;
@@ -24,8 +40,27 @@ public class WhatsAppApiClient {
     @Value("${GRAPH_API_VERSION:v24.0}")
     private String graphApiVersion;
 
-    public WhatsAppApiClient(RestClient.Builder builder) {
-        this.restClient = builder.build();
+    public WhatsAppApiClient(RestClient.Builder builder, AdmissionControl admission, ObjectMapper mapper,
+                             ClientHttpRequestFactorySettings httpSettings) {
+        this.restClient = new ReopenableRestClient(builder, httpSettings);
+        this.admission = admission;
+        this.mapper = mapper;
+    }
+
+    // Checkpoint/restore (CRaC): as conexões HTTP fecham no checkpoint e reabrem no primeiro uso depois
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void stop() {
+        restClient.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return restClient.isOpen();
     }
 
     private String messagesUrl() {
@@ -40,17 +75,22 @@ public class WhatsAppApiClient {
 
         Map<String, Object> text = new HashMap<>();
         text.put("preview_url", false);
-        text.put("body", body);
+        text.put("body", WhatsAppLimits.body(body, WhatsAppLimits.TEXT_BODY));
         payload.put("text", text);
 
-        doPost(payload);
+        doPost(to, "text", payload);
     }
 
     public void sendInteractiveButtons(String to, String body, Map<String, String> buttons) {
+        if (buttons.size() > WhatsAppLimits.MAX_BUTTONS) {
+            log.warn("Mensagem com {} botões; apenas {} serão enviados", buttons.size(), WhatsAppLimits.MAX_BUTTONS);
+        }
         List<Map<String, Object>> buttonActions = buttons.entrySet().stream()
+                .limit(WhatsAppLimits.MAX_BUTTONS)
                 .map(entry -> Map.of(
                         "type", "reply",
-                        "reply", Map.of("id", entry.getKey(), "title", entry.getValue())
+                        "reply", Map.of("id", entry.getKey(),
+                                "title", WhatsAppLimits.title(entry.getValue(), WhatsAppLimits.BUTTON_TITLE))
                 ))
                 .toList();
 
@@ -60,21 +100,26 @@ public class WhatsAppApiClient {
                 "type", "interactive",
                 "interactive", Map.of(
                         "type", "button",
-                        "body", Map.of("text", body),
+                        "body", Map.of("text", WhatsAppLimits.body(body, WhatsAppLimits.INTERACTIVE_BODY)),
                         "action", Map.of("buttons", buttonActions)
                 )
         );
 
-        doPost(payload);
+        doPost(to, "button", payload);
     }
 
     public void sendListMessage(String to, String body, String buttonText, Map<String, String> rows) {
+        if (rows.size() > WhatsAppLimits.MAX_ROWS) {
+            log.warn("Lista com {} linhas; apenas {} serão enviadas", rows.size(), WhatsAppLimits.MAX_ROWS);
+        }
+
         // Monta as linhas (rows)
         List<Map<String, Object>> listRows = new ArrayList<>();
         for (Map.Entry<String, String> entry : rows.entrySet()) {
+            if (listRows.size() == WhatsAppLimits.MAX_ROWS) break;
             listRows.add(Map.of(
                     "id", entry.getKey(),
-                    "title", entry.getValue()
+                    "title", WhatsAppLimits.title(entry.getValue(), WhatsAppLimits.ROW_TITLE)
             ));
         }
 
@@ -89,24 +134,49 @@ public class WhatsAppApiClient {
                 "type", "interactive",
                 "interactive", Map.of(
                         "type", "list",
-                        "body", Map.of("text", body),
+                        "body", Map.of("text", WhatsAppLimits.body(body, WhatsAppLimits.INTERACTIVE_BODY)),
                         "action", Map.of(
-                                "button", buttonText,
+                                "button", WhatsAppLimits.title(buttonText, WhatsAppLimits.LIST_BUTTON_TEXT),
                                 "sections", List.of(section)
                         )
                 )
         );
 
-        doPost(payload);
+        doPost(to, "list", payload);
     }
 
-    private void doPost(Object payload) {
-        restClient.post()
-                .uri(messagesUrl())
-                .header("Authorization", "Bearer " + whatsappToken)
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(payload)
-                .retrieve()
-                .toBodilessEntity();
+    /**
+     * O payload é serializado aqui (e não pelo RestClient) para o tamanho enviado entrar no evento do JFR.
+     */
+    private void doPost(String to, String messageType, Object payload) {
+        GraphSendEvent event = new GraphSendEvent();
+        event.begin();
+        byte[] body;
+        try {
+            body = mapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Payload do WhatsApp não serializável", e);
+        }
+
+        boolean success = false;
+        try {
+            admission.record(Upstream.WHATSAPP, () -> restClient.client().post()
+                    .uri(messagesUrl())
+                    .header("Authorization", "Bearer " + whatsappToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(body)
+                    .retrieve()
+                    .toBodilessEntity());
+            success = true;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.userHash = UserHash.of(to);
+                event.messageType = messageType;
+                event.payloadBytes = body.length;
+                event.success = success;
+                event.commit();
+            }
+        }
     }
 }
\ No newline at end of file
@@ -1,13 +1,17 @@
 package br.com.tcc_bot.whatsapp;
 
+import br.com.tcc_bot.lifecycle.ReopenableRestClient;
+import br.com.tcc_bot.profiling.MediaDownloadEvent;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.http.client.ClientHttpRequestFactorySettings;
+import org.springframework.context.Lifecycle;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
 
 @Component
-public class WhatsAppMediaClient {
+public class WhatsAppMediaClient implements Lifecycle {
 
     @Value("${WHATSAPP_TOKEN}")
     private String whatsappToken;
@@ -15,17 +19,35 @@ public class WhatsAppMediaClient {
     @Value("${GRAPH_API_VERSION:v24.0}")
     private String graphApiVersion;
 
-    private final RestClient restClient;
+    private final ReopenableRestClient restClient;
     private final ObjectMapper mapper; // Injetamos o Jackson ObjectMapper
 
-    public WhatsAppMediaClient(RestClient.Builder builder, ObjectMapper mapper) {
-        this.restClient = builder.build();
+    public WhatsAppMediaClient(RestClient.Builder builder, ObjectMapper mapper, ClientHttpRequestFactorySettings httpSettings) {
+        this.restClient = new ReopenableRestClient(builder, httpSettings);
         this.mapper = mapper;
     }
 
+    // Checkpoint/restore (CRaC): as conexões HTTP fecham no checkpoint e reabrem no primeiro uso depois
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void stop() {
+        restClient.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return restClient.isOpen();
+    }
+
     public Media download(String mediaId) {
+        MediaDownloadEvent event = new MediaDownloadEvent();
+        event.begin();
         try {
-            String jsonBody = restClient.get()
+            String jsonBody = restClient.client().get()
                     .uri("https://graph.facebook.com/" + graphApiVersion + "/" + mediaId)
                     .header("Authorization", "Bearer " + whatsappToken)
                     .retrieve()
@@ -40,7 +62,7 @@ public class WhatsAppMediaClient {
             String url = meta.path("url").asText();
             String mime = meta.path("mime_type").asText("image/jpeg");
 
-            byte[] bytes = restClient.get()
+            byte[] bytes = restClient.client().get()
                     .uri(url)
                     .header("Authorization", "Bearer " + whatsappToken)
                     .retrieve()
@@ -50,6 +72,13 @@ public class WhatsAppMediaClient {
                 throw new RuntimeException("Falha no download da mídia: corpo vazio");
             }
 
+            event.end();
+            if (event.shouldCommit()) {
+                event.mediaId = mediaId;
+                event.mimeType = mime;
+                event.bytes = bytes.length;
+                event.commit();
+            }
             return new Media(bytes, mime);
 
         } catch (Exception e) {
@@ -1,28 +1,60 @@
 package br.com.tcc_bot.whatsapp;
 
+import br.com.tcc_bot.admission.AdmissionControl;
+import br.com.tcc_bot.admission.AdmissionRejectedException;
+import br.com.tcc_bot.admission.Priority;
 import br.com.tcc_bot.ai.AnalysisService;
 import br.com.tcc_bot.ai.GeminiVisionClient;
+import br.com.tcc_bot.ai.prefilter.NotFoodImageException;
+import br.com.tcc_bot.history.MealHistoryStore;
+import br.com.tcc_bot.lifecycle.WorkCoordinator;
+import br.com.tcc_bot.nutrition.profile.Nutrient;
+import br.com.tcc_bot.nutrition.profile.NutrientPreferences;
+import br.com.tcc_bot.profiling.MessageHandledEvent;
+import br.com.tcc_bot.profiling.UserHash;
+import br.com.tcc_bot.profiling.WebhookReceiveEvent;
+import br.com.tcc_bot.ratelimit.MessageKind;
+import br.com.tcc_bot.ratelimit.RateLimiter;
+import br.com.tcc_bot.state.AnalysisJournal;
+import br.com.tcc_bot.whatsapp.message.AnalysisMessages;
+import br.com.tcc_bot.whatsapp.message.WhatsAppLimits;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.Lifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/webhook")
-public class WhatsAppWebhookController {
+public class WhatsAppWebhookController implements Lifecycle {
 
     private static final Logger log = LoggerFactory.getLogger(WhatsAppWebhookController.class);
 
     private final Map<String, Long> processedMessages = new ConcurrentHashMap<>();
     private static final long MESSAGE_EXPIRY_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final String BUSY_MESSAGE = "⏳ Estamos ocupados agora. Tente novamente em alguns instantes.";
+    private static final String PHOTO_LIMIT_MESSAGE =
+            "🙏 Recebi muitas fotos em pouco tempo. Aguarde um minutinho antes de enviar a próxima.";
+    private static final String MESSAGE_LIMIT_MESSAGE =
+            "🙏 Recebi muitas mensagens em pouco tempo. Aguarde um minutinho e tente de novo.";
 
     private final Map<String, GeminiVisionClient.PlateAnalysis> pendingAnalyses = new ConcurrentHashMap<>();
     private final Map<String, String> userEditState = new ConcurrentHashMap<>();
@@ -31,16 +63,94 @@ public class WhatsAppWebhookController {
     private final WhatsAppApiClient api;
     private final WhatsAppMediaClient mediaClient;
     private final AnalysisService analysisService;
+    private final AnalysisJournal journal;
+    private final MealHistoryStore history;
+    private final AdmissionControl admission;
+    private final RateLimiter rateLimiter;
+    private final AnalysisMessages messages;
+    private final MealPhotoCoalescer photoCoalescer;
+    private final NutrientPreferences nutrientPreferences;
+    private final WebhookSignature signature;
+    private final WorkCoordinator coordinator;
+    private final ExecutorService mediaDownloads = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile boolean running = true;
 
     @Value("${WHATSAPP_VERIFY_TOKEN}")
     private String verifyToken;
 
     public WhatsAppWebhookController(WhatsAppApiClient api,
                                      WhatsAppMediaClient mediaClient,
-                                     AnalysisService analysisService) {
+                                     AnalysisService analysisService,
+                                     AnalysisJournal journal,
+                                     MealHistoryStore history,
+                                     AdmissionControl admission,
+                                     RateLimiter rateLimiter,
+                                     AnalysisMessages messages,
+                                     MealPhotoCoalescer photoCoalescer,
+                                     NutrientPreferences nutrientPreferences,
+                                     WebhookSignature signature,
+                                     WorkCoordinator coordinator) {
         this.api = api;
         this.mediaClient = mediaClient;
         this.analysisService = analysisService;
+        this.journal = journal;
+        this.history = history;
+        this.admission = admission;
+        this.rateLimiter = rateLimiter;
+        this.messages = messages;
+        this.photoCoalescer = photoCoalescer;
+        this.nutrientPreferences = nutrientPreferences;
+        this.signature = signature;
+        this.coordinator = coordinator;
+    }
+
+    @PostConstruct
+    void restorePendingAnalyses() {
+        Map<String, GeminiVisionClient.PlateAnalysis> recovered = journal.recoveredState();
+        pendingAnalyses.putAll(recovered);
+        if (!recovered.isEmpty()) {
+            log.info("{} análises pendentes restauradas do journal", recovered.size());
+        }
+    }
+
+    /**
+     * Refeições que a instância anterior aceitou mas não analisou antes de desligar.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void resumeQueuedMeals() {
+        Map<String, List<String>> queued = journal.recoveredMeals();
+        queued.forEach((user, mediaIds) -> {
+            journal.mealResumed(user);
+            photoCoalescer.submit(mediaIds, ids -> processMealPhotos(user, ids), ids -> journal.mealQueued(user, ids));
+        });
+        if (!queued.isEmpty()) {
+            log.info("{} refeições retomadas do journal", queued.size());
+        }
+    }
+
+    // Checkpoint/restore (CRaC): a mesma imagem pode ser restaurada em vários pods, então nada do
+    // estado por usuário é aproveitado. O start() só roda num restore (o bean já nasce rodando): descarta
+    // dedupe e edições em curso e recarrega as análises pendentes do journal (reaberto antes deste bean).
+    // O stop() não mexe no estado, porque num desligamento normal ainda há trabalho sendo drenado.
+
+    @Override
+    public void start() {
+        processedMessages.clear();
+        pendingAnalyses.clear();
+        userEditState.clear();
+        restorePendingAnalyses();
+        resumeQueuedMeals();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
     }
 
     @GetMapping
@@ -59,66 +169,53 @@ public class WhatsAppWebhookController {
         return ResponseEntity.status(403).body("Forbidden");
     }
 
+    /**
+     * O corpo chega como bytes: a assinatura é conferida sobre eles antes do parse, e o mesmo
+     * array vai para o Jackson sem virar {@code String}. Assinatura inválida recebe 401 sem parse.
+     * Durante a drenagem do desligamento a resposta é 503, para a Meta reenviar a outra instância.
+     */
     @PostMapping
-    public ResponseEntity<Void> receive(@RequestBody String rawBody) {
-        try {
-            JsonNode root = mapper.readTree(rawBody);
-
-            log.info("WEBHOOK RECEBIDO: {}", rawBody);
-
-            for (JsonNode entry : root.path("entry")) {
-                for (JsonNode change : entry.path("changes")) {
-                    JsonNode value = change.path("value");
+    public ResponseEntity<Void> receive(@RequestBody byte[] body,
+                                        @RequestHeader(name = "X-Hub-Signature-256", required = false) String hubSignature) {
+        if (!signature.verify(body, hubSignature)) {
+            log.warn("Webhook com assinatura inválida recusado ({} bytes)", body.length);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
 
-                    String field = change.path("field").asText("");
-                    if (!"messages".equals(field)) {
-                        log.debug("Evento ignorado - field: {}", field);
-                        continue;
-                    }
+        Optional<WorkCoordinator.Ticket> ticket = coordinator.tryEnter();
+        if (ticket.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        try (WorkCoordinator.Ticket ignored = ticket.get()) {
+            handleWebhook(body);
+        }
+        return ResponseEntity.ok().build();
+    }
 
-                    JsonNode messagesNode = value.path("messages");
-                    if (messagesNode.isMissingNode() || !messagesNode.isArray() || messagesNode.isEmpty()) {
-                        log.debug("Webhook sem mensagens - provavelmente status update");
-                        continue;
-                    }
+    private void handleWebhook(byte[] body) {
+        WebhookReceiveEvent receiveEvent = new WebhookReceiveEvent();
+        receiveEvent.begin();
+        int messageCount = 0;
+        try {
+            JsonNode root = mapper.readTree(body);
 
-                    JsonNode statusesNode = value.path("statuses");
-                    if (!statusesNode.isMissingNode() && statusesNode.isArray() && !statusesNode.isEmpty()) {
-                        log.debug("Status update recebido - ignorando");
-                        continue;
-                    }
+            log.info("WEBHOOK RECEBIDO: {} bytes", body.length);
+            if (log.isDebugEnabled()) {
+                log.debug("Corpo do webhook: {}", new String(body, StandardCharsets.UTF_8));
+            }
 
-                    for (JsonNode msg : messagesNode) {
-                        String messageId = msg.path("id").asText("");
-                        String from = msg.path("from").asText("");
-                        String type = msg.path("type").asText("");
-
-                        if (!StringUtils.hasText(messageId) || !StringUtils.hasText(from)) {
-                            log.warn("Mensagem sem ID ou remetente - ignorando");
-                            continue;
-                        }
-
-                        log.info("MessageID: [{}] | From: {} | Type: {}", messageId, from, type);
-
-                        if (isMessageAlreadyProcessed(messageId)) {
-                            log.info("DUPLICATA DETECTADA E BLOQUEADA: {}", messageId);
-                            continue;
-                        }
-
-                        markMessageAsProcessed(messageId);
-                        log.info("PROCESSANDO (primeira vez): {}", messageId);
-
-                        switch (type) {
-                            case "image" -> handleImage(from, msg.path("image").path("id").asText(""));
-                            case "text" -> handleText(from, msg.path("text").path("body").asText(""));
-                            case "interactive" -> handleInteractive(from, msg.path("interactive"));
-                            case "audio", "video", "document", "sticker", "location", "contacts" -> {
-                                log.info("Tipo de mensagem não suportado: {}", type);
-                                api.sendText(from, "Por enquanto analiso apenas *fotos*. Envie uma imagem do seu prato.");
-                            }
-                            case null, default -> log.warn("Tipo de mensagem desconhecido: {}", type);
-                        }
-                    }
+            for (WebhookMessages.Incoming incoming : WebhookMessages.parse(root)) {
+                messageCount++;
+                MessageHandledEvent event = new MessageHandledEvent();
+                event.begin();
+                String outcome = handleMessage(incoming);
+                event.end();
+                if (event.shouldCommit()) {
+                    event.messageId = incoming.id();
+                    event.userHash = UserHash.of(incoming.from());
+                    event.type = incoming.type();
+                    event.outcome = outcome;
+                    event.commit();
                 }
             }
         } catch (Exception e) {
@@ -127,7 +224,64 @@ public class WhatsAppWebhookController {
 
         cleanupOldMessages();
 
-        return ResponseEntity.ok().build();
+        receiveEvent.end();
+        if (receiveEvent.shouldCommit()) {
+            receiveEvent.bodyBytes = body.length;
+            receiveEvent.messages = messageCount;
+            receiveEvent.commit();
+        }
+    }
+
+    /**
+     * Trata uma mensagem do webhook; devolve o resultado registrado no evento do JFR.
+     */
+    private String handleMessage(WebhookMessages.Incoming incoming) {
+        String messageId = incoming.id();
+        String from = incoming.from();
+        String type = incoming.type();
+        JsonNode msg = incoming.message();
+
+        log.info("MessageID: [{}] | From: {} | Type: {}", messageId, from, type);
+
+        if (isMessageAlreadyProcessed(messageId)) {
+            log.info("DUPLICATA DETECTADA E BLOQUEADA: {}", messageId);
+            return "duplicate";
+        }
+
+        markMessageAsProcessed(messageId);
+        log.info("PROCESSANDO (primeira vez): {}", messageId);
+
+        MessageKind kind = MessageKind.ofWebhookType(type);
+        RateLimiter.Result limit = rateLimiter.tryAcquire(kind, from);
+        if (limit != RateLimiter.Result.ALLOWED) {
+            if (rateLimiter.shouldNotify(from)) {
+                api.sendText(from, limit == RateLimiter.Result.GLOBAL_LIMITED ? BUSY_MESSAGE
+                        : kind == MessageKind.IMAGE ? PHOTO_LIMIT_MESSAGE : MESSAGE_LIMIT_MESSAGE);
+            }
+            return "throttled";
+        }
+
+        // Respostas, botões e o enfileiramento de fotos são baratos. O Gemini (NEW_PHOTO) é admitido
+        // quando o MealPhotoCoalescer fecha a refeição, e o USDA (CONFIRM) a cada chamada da confirmação
+        Optional<AdmissionControl.Permit> permit = admission.tryAdmit(Priority.INTERACTIVE);
+        if (permit.isEmpty()) {
+            api.sendText(from, BUSY_MESSAGE);
+            return "busy";
+        }
+
+        try (AdmissionControl.Permit ignored = permit.get()) {
+            switch (type) {
+                case "image" -> handleImage(from, msg.path("image").path("id").asText(""));
+                case "text" -> handleText(from, msg.path("text").path("body").asText(""));
+                case "interactive" -> handleInteractive(from, msg.path("interactive"));
+                case "audio", "video", "document", "sticker", "location", "contacts" -> {
+                    log.info("Tipo de mensagem não suportado: {}", type);
+                    api.sendText(from, "Por enquanto analiso apenas *fotos*. Envie uma imagem do seu prato.");
+                }
+                case null, default -> log.warn("Tipo de mensagem desconhecido: {}", type);
+            }
+        }
+        return "processed";
     }
 
     private boolean isMessageAlreadyProcessed(String messageId) {
@@ -157,46 +311,150 @@ public class WhatsAppWebhookController {
     }
 
     private void handleImage(String from, String mediaId) {
-        try {
-            log.info("Imagem recebida de {}. media_id={}", from, mediaId);
-            api.sendText(from, "📸 Foto recebida!");
+        log.info("Imagem recebida de {}. media_id={}", from, mediaId);
 
-            var media = mediaClient.download(mediaId);
+        // Fotos enviadas em sequência viram uma refeição só; o aviso sai apenas na primeira
+        if (photoCoalescer.add(from, mediaId, mediaIds -> processMealPhotos(from, mediaIds),
+                mediaIds -> journal.mealQueued(from, mediaIds))) {
+            api.sendText(from, "📸 Foto recebida!");
+        }
+    }
 
-            api.sendText(from, "🤖 Analisando imagem...");
+    private void processMealPhotos(String from, List<String> mediaIds) {
+        Optional<AdmissionControl.Permit> permit = admission.tryAdmit(Priority.NEW_PHOTO);
+        if (permit.isEmpty()) {
+            api.sendText(from, BUSY_MESSAGE);
+            return;
+        }
 
-            GeminiVisionClient.PlateAnalysis analysis = analysisService.analyzeImage(media.bytes());
+        try (AdmissionControl.Permit ignored = permit.get()) {
+            List<CompletableFuture<WhatsAppMediaClient.Media>> downloads = mediaIds.stream()
+                    .map(id -> CompletableFuture.supplyAsync(() -> mediaClient.download(id), mediaDownloads))
+                    .toList();
 
-            pendingAnalyses.put(from, analysis);
-            userEditState.remove(from);
+            api.sendText(from, mediaIds.size() == 1
+                    ? "🤖 Analisando imagem..."
+                    : "🤖 Analisando " + mediaIds.size() + " fotos da refeição...");
 
-            String body = formatSimpleAnalysisBody(analysis);
-            if (body == null) {
-                api.sendText(from, "Não consegui identificar os itens com segurança. Pode enviar outra foto?");
-                return;
+            List<GeminiVisionClient.Image> images = new ArrayList<>(downloads.size());
+            for (CompletableFuture<WhatsAppMediaClient.Media> download : downloads) {
+                WhatsAppMediaClient.Media media = download.join();
+                images.add(new GeminiVisionClient.Image(media.bytes(), media.mimeType()));
             }
 
-            api.sendInteractiveButtons(from, body, Map.of(
-                    "confirm_analysis", "✅ Confirmar",
-                    "edit_analysis", "✏️ Editar"
-            ));
+            GeminiVisionClient.PlateAnalysis analysis = analysisService.analyzeImages(images);
+
+            offerForConfirmation(from, analysis, analysis.partial
+                    ? "⚠️ A análise veio incompleta; pode faltar algum item.\nOs pesos estão corretos?"
+                    : "Os pesos estão corretos?");
 
+        } catch (NotFoodImageException e) {
+            api.sendText(from, "🤔 Essa foto não parece ser de comida. Envie uma foto do seu prato para eu analisar.");
         } catch (Exception e) {
-            log.error("Falha na análise da imagem (handleImage)", e);
+            log.error("Falha na análise da refeição ({} foto(s))", mediaIds.size(), e);
             api.sendText(from, "Não consegui analisar a foto agora. Pode tentar novamente?");
         }
     }
 
+    /**
+     * Salva a análise como pendente e pergunta se os pesos estão certos (mesmo fluxo para foto e texto).
+     */
+    private void offerForConfirmation(String from, GeminiVisionClient.PlateAnalysis analysis, String footer) {
+        pendingAnalyses.put(from, analysis);
+        journal.analysisCreated(from, analysis);
+        userEditState.remove(from);
+
+        String body = messages.itemList(analysis, footer);
+        if (body == null) {
+            api.sendText(from, "Não consegui identificar os itens com segurança. Pode enviar outra foto?");
+            return;
+        }
+
+        api.sendInteractiveButtons(from, body, Map.of(
+                "confirm_analysis", "✅ Confirmar",
+                "edit_analysis", "✏️ Editar"
+        ));
+    }
+
     private void handleText(String from, String body) {
         String editState = userEditState.get(from);
 
         if (editState != null) {
             handleWeightEdit(from, editState, body.trim());
-        } else {
-            api.sendText(from, "Olá! Para começar, me envie uma **FOTO** do seu prato.");
+        } else if (!handleHistoryCommand(from, body) && !handleTextMeal(from, body)) {
+            api.sendText(from, "Olá! Para começar, me envie uma **FOTO** do seu prato "
+                    + "ou digite o que comeu (ex: _200g de arroz e um bife_).\n"
+                    + "Você também pode digitar *hoje*, *semana* ou *média* para ver seu histórico "
+                    + "e *nutrientes* para escolher o que aparece nas respostas.");
         }
     }
 
+    /**
+     * Refeição digitada: resolvida localmente (tabela TACO), sem Gemini nem USDA.
+     */
+    private boolean handleTextMeal(String from, String body) {
+        AnalysisService.TextAnalysis text = analysisService.analyzeText(body);
+        if (text.analysis().items.isEmpty()) {
+            return false;
+        }
+
+        String footer = text.unrecognized().isEmpty()
+                ? "Os pesos estão corretos?"
+                : "Não reconheci: _" + String.join(", ", text.unrecognized()) + "_\nOs pesos estão corretos?";
+        offerForConfirmation(from, text.analysis(), footer);
+        return true;
+    }
+
+    private boolean handleHistoryCommand(String from, String body) {
+        String command = Normalizer.normalize(body.trim().toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+
+        if (command.equals("nutrientes") || command.startsWith("nutrientes ")) {
+            handleNutrientSelection(from, command.substring("nutrientes".length()).trim());
+            return true;
+        }
+
+        List<Nutrient> shown = nutrientPreferences.of(from);
+        switch (command) {
+            case "hoje", "total hoje", "total de hoje" ->
+                    api.sendText(from, messages.history("Resumo de hoje", history.lastDays(from, 1), shown));
+            case "semana", "7 dias", "ultimos 7 dias" ->
+                    api.sendText(from, messages.history("Últimos 7 dias", history.lastDays(from, 7), shown));
+            case "media", "media por refeicao" ->
+                    api.sendText(from, messages.averagePerMeal(history.allTime(from)));
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * "nutrientes" mostra a seleção atual; "nutrientes fibras, sodio" troca; "nutrientes padrao" volta ao padrão.
+     */
+    private void handleNutrientSelection(String from, String args) {
+        if (!args.isEmpty()) {
+            List<Nutrient> selection = new ArrayList<>();
+            List<String> unknown = new ArrayList<>();
+            if (!args.equals("padrao")) {
+                for (String name : args.split("\\s*[,;]\\s*")) {
+                    if (name.isBlank()) {
+                        continue;
+                    }
+                    Nutrient.byKey(name).ifPresentOrElse(
+                            n -> { if (!selection.contains(n)) selection.add(n); },
+                            () -> unknown.add(name));
+                }
+            }
+            if (!unknown.isEmpty()) {
+                api.sendText(from, "Não conheço: _" + String.join(", ", unknown) + "_. Digite *nutrientes* para ver a lista.");
+                return;
+            }
+            nutrientPreferences.set(from, selection);
+        }
+        api.sendText(from, messages.nutrientSelection(nutrientPreferences.of(from)));
+    }
+
     private void handleInteractive(String from, JsonNode interactiveNode) {
         String interactiveType = interactiveNode.path("type").asText("");
 
@@ -283,6 +541,7 @@ public class WhatsAppWebhookController {
             GeminiVisionClient.FoodItem item = pendingAnalysis.items.get(itemIndex);
             String oldName = item.namePt;
             item.quantityGrams = newWeight;
+            journal.itemWeightEdited(from, itemIndex, newWeight);
 
             api.sendText(from, "✅ *" + oldName + "* atualizado para *" + Math.round(newWeight) + "g*.");
 
@@ -309,118 +568,44 @@ public class WhatsAppWebhookController {
         try {
             api.sendText(from, "Confirmado! Calculando os nutrientes... 📊");
 
-            AnalysisService.FullAnalysisResponse nutrition = analysisService.calculateNutrients(analysisToConfirm);
+            AnalysisService.FullAnalysisResponse nutrition = analysisService.calculateNutrients(analysisToConfirm, Priority.CONFIRM);
 
-            String fullBody = formatFullAnalysis(nutrition);
+            String fullBody = messages.fullAnalysis(nutrition, nutrientPreferences.of(from));
             api.sendText(from, fullBody);
 
+            history.record(from, nutrition.totals);
+
             pendingAnalyses.remove(from);
+            journal.confirmed(from);
             userEditState.remove(from);
 
+        } catch (AdmissionRejectedException e) {
+            // A análise continua pendente: o usuário pode confirmar de novo
+            log.warn("Confirmação recusada por sobrecarga: {}", e.getMessage());
+            api.sendText(from, BUSY_MESSAGE);
         } catch (Exception e) {
             log.error("Falha ao calcular nutrientes (handleConfirm)", e);
             api.sendText(from, "Tive um problema ao calcular os nutrientes. Tente enviar a foto novamente.");
         }
     }
 
-    private String formatSimpleAnalysisBody(GeminiVisionClient.PlateAnalysis analysis) {
-        if (analysis == null || analysis.items == null || analysis.items.isEmpty()) {
-            return null;
-        }
-        StringBuilder sbBody = new StringBuilder("Identifiquei estes itens:\n\n");
-        for (GeminiVisionClient.FoodItem item : analysis.items) {
-            String grams = item.quantityGrams == null ? "?" : String.valueOf(Math.round(item.quantityGrams));
-            sbBody.append("• *").append(safe(item.namePt)).append("*");
-            sbBody.append(" (~").append(grams).append(" g)\n");
-        }
-        sbBody.append("\nOs pesos estão corretos?");
-        return sbBody.toString();
-    }
-
     private void sendUpdatedAnalysisList(String from, GeminiVisionClient.PlateAnalysis analysis) {
-        if (analysis == null || analysis.items == null || analysis.items.isEmpty()) {
+        String body = messages.itemList(analysis, "Clique em um item abaixo para editar o peso, ou confirme a análise.");
+        if (body == null) {
             api.sendText(from, "Não consegui identificar os itens com segurança. Pode enviar outra foto?");
             return;
         }
 
-        StringBuilder sbBody = new StringBuilder("Identifiquei estes itens:\n\n");
-        for (GeminiVisionClient.FoodItem item : analysis.items) {
-            String grams = item.quantityGrams == null ? "?" : String.valueOf(Math.round(item.quantityGrams));
-            sbBody.append("• *").append(safe(item.namePt)).append("*");
-            sbBody.append(" (~").append(grams).append(" g)\n");
-        }
-        sbBody.append("\nClique em um item abaixo para editar o peso, ou confirme a análise.");
-        String body = sbBody.toString();
-
         Map<String, String> rows = new LinkedHashMap<>();
 
-        for (int i = 0; i < analysis.items.size(); i++) {
-            String title = getString(analysis, i);
-            rows.put("edit_item_" + i, title);
+        // A lista aceita no máximo 10 linhas e a de confirmação precisa sempre caber
+        int editableItems = Math.min(analysis.items.size(), WhatsAppLimits.MAX_ROWS - 1);
+        for (int i = 0; i < editableItems; i++) {
+            rows.put("edit_item_" + i, messages.rowTitle(analysis.items.get(i)));
         }
 
         rows.put("confirm_analysis", "✅ Confirmar Análise");
 
         api.sendListMessage(from, body, "Editar ou Confirmar", rows);
     }
-
-    private String getString(GeminiVisionClient.PlateAnalysis analysis, int i) {
-        GeminiVisionClient.FoodItem item = analysis.items.get(i);
-
-        String title = safe(item.namePt);
-
-        if (title.length() > 24) {
-            int lastSpaceIndex = title.lastIndexOf(' ', 24 - 1);
-
-            if (lastSpaceIndex > 0) {
-                title = title.substring(0, lastSpaceIndex) + "...";
-            } else {
-                title = title.substring(0, 24 - 3) + "...";
-            }
-        }
-        return title;
-    }
-
-    private String formatFullAnalysis(AnalysisService.FullAnalysisResponse analysis) {
-        if (analysis == null || analysis.items == null || analysis.items.isEmpty()) {
-            return "Não consegui calcular. Tente novamente.";
-        }
-
-        Locale br = Locale.of("pt", "BR");
-
-        StringBuilder sb = new StringBuilder("*Análise Nutricional*\n\n");
-
-        for (AnalysisService.EnrichedFoodItem it : analysis.items) {
-            String grams = it.quantityGrams == null ? "?" : String.valueOf(Math.round(it.quantityGrams));
-
-            sb.append("*").append(safe(it.name))
-                    .append(" - ").append(grams).append("g*\n");
-
-            if (it.calories > 0) {
-                sb.append(String.format(br, "  Calorias: %.0f kcal\n", it.calories));
-                sb.append(String.format(br, "  Carboidratos: %.1f g\n", it.carbohydrates));
-                sb.append(String.format(br, "  Proteínas: %.1f g\n", it.protein));
-                sb.append(String.format(br, "  Gorduras: %.1f g\n", it.fat));
-            } else {
-                sb.append("  _(Sem dados nutricionais)_\n");
-            }
-            sb.append("\n");
-        }
-
-        AnalysisService.NutritionalTotals totals = analysis.totals;
-
-        sb.append("━━━━━━━━━━━━━━━━━\n");
-
-        sb.append("*Total analisado*:\n");
-        sb.append(String.format(br, "  Calorias: %.0f kcal\n", totals.totalCalories));
-        sb.append(String.format(br, "  Carboidratos: %.1f g\n", totals.totalCarbs));
-        sb.append(String.format(br, "  Proteínas: %.1f g\n", totals.totalProtein));
-        sb.append(String.format(br, "  Gorduras: %.1f g", totals.totalFat));
-
-        return sb.toString();
-    }
-
-    private String safe(String s) {
-        return s == null ? "item" : s;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,187 @@
+package br.com.tcc_bot.whatsapp.message;
+
+import br.com.tcc_bot.ai.AnalysisService;
+import br.com.tcc_bot.ai.GeminiVisionClient;
+import br.com.tcc_bot.history.MealHistoryStore;
+import br.com.tcc_bot.nutrition.profile.Nutrient;
+import br.com.tcc_bot.nutrition.profile.NutrientProfile;
+import br.com.tcc_bot.profiling.MessageFormatEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Textos das respostas do bot. Os templates são compilados na carga da classe e cada
+ * mensagem é montada num builder reaproveitado, sem {@code String.format}. As montagens maiores
+ * emitem um {@link MessageFormatEvent} no JFR.
+ */
+@Component
+public class AnalysisMessages {
+
+    private static final MessageTemplate LIST_ITEM = MessageTemplate.compile("• *{}* (~{.0} g)\n");
+    private static final MessageTemplate LIST_ITEM_UNKNOWN = MessageTemplate.compile("• *{}* (~? g)\n");
+
+    private static final MessageTemplate ITEM_HEADER = MessageTemplate.compile("*{} - {.0}g*\n");
+    private static final MessageTemplate ITEM_HEADER_UNKNOWN = MessageTemplate.compile("*{} - ?g*\n");
+
+    // Uma linha por nutriente do catálogo ("  Calorias: {.0} kcal"), na ordem escolhida pelo usuário
+    private static final Map<Nutrient, MessageTemplate> NUTRIENT_LINES = new EnumMap<>(Nutrient.class);
+    // Nutriente que a fonte (USDA/TACO) não informou: "n/d" em vez de um 0 falso
+    private static final Map<Nutrient, String> UNKNOWN_LINES = new EnumMap<>(Nutrient.class);
+
+    static {
+        for (Nutrient n : Nutrient.values()) {
+            NUTRIENT_LINES.put(n, MessageTemplate.compile("  " + n.label + ": {." + n.decimals + "} " + n.unit + "\n"));
+            UNKNOWN_LINES.put(n, "  " + n.label + ": n/d\n");
+        }
+    }
+
+    private static final MessageTemplate HISTORY_HEADER = MessageTemplate.compile("*{}* ({.0} refeições)\n");
+    private static final MessageTemplate PER_MEAL = MessageTemplate.compile("  Média por refeição: {.0} kcal\n");
+    private static final MessageTemplate PER_DAY = MessageTemplate.compile("  Média por dia com registro: {.0} kcal\n");
+    private static final MessageTemplate AVERAGE = MessageTemplate.compile(
+            "*Média por refeição* ({.0} refeições)\n  Calorias: {.0} kcal");
+
+    /**
+     * Lista "Identifiquei estes itens" seguida do rodapé; {@code null} se não há itens.
+     */
+    public String itemList(GeminiVisionClient.PlateAnalysis analysis, String footer) {
+        if (analysis == null || analysis.items == null || analysis.items.isEmpty()) {
+            return null;
+        }
+
+        MessageFormatEvent event = new MessageFormatEvent();
+        event.begin();
+        StringBuilder sb = MessageBuilders.acquire().append("Identifiquei estes itens:\n\n");
+        for (GeminiVisionClient.FoodItem item : analysis.items) {
+            if (item.quantityGrams == null) {
+                LIST_ITEM_UNKNOWN.appendTo(sb, safe(item.namePt));
+            } else {
+                LIST_ITEM.appendTo(sb, safe(item.namePt), item.quantityGrams);
+            }
+        }
+        sb.append('\n').append(footer);
+        return formatted(event, "itemList", analysis.items.size(), sb.toString());
+    }
+
+    public String rowTitle(GeminiVisionClient.FoodItem item) {
+        return WhatsAppLimits.title(safe(item.namePt), WhatsAppLimits.ROW_TITLE);
+    }
+
+    public String fullAnalysis(AnalysisService.FullAnalysisResponse analysis) {
+        return fullAnalysis(analysis, Nutrient.DEFAULT_SELECTION);
+    }
+
+    /**
+     * Análise completa mostrando só os nutrientes escolhidos pelo usuário, nessa ordem.
+     */
+    public String fullAnalysis(AnalysisService.FullAnalysisResponse analysis, List<Nutrient> shown) {
+        if (analysis == null || analysis.items == null || analysis.items.isEmpty()) {
+            return "Não consegui calcular. Tente novamente.";
+        }
+
+        MessageFormatEvent event = new MessageFormatEvent();
+        event.begin();
+        StringBuilder sb = MessageBuilders.acquire().append("*Análise Nutricional*\n\n");
+
+        for (AnalysisService.EnrichedFoodItem it : analysis.items) {
+            if (it.quantityGrams == null) {
+                ITEM_HEADER_UNKNOWN.appendTo(sb, safe(it.name));
+            } else {
+                ITEM_HEADER.appendTo(sb, safe(it.name), it.quantityGrams);
+            }
+
+            if (it.calories() > 0) {
+                appendNutrients(sb, it.nutrients, shown);
+            } else {
+                sb.append("  _(Sem dados nutricionais)_\n");
+            }
+            sb.append('\n');
+        }
+
+        AnalysisService.NutritionalTotals totals = analysis.totals;
+
+        sb.append("━━━━━━━━━━━━━━━━━\n");
+        sb.append("*Total analisado*:\n");
+        appendNutrients(sb, totals.nutrients, shown);
+
+        return formatted(event, "fullAnalysis", analysis.items.size(), trimTrailingNewline(sb));
+    }
+
+    public String history(String title, MealHistoryStore.Totals totals) {
+        return history(title, totals, Nutrient.DEFAULT_SELECTION);
+    }
+
+    public String history(String title, MealHistoryStore.Totals totals, List<Nutrient> shown) {
+        if (totals.meals() == 0) {
+            return "Nenhuma refeição registrada nesse período. Envie uma foto e confirme a análise para começar.";
+        }
+
+        MessageFormatEvent event = new MessageFormatEvent();
+        event.begin();
+        StringBuilder sb = MessageBuilders.acquire();
+        HISTORY_HEADER.appendTo(sb, title, totals.meals());
+        appendNutrients(sb, totals.nutrients(), shown);
+        PER_MEAL.appendTo(sb, totals.caloriesPerMeal());
+        if (totals.days() > 1) {
+            PER_DAY.appendTo(sb, totals.calories() / totals.days());
+        }
+        return formatted(event, "history", totals.meals(), trimTrailingNewline(sb));
+    }
+
+    public String averagePerMeal(MealHistoryStore.Totals totals) {
+        if (totals.meals() == 0) {
+            return "Você ainda não confirmou nenhuma refeição.";
+        }
+        return AVERAGE.appendTo(MessageBuilders.acquire(), totals.meals(), totals.caloriesPerMeal()).toString();
+    }
+
+    /**
+     * Lista de nutrientes escolhidos, para a resposta do comando "nutrientes".
+     */
+    public String nutrientSelection(List<Nutrient> shown) {
+        StringBuilder sb = MessageBuilders.acquire().append("*Nutrientes exibidos*: ");
+        for (int i = 0; i < shown.size(); i++) {
+            sb.append(i == 0 ? "" : ", ").append(shown.get(i).label);
+        }
+        sb.append("\n\nPara mudar, digite *nutrientes* seguido dos nomes separados por vírgula "
+                + "(ex: _nutrientes calorias, fibras, sódio_) ou *nutrientes padrão*.\n\nDisponíveis: ");
+        Nutrient[] all = Nutrient.values();
+        for (int i = 0; i < all.length; i++) {
+            sb.append(i == 0 ? "" : ", ").append(all[i].key);
+        }
+        return sb.toString();
+    }
+
+    private static String formatted(MessageFormatEvent event, String message, int items, String text) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.message = message;
+            event.items = items;
+            event.chars = text.length();
+            event.commit();
+        }
+        return text;
+    }
+
+    private static void appendNutrients(StringBuilder sb, NutrientProfile profile, List<Nutrient> shown) {
+        for (Nutrient n : shown) {
+            if (profile.has(n)) {
+                NUTRIENT_LINES.get(n).appendTo(sb, profile.get(n));
+            } else {
+                sb.append(UNKNOWN_LINES.get(n));
+            }
+        }
+    }
+
+    private static String trimTrailingNewline(StringBuilder sb) {
+        int length = sb.length();
+        return length > 0 && sb.charAt(length - 1) == '\n' ? sb.substring(0, length - 1) : sb.toString();
+    }
+
+    private static String safe(String s) {
+        return s == null ? "item" : s;
+    }
+}
@@ -0,0 +1,27 @@
+package br.com.tcc_bot.whatsapp.message;
+
+/**
+ * {@link StringBuilder} reaproveitado por thread para montar as respostas.
+ * O conteúdo só é válido até a próxima chamada de {@link #acquire()} na mesma thread.
+ */
+final class MessageBuilders {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUILDER =
+            ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+
+    private MessageBuilders() {
+    }
+
+    static StringBuilder acquire() {
+        StringBuilder sb = BUILDER.get();
+        if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+            sb = new StringBuilder(INITIAL_CAPACITY);
+            BUILDER.set(sb);
+        }
+        sb.setLength(0);
+        return sb;
+    }
+}
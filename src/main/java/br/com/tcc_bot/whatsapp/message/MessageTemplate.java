@@ -0,0 +1,97 @@
+package br.com.tcc_bot.whatsapp.message;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Template de mensagem compilado uma única vez.
+ * <p>
+ * Sintaxe: {@code {}} insere texto e {@code {.N}} insere um número com N casas decimais
+ * (ver {@link PtBrNumbers}). Os argumentos são consumidos em ordem, por tipo: cada template
+ * aceita no máximo um texto e dois números, o que cobre todas as linhas das respostas do bot
+ * e permite renderizar sem varargs nem boxing.
+ */
+public final class MessageTemplate {
+
+    private static final int TEXT = -1;
+
+    private final String[] literals;
+    private final int[] slots;
+
+    private MessageTemplate(String[] literals, int[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+    }
+
+    public static MessageTemplate compile(String pattern) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int texts = 0;
+        int numbers = 0;
+
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c != '{') {
+                literal.append(c);
+                i++;
+                continue;
+            }
+
+            int end = pattern.indexOf('}', i);
+            if (end < 0) {
+                throw new IllegalArgumentException("Placeholder sem fechamento em: " + pattern);
+            }
+            String spec = pattern.substring(i + 1, end);
+            if (spec.isEmpty()) {
+                slots.add(TEXT);
+                texts++;
+            } else if (spec.length() == 2 && spec.charAt(0) == '.' && Character.isDigit(spec.charAt(1))) {
+                slots.add(spec.charAt(1) - '0');
+                numbers++;
+            } else {
+                throw new IllegalArgumentException("Placeholder inválido '{" + spec + "}' em: " + pattern);
+            }
+            literals.add(literal.toString());
+            literal.setLength(0);
+            i = end + 1;
+        }
+        literals.add(literal.toString());
+
+        if (texts > 1 || numbers > 2) {
+            throw new IllegalArgumentException("Template aceita no máximo um texto e dois números: " + pattern);
+        }
+        return new MessageTemplate(literals.toArray(String[]::new), slots.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public StringBuilder appendTo(StringBuilder sb, double number) {
+        return render(sb, null, number, 0.0);
+    }
+
+    public StringBuilder appendTo(StringBuilder sb, double first, double second) {
+        return render(sb, null, first, second);
+    }
+
+    public StringBuilder appendTo(StringBuilder sb, CharSequence text) {
+        return render(sb, text, 0.0, 0.0);
+    }
+
+    public StringBuilder appendTo(StringBuilder sb, CharSequence text, double number) {
+        return render(sb, text, number, 0.0);
+    }
+
+    private StringBuilder render(StringBuilder sb, CharSequence text, double first, double second) {
+        int numberIndex = 0;
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(literals[i]);
+            int slot = slots[i];
+            if (slot == TEXT) {
+                sb.append(text);
+            } else {
+                PtBrNumbers.appendFixed(sb, numberIndex++ == 0 ? first : second, slot);
+            }
+        }
+        return sb.append(literals[slots.length]);
+    }
+}
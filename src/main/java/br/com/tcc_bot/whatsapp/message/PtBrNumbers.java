@@ -0,0 +1,43 @@
+package br.com.tcc_bot.whatsapp.message;
+
+import java.util.Locale;
+
+/**
+ * Formatação de números em pt-BR (vírgula decimal, sem agrupamento de milhar) com casas fixas,
+ * equivalente a {@code String.format(br, "%.Nf", v)} sem passar pelo {@link java.util.Formatter}.
+ * <p>
+ * O arredondamento é half-up sobre {@code valor * 10^N}; em empates exatos de representação
+ * binária pode diferir do Formatter na última casa, o que não importa para gramas e kcal.
+ */
+public final class PtBrNumbers {
+
+    private static final Locale PT_BR = Locale.of("pt", "BR");
+    private static final long[] POW10 = {1L, 10L, 100L, 1_000L};
+    private static final double MAX_FAST = 1e15;
+
+    private PtBrNumbers() {
+    }
+
+    public static StringBuilder appendFixed(StringBuilder sb, double value, int decimals) {
+        if (decimals < 0 || decimals >= POW10.length || !(Math.abs(value) < MAX_FAST)) {
+            return sb.append(String.format(PT_BR, "%." + decimals + "f", value));
+        }
+
+        long scale = POW10[decimals];
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) {
+            sb.append('-');
+        }
+
+        sb.append(scaled / scale);
+        if (decimals > 0) {
+            long fraction = scaled % scale;
+            sb.append(',');
+            for (long p = scale / 10; p > 1 && fraction < p; p /= 10) {
+                sb.append('0');
+            }
+            sb.append(fraction);
+        }
+        return sb;
+    }
+}
@@ -0,0 +1,55 @@
+package br.com.tcc_bot.whatsapp.message;
+
+/**
+ * Limites de tamanho da Cloud API para mensagens de texto e interativas.
+ * Estourar qualquer um deles faz o Graph API recusar a mensagem inteira.
+ */
+public final class WhatsAppLimits {
+
+    public static final int TEXT_BODY = 4096;
+    public static final int INTERACTIVE_BODY = 1024;
+    public static final int BUTTON_TITLE = 20;
+    public static final int MAX_BUTTONS = 3;
+    public static final int LIST_BUTTON_TEXT = 20;
+    public static final int SECTION_TITLE = 24;
+    public static final int ROW_TITLE = 24;
+    public static final int ROW_ID = 200;
+    public static final int MAX_ROWS = 10;
+
+    private static final String ELLIPSIS = "...";
+
+    private WhatsAppLimits() {
+    }
+
+    /**
+     * Corta títulos longos na última palavra inteira que couber, seguida de "...".
+     */
+    public static String title(String text, int max) {
+        if (text == null || text.length() <= max) {
+            return text;
+        }
+
+        int lastSpaceIndex = text.lastIndexOf(' ', max - ELLIPSIS.length());
+        if (lastSpaceIndex > 0) {
+            return text.substring(0, lastSpaceIndex) + ELLIPSIS;
+        }
+        return cut(text, max - ELLIPSIS.length()) + ELLIPSIS;
+    }
+
+    /**
+     * Corta corpos de mensagem no limite, sem partir emojis (pares surrogate) ao meio.
+     */
+    public static String body(String text, int max) {
+        if (text == null || text.length() <= max) {
+            return text;
+        }
+        return cut(text, max - 1) + "…";
+    }
+
+    private static String cut(String text, int length) {
+        if (length > 0 && Character.isHighSurrogate(text.charAt(length - 1))) {
+            length--;
+        }
+        return text.substring(0, length);
+    }
+}
@@ -0,0 +1,57 @@
+package br.com.tcc_bot.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(5000);
+
+    @Test
+    void growsOnlyWhenNearlyFullAndBacksOffOnSlowOrFailedCalls() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 2, 12, 1000);
+
+        limiter.onSample(FAST, true);
+        assertEquals(10.0, limiter.limit(), 1e-9, "ocioso: não deve crescer");
+
+        for (int i = 0; i < 8; i++) {
+            assertTrue(limiter.acquire(Priority.INTERACTIVE, 0));
+        }
+        limiter.onSample(FAST, true);
+        assertEquals(10.1, limiter.limit(), 1e-9);
+
+        limiter.onSample(SLOW, true);
+        assertEquals(9.09, limiter.limit(), 1e-9);
+        limiter.onSample(FAST, false);
+        assertEquals(8.181, limiter.limit(), 1e-9);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(SLOW, true);
+        }
+        assertEquals(2.0, limiter.limit(), 1e-9);
+    }
+
+    @Test
+    void lowerPrioritiesOnlyGetTheirShareOfTheLimit() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 2, 64, 1000);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.acquire(Priority.BULK, 0));
+        }
+        assertFalse(limiter.acquire(Priority.BULK, 0));
+
+        assertTrue(limiter.acquire(Priority.NEW_PHOTO, 0));
+        assertTrue(limiter.acquire(Priority.NEW_PHOTO, 0));
+        assertFalse(limiter.acquire(Priority.NEW_PHOTO, 0));
+        assertEquals(7, limiter.inFlight());
+
+        limiter.release(Priority.BULK);
+        assertTrue(limiter.acquire(Priority.NEW_PHOTO, 0));
+        assertEquals(4, limiter.active(Priority.BULK));
+        assertEquals(3, limiter.active(Priority.NEW_PHOTO));
+    }
+}
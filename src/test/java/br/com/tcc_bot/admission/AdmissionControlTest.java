@@ -0,0 +1,39 @@
+package br.com.tcc_bot.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlTest {
+
+    @Test
+    void bulkCallsToUsdaOnlyTakeTheirShareAndLeaveRoomForConfirm() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionControl admission = new AdmissionControl(registry, 8, 30000, 10, 2000, 50, 1500);
+
+        List<AdmissionControl.Permit> bulk = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            bulk.add(admission.tryAdmit(Priority.BULK, Upstream.USDA, Duration.ZERO).orElseThrow());
+        }
+        assertTrue(admission.tryAdmit(Priority.BULK, Upstream.USDA, Duration.ZERO).isEmpty(),
+                "o lote não pode passar de metade do limite do USDA");
+
+        Optional<AdmissionControl.Permit> confirm = admission.tryAdmit(Priority.CONFIRM, Upstream.USDA, Duration.ZERO);
+        assertTrue(confirm.isPresent());
+        // O lote no USDA não ocupa a vaga dele no Gemini
+        assertTrue(admission.tryAdmit(Priority.BULK).isPresent());
+
+        assertEquals(5.0, registry.get("bot.admission.in_flight").tag("class", "bulk").tag("upstream", "usda").gauge().value());
+        assertEquals(1.0, registry.get("bot.admission.in_flight").tag("class", "bulk").tag("upstream", "gemini").gauge().value());
+
+        bulk.forEach(AdmissionControl.Permit::close);
+        confirm.get().close();
+        assertEquals(0.0, registry.get("bot.admission.in_flight").tag("class", "bulk").tag("upstream", "usda").gauge().value());
+    }
+}
@@ -0,0 +1,195 @@
+package br.com.tcc_bot.ai;
+
+import br.com.tcc_bot.admission.AdmissionControl;
+import br.com.tcc_bot.admission.Priority;
+import br.com.tcc_bot.nutrition.UsdaApiClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BulkAnalysisServiceTest {
+
+    private final AnalysisService analysis = mock(AnalysisService.class);
+    private final UsdaApiClient usda = mock(UsdaApiClient.class);
+    private final AdmissionControl admission = new AdmissionControl(new SimpleMeterRegistry(), 8, 30000, 20, 2000, 50, 1500);
+
+    @Test
+    void keepsParallelismAndSharesUsdaLookups() throws Exception {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        when(analysis.analyzeImage(any())).thenAnswer(inv -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            active.decrementAndGet();
+            return new GeminiVisionClient.PlateAnalysis();
+        });
+        when(analysis.calculateNutrients(any(), any(Function.class))).thenAnswer(inv -> {
+            Function<String, Optional<UsdaApiClient.NutritionalData100g>> lookup = inv.getArgument(1);
+            lookup.apply("Rice");
+            lookup.apply("rice ");
+            return null;
+        });
+        when(usda.fetchNutritionalData(any(), any(), any())).thenReturn(Optional.empty());
+
+        BulkAnalysisService service = newService(3);
+        List<BulkAnalysisService.BulkResult> results = Collections.synchronizedList(new ArrayList<>());
+        service.analyzeBatch(images(10), results::add);
+        service.shutdown();
+
+        assertTrue(maxActive.get() <= 3, "mais de 3 análises simultâneas: " + maxActive.get());
+        Set<Integer> indexes = new TreeSet<>();
+        for (BulkAnalysisService.BulkResult result : results) {
+            assertNull(result.error());
+            assertEquals("img-" + result.index(), result.name());
+            indexes.add(result.index());
+        }
+        assertEquals(Set.copyOf(IntStream.range(0, 10).boxed().toList()), indexes);
+        verify(usda, times(1)).fetchNutritionalData(any(), eq(Priority.BULK), any());
+    }
+
+    @Test
+    void stopsReadingWhenTheClientGoesAway() throws Exception {
+        when(analysis.analyzeImage(any())).thenReturn(new GeminiVisionClient.PlateAnalysis());
+        AtomicInteger read = new AtomicInteger();
+        Iterator<BulkAnalysisService.BulkImage> source = images(100);
+        Iterator<BulkAnalysisService.BulkImage> counting = new Iterator<>() {
+            public boolean hasNext() { return source.hasNext(); }
+            public BulkAnalysisService.BulkImage next() { read.incrementAndGet(); return source.next(); }
+        };
+
+        BulkAnalysisService service = newService(1);
+        service.analyzeBatch(counting, result -> { throw new IllegalStateException("broken pipe"); });
+        service.shutdown();
+
+        assertTrue(read.get() < 5, "continuou lendo o lote depois do cliente sair: " + read.get());
+    }
+
+    @Test
+    void failsFastAfterShutdown() {
+        BulkAnalysisService service = newService(2);
+        service.shutdown();
+        List<BulkAnalysisService.BulkResult> results = new ArrayList<>();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> service.analyzeBatch(images(5), results::add));
+
+        assertEquals(1, results.size());
+        assertEquals(0, results.get(0).index());
+        assertNotNull(results.get(0).error());
+    }
+
+    @Test
+    void failingSourceStillWaitsForTheTasksInFlight() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        when(analysis.analyzeImage(any())).thenAnswer(inv -> {
+            running.incrementAndGet();
+            Thread.sleep(100);
+            running.decrementAndGet();
+            return new GeminiVisionClient.PlateAnalysis();
+        });
+        Iterator<BulkAnalysisService.BulkImage> source = images(2);
+        Iterator<BulkAnalysisService.BulkImage> corrupt = new Iterator<>() {
+            public boolean hasNext() {
+                if (!source.hasNext()) throw new UncheckedIOException(new ZipException("invalid entry"));
+                return true;
+            }
+            public BulkAnalysisService.BulkImage next() { return source.next(); }
+        };
+
+        BulkAnalysisService service = newService(2);
+        List<BulkAnalysisService.BulkResult> results = Collections.synchronizedList(new ArrayList<>());
+        service.analyzeBatch(corrupt, results::add);
+
+        assertEquals(0, running.get(), "retornou com análises ainda rodando");
+        assertEquals(3, results.size());
+        assertTrue(results.stream().anyMatch(r -> r.index() == 2 && r.error().contains("invalid entry")));
+        service.shutdown();
+    }
+
+    @Test
+    void oversizedEntriesFailAloneAndTheBatchHasATotalCap() throws Exception {
+        when(analysis.analyzeImage(any())).thenReturn(new GeminiVisionClient.PlateAnalysis());
+        ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(zipped)) {
+            // Compacta para quase nada, mas descompactada passa do teto por imagem
+            zip.putNextEntry(new ZipEntry("bomba.jpg"));
+            zip.write(new byte[1 << 20]);
+            for (int i = 0; i < 3; i++) {
+                zip.putNextEntry(new ZipEntry("prato" + i + ".jpg"));
+                zip.write(new byte[400]);
+            }
+        }
+        BulkImageSources.Limits limits = new BulkImageSources.Limits(1000, 1000);
+
+        BulkAnalysisService service = newService(1);
+        List<BulkAnalysisService.BulkResult> results = Collections.synchronizedList(new ArrayList<>());
+        service.analyzeBatch(BulkImageSources.fromZip(new ByteArrayInputStream(zipped.toByteArray()), limits), results::add);
+        service.shutdown();
+
+        results.sort(Comparator.comparingInt(BulkAnalysisService.BulkResult::index));
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).error().contains("limite"));
+        assertNull(results.get(1).error());
+        assertNull(results.get(2).error());
+        assertTrue(results.get(3).error().contains("Lote excede"));
+    }
+
+    @Test
+    void ndjsonLinesAreCappedOneByOne() {
+        BulkImageSources.Limits limits = new BulkImageSources.Limits(30, 1000);
+        String small = Base64.getEncoder().encodeToString(new byte[10]);
+        String large = Base64.getEncoder().encodeToString(new byte[10_000]);
+        String body = "{\"name\":\"a\",\"image\":\"" + large + "\"}\n\n"
+                + "not json\n"
+                + "{\"name\":\"b\",\"image\":\"" + small + "\"}";
+
+        List<BulkAnalysisService.BulkImage> read = new ArrayList<>();
+        BulkImageSources.fromNdjson(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), new ObjectMapper(), limits)
+                .forEachRemaining(read::add);
+
+        assertEquals(3, read.size());
+        assertNotNull(read.get(0).error());
+        assertNotNull(read.get(1).error());
+        assertEquals("b", read.get(2).name());
+        assertEquals(10, read.get(2).bytes().length);
+    }
+
+    private BulkAnalysisService newService(int parallelism) {
+        BulkAnalysisService service = new BulkAnalysisService(analysis, usda, admission, parallelism, 60_000);
+        ReflectionTestUtils.setField(service, "maxImages", 1000);
+        ReflectionTestUtils.setField(service, "admissionWaitSeconds", 5L);
+        return service;
+    }
+
+    private static Iterator<BulkAnalysisService.BulkImage> images(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new BulkAnalysisService.BulkImage("img-" + i, new byte[]{(byte) i}))
+                .iterator();
+    }
+}
@@ -0,0 +1,74 @@
+package br.com.tcc_bot.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeminiRequestTemplateTest {
+
+    private static final String NOTE = "Mesma refeição, \"uma\" lista.\n";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void splicedBodyMatchesJacksonForOneImage() throws Exception {
+        List<GeminiVisionClient.Image> images = List.of(new GeminiVisionClient.Image(bytes(1000), "image/jpeg"));
+
+        assertEquals(mapper.readTree(mapper.writeValueAsBytes(request(imageParts(images, false)))),
+                mapper.readTree(splice(images)));
+    }
+
+    @Test
+    void splicedBodyMatchesJacksonForSeveralImagesWithTheNote() throws Exception {
+        List<GeminiVisionClient.Image> images = List.of(
+                new GeminiVisionClient.Image(bytes(1), "image/png"),
+                new GeminiVisionClient.Image(bytes(2), "image/jpeg"),
+                new GeminiVisionClient.Image(bytes(3001), "image/webp"));
+
+        assertEquals(mapper.readTree(mapper.writeValueAsBytes(request(imageParts(images, true)))),
+                mapper.readTree(splice(images)));
+    }
+
+    private byte[] splice(List<GeminiVisionClient.Image> images) throws Exception {
+        GeminiRequestTemplate template = GeminiRequestTemplate.compile(mapper, request(GeminiRequestTemplate.imageParts()), NOTE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        template.writeTo(out, images);
+        return out.toByteArray();
+    }
+
+    private static Map<String, Object> request(Object imageParts) {
+        List<Object> parts = imageParts instanceof List<?> list ? new ArrayList<>(list) : List.of(imageParts);
+        return Map.of(
+                "systemInstruction", Map.of("parts", List.of(Map.of("text", "Instrução com acentuação e \"aspas\""))),
+                "contents", List.of(Map.of("role", "user", "parts", parts)),
+                "generationConfig", Map.of("temperature", 0.2, "maxOutputTokens", 4096));
+    }
+
+    private static List<Object> imageParts(List<GeminiVisionClient.Image> images, boolean note) {
+        List<Object> parts = new ArrayList<>();
+        for (GeminiVisionClient.Image image : images) {
+            parts.add(Map.of("inlineData", Map.of(
+                    "mimeType", image.mimeType(),
+                    "data", Base64.getEncoder().encodeToString(image.bytes()))));
+        }
+        if (note) {
+            parts.add(Map.of("text", NOTE));
+        }
+        return parts;
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        return bytes;
+    }
+}
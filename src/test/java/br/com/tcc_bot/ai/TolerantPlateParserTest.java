@@ -0,0 +1,52 @@
+package br.com.tcc_bot.ai;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TolerantPlateParserTest {
+
+    private static final String RICE = """
+            {"name_pt":"Arroz branco","name_en":"Rice, white, cooked","reasoning":"Grãos soltos","quantity_grams":150}""";
+    private static final String BEANS = """
+            {"name_pt":"Feijão","name_en":"Beans, pinto, cooked","reasoning":"Caldo","quantity_grams":90}""";
+
+    @Test
+    void keepsCompleteItemsWhenOutputIsCutMidItem() {
+        String text = "{\"items\":[" + RICE + "," + BEANS + ",{\"name_pt\":\"Bife\",\"name_en\":\"Beef, rou";
+
+        TolerantPlateParser.Result result = TolerantPlateParser.parse(text);
+
+        assertFalse(result.complete());
+        assertEquals(2, result.items().size());
+        assertEquals("Feijão", result.items().get(1).namePt);
+        assertEquals(90.0, result.items().get(1).quantityGrams);
+        // O prefixo termina no último item fechado, pronto para virar o turno do modelo na continuação
+        assertTrue(result.prefix().endsWith(BEANS));
+    }
+
+    @Test
+    void repairsSlightlyMalformedButFinishedOutput() {
+        String text = "```json\n{'items':[" + RICE + "," + BEANS + ",]}\nObservação: prato bem servido.\n```";
+
+        TolerantPlateParser.Result result = TolerantPlateParser.parse(text);
+
+        assertTrue(result.complete());
+        assertEquals(2, result.items().size());
+    }
+
+    @Test
+    void skipsItemWithWrongTypeAndReportsNothingWhenCutBeforeFirstItem() {
+        TolerantPlateParser.Result wrongType = TolerantPlateParser.parse(
+                "{\"items\":[{\"name_pt\":\"Salada\",\"quantity_grams\":\"muita\"}," + RICE + "]}");
+        assertTrue(wrongType.complete());
+        assertEquals(1, wrongType.items().size());
+
+        TolerantPlateParser.Result empty = TolerantPlateParser.parse("{\"items\":[{\"name_pt\":\"Arr");
+        assertFalse(empty.complete());
+        assertTrue(empty.items().isEmpty());
+        assertEquals("", empty.prefix());
+    }
+}
@@ -0,0 +1,56 @@
+package br.com.tcc_bot.ai.prefilter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FoodPreFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void rejectsOnlyBelowTheThreshold() {
+        FoodPreFilter filter = new FoodPreFilter(fixed(0.3f), registry, 0.3f);
+        assertDoesNotThrow(() -> filter.check(new byte[0]));
+
+        FoodPreFilter strict = new FoodPreFilter(fixed(0.29f), new SimpleMeterRegistry(), 0.3f);
+        NotFoodImageException e = assertThrows(NotFoodImageException.class, () -> strict.check(new byte[0]));
+        assertEquals(0.29f, e.foodProbability());
+
+        assertEquals(1.0, registry.get("bot.prefilter.images").tag("verdict", "food").counter().count());
+    }
+
+    @Test
+    void classifierFailureLetsTheImageThrough() {
+        FoodImageClassifier broken = new FoodImageClassifier() {
+            @Override
+            public float foodProbability(byte[] imageBytes) throws Exception {
+                throw new IllegalArgumentException("formato não suportado");
+            }
+
+            @Override
+            public String name() {
+                return "broken";
+            }
+        };
+        FoodPreFilter filter = new FoodPreFilter(broken, registry, 0.3f);
+
+        assertDoesNotThrow(() -> filter.check(new byte[]{1, 2, 3}));
+        assertEquals(1.0, registry.get("bot.prefilter.images").tag("verdict", "error").counter().count());
+    }
+
+    private static FoodImageClassifier fixed(float probability) {
+        return new FoodImageClassifier() {
+            @Override
+            public float foodProbability(byte[] imageBytes) {
+                return probability;
+            }
+
+            @Override
+            public String name() {
+                return "fixed";
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package br.com.tcc_bot.ai.prefilter;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OnnxFoodClassifierTest {
+
+    private static final long MAX_PIXELS = 100_000_000L;
+
+    @Test
+    void preprocessesAPhotoIntoTheModelInput() throws IOException {
+        float[] pixels = OnnxFoodClassifier.preprocess(png(1600, 1200), 224, MAX_PIXELS);
+
+        assertEquals(3 * 224 * 224, pixels.length);
+    }
+
+    @Test
+    void rejectsAnImageThatDeclaresTooManyPixelsBeforeDecodingIt() throws IOException {
+        // Poucos bytes, mas o cabeçalho declara 100000x100000 (10 bilhões de pixels)
+        byte[] bomb = withDeclaredSize(png(1, 1), 100_000, 100_000);
+
+        IOException e = assertThrows(IOException.class, () -> OnnxFoodClassifier.preprocess(bomb, 224, MAX_PIXELS));
+        assertTrue(e.getMessage().contains("100000x100000"), e.getMessage());
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, ((x & 0xFF) << 16) | ((y & 0xFF) << 8));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Reescreve largura e altura do IHDR (logo após a assinatura de 8 bytes) e o CRC do chunk.
+     */
+    private static byte[] withDeclaredSize(byte[] png, int width, int height) {
+        byte[] patched = png.clone();
+        ByteBuffer buffer = ByteBuffer.wrap(patched);
+        buffer.putInt(16, width);
+        buffer.putInt(20, height);
+        CRC32 crc = new CRC32();
+        crc.update(patched, 12, 17);
+        buffer.putInt(29, (int) crc.getValue());
+        return patched;
+    }
+}
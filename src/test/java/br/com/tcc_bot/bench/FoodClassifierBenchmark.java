@@ -0,0 +1,86 @@
+package br.com.tcc_bot.bench;
+
+import br.com.tcc_bot.ai.prefilter.OnnxFoodClassifier;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão por núcleo do pré-filtro local: uma thread de benchmark e uma thread de inferência.
+ * <p>
+ * {@code preprocess} mede só decodificação + recorte + redimensionamento + normalização de uma
+ * foto de celular (1280x960). {@code classify} mede o caminho completo e usa o mesmo modelo da
+ * aplicação: {@code FOOD_CLASSIFIER_MODEL=/caminho/modelo.onnx mvn -Pbenchmark test-compile exec:exec -Dbenchmark=FoodClassifier}.
+ * Multiplicando o resultado pelo número de núcleos tem-se a vazão máxima esperada do servidor.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class FoodClassifierBenchmark {
+
+    private static final long MAX_PIXELS = 100_000_000L;
+
+    @Param("224")
+    int inputSize;
+
+    private byte[] photo;
+
+    @Setup
+    public void setup() throws IOException {
+        photo = syntheticPhoto(1280, 960);
+    }
+
+    @Benchmark
+    public float[] preprocess() throws IOException {
+        return OnnxFoodClassifier.preprocess(photo, inputSize, MAX_PIXELS);
+    }
+
+    @Benchmark
+    public float classify(ModelState model) throws Exception {
+        return model.classifier.foodProbability(photo);
+    }
+
+    @State(Scope.Benchmark)
+    public static class ModelState {
+
+        OnnxFoodClassifier classifier;
+
+        @Setup
+        public void load(FoodClassifierBenchmark outer) throws Exception {
+            String modelPath = System.getenv("FOOD_CLASSIFIER_MODEL");
+            if (modelPath == null || modelPath.isBlank()) {
+                throw new IllegalStateException("Defina FOOD_CLASSIFIER_MODEL com o caminho do modelo .onnx");
+            }
+            classifier = new OnnxFoodClassifier(Path.of(modelPath), outer.inputSize, 1, 1, MAX_PIXELS);
+        }
+
+        @TearDown
+        public void close() throws Exception {
+            classifier.close();
+        }
+    }
+
+    private static byte[] syntheticPhoto(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int r = (x * 255) / width;
+                int g = (y * 255) / height;
+                int b = ((x ^ y) & 0x3F) * 4;
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,103 @@
+package br.com.tcc_bot.bench;
+
+import br.com.tcc_bot.ai.AnalysisService;
+import br.com.tcc_bot.ai.GeminiVisionClient;
+import br.com.tcc_bot.nutrition.profile.Nutrient;
+import br.com.tcc_bot.whatsapp.message.AnalysisMessages;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara a formatação da análise completa com {@code String.format} (implementação anterior
+ * do WhatsAppWebhookController) e com os templates pré-compilados de {@link AnalysisMessages}.
+ * <p>
+ * Rodar com {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=MessageFormatting}
+ * (acrescente {@code -prof gc} nos argumentos para ver a alocação por operação).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageFormattingBenchmark {
+
+    @Param({"3", "8"})
+    int items;
+
+    private AnalysisService.FullAnalysisResponse response;
+    private final AnalysisMessages messages = new AnalysisMessages();
+
+    @Setup
+    public void setup() {
+        List<AnalysisService.EnrichedFoodItem> enriched = new ArrayList<>();
+        double cal = 0, prot = 0, carb = 0, fat = 0;
+        for (int i = 0; i < items; i++) {
+            GeminiVisionClient.FoodItem food = new GeminiVisionClient.FoodItem();
+            food.namePt = "Alimento número " + i;
+            food.quantityGrams = 80.0 + i * 17.3;
+            AnalysisService.EnrichedFoodItem item = new AnalysisService.EnrichedFoodItem(food);
+            item.nutrients.set(Nutrient.ENERGY, 120.7 + i * 31.1);
+            item.nutrients.set(Nutrient.CARBOHYDRATES, 20.33 + i);
+            item.nutrients.set(Nutrient.PROTEIN, 5.27 + i * 0.5);
+            item.nutrients.set(Nutrient.FAT, 2.91 + i * 0.3);
+            enriched.add(item);
+            cal += item.calories();
+            prot += item.protein();
+            carb += item.carbohydrates();
+            fat += item.fat();
+        }
+        response = new AnalysisService.FullAnalysisResponse();
+        response.items = enriched;
+        response.totals = new AnalysisService.NutritionalTotals(cal, prot, carb, fat);
+    }
+
+    @Benchmark
+    public String stringFormat() {
+        return legacyFormatFullAnalysis(response);
+    }
+
+    @Benchmark
+    public String precompiledTemplates() {
+        return messages.fullAnalysis(response);
+    }
+
+    private static String legacyFormatFullAnalysis(AnalysisService.FullAnalysisResponse analysis) {
+        Locale br = Locale.of("pt", "BR");
+
+        StringBuilder sb = new StringBuilder("*Análise Nutricional*\n\n");
+
+        for (AnalysisService.EnrichedFoodItem it : analysis.items) {
+            String grams = it.quantityGrams == null ? "?" : String.valueOf(Math.round(it.quantityGrams));
+
+            sb.append("*").append(it.name)
+                    .append(" - ").append(grams).append("g*\n");
+
+            if (it.calories() > 0) {
+                sb.append(String.format(br, "  Calorias: %.0f kcal\n", it.calories()));
+                sb.append(String.format(br, "  Carboidratos: %.1f g\n", it.carbohydrates()));
+                sb.append(String.format(br, "  Proteínas: %.1f g\n", it.protein()));
+                sb.append(String.format(br, "  Gorduras: %.1f g\n", it.fat()));
+            } else {
+                sb.append("  _(Sem dados nutricionais)_\n");
+            }
+            sb.append("\n");
+        }
+
+        AnalysisService.NutritionalTotals totals = analysis.totals;
+
+        sb.append("━━━━━━━━━━━━━━━━━\n");
+
+        sb.append("*Total analisado*:\n");
+        sb.append(String.format(br, "  Calorias: %.0f kcal\n", totals.totalCalories()));
+        sb.append(String.format(br, "  Carboidratos: %.1f g\n", totals.totalCarbs()));
+        sb.append(String.format(br, "  Proteínas: %.1f g\n", totals.totalProtein()));
+        sb.append(String.format(br, "  Gorduras: %.1f g", totals.totalFat()));
+
+        return sb.toString();
+    }
+}
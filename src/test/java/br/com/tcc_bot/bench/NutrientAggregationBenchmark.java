@@ -0,0 +1,76 @@
+package br.com.tcc_bot.bench;
+
+import br.com.tcc_bot.nutrition.profile.Nutrient;
+import br.com.tcc_bot.nutrition.profile.NutrientOps;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de agregar perfis completos de nutrientes ({@link Nutrient#COUNT} colunas), com o laço
+ * escalar e com a Vector API.
+ * <p>
+ * {@code plateTotals}: escala o perfil por 100 g de cada item pela porção e soma no total do prato.
+ * {@code dayTotals}: soma as linhas diárias do histórico (uma refeição por linha), como nas
+ * consultas "semana"/"média".
+ * <p>
+ * Rodar com {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=NutrientAggregation}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NutrientAggregationBenchmark {
+
+    private static final int WIDTH = Nutrient.COUNT;
+
+    @Param({"scalar", "simd"})
+    String impl;
+
+    @Param({"8", "64"})
+    int items;
+
+    @Param({"365"})
+    int meals;
+
+    private NutrientOps ops;
+    private double[] per100g;
+    private double[] portions;
+    private double[] itemProfiles;
+    private double[] history;
+    private double[] totals;
+
+    @Setup
+    public void setup() {
+        ops = impl.equals("simd") ? NutrientOps.vectorized() : NutrientOps.scalar();
+        Random random = new Random(7);
+        per100g = random.doubles((long) items * WIDTH, 0, 400).toArray();
+        portions = random.doubles(items, 0.3, 3.0).toArray();
+        itemProfiles = new double[items * WIDTH];
+        history = random.doubles((long) meals * WIDTH, 0, 900).toArray();
+        totals = new double[WIDTH];
+    }
+
+    @Benchmark
+    public double[] plateTotals() {
+        Arrays.fill(totals, 0.0);
+        for (int i = 0; i < items; i++) {
+            ops.scale(per100g, i * WIDTH, portions[i], itemProfiles, i * WIDTH, WIDTH);
+            ops.add(totals, 0, itemProfiles, i * WIDTH, WIDTH);
+        }
+        return totals;
+    }
+
+    @Benchmark
+    public double[] dayTotals() {
+        Arrays.fill(totals, 0.0);
+        for (int row = 0; row < meals; row++) {
+            ops.add(totals, 0, history, row * WIDTH, WIDTH);
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,84 @@
+package br.com.tcc_bot.bench;
+
+import br.com.tcc_bot.whatsapp.WebhookSignature;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo da verificação do {@code X-Hub-Signature-256} por tamanho de corpo. A diferença entre
+ * dois tamanhos dá o custo por KB; o valor de 1 KB é dominado pelo custo fixo.
+ * <p>
+ * {@code verify} usa o {@link Mac} por thread de {@link WebhookSignature}; {@code verifyFreshMac}
+ * cria e inicializa um {@code Mac} por requisição, para medir o que o reaproveitamento economiza;
+ * {@code rejectMalformed} é o caminho de um cabeçalho ausente/inválido (sem HMAC).
+ * <p>
+ * Rodar com {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=WebhookSignature}
+ * (acrescente {@code -prof gc} para ver a alocação por operação).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WebhookSignatureBenchmark {
+
+    private static final String SECRET = "benchmark-app-secret";
+
+    @Param({"1", "4", "16", "64"})
+    int kilobytes;
+
+    private final WebhookSignature signature = new WebhookSignature(SECRET);
+    private SecretKeySpec key;
+    private byte[] body;
+    private String header;
+
+    @Setup
+    public void setup() throws Exception {
+        body = new byte[kilobytes * 1024];
+        // Conteúdo parecido com JSON, só para não ser um array zerado
+        byte[] pattern = "{\"from\":\"5511999999999\",\"type\":\"text\"},".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < body.length; i++) {
+            body[i] = pattern[i % pattern.length];
+        }
+        key = new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(key);
+        header = "sha256=" + HexFormat.of().formatHex(mac.doFinal(body));
+        if (!signature.verify(body, header)) {
+            throw new IllegalStateException("assinatura de referência inválida");
+        }
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return signature.verify(body, header);
+    }
+
+    @Benchmark
+    public boolean verifyFreshMac() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(key);
+        byte[] expected = HexFormat.of().parseHex(header, 7, header.length());
+        return MessageDigest.isEqual(expected, mac.doFinal(body));
+    }
+
+    @Benchmark
+    public boolean rejectMalformed() {
+        return signature.verify(body, "sha256=invalido");
+    }
+
+    /**
+     * Referência: o caminho anterior convertia o corpo inteiro em {@code String} antes do parse.
+     */
+    @Benchmark
+    public int decodeToString() {
+        return new String(body, StandardCharsets.UTF_8).length();
+    }
+}
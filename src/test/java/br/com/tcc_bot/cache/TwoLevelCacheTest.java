@@ -0,0 +1,117 @@
+package br.com.tcc_bot.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TwoLevelCacheTest {
+
+    private static final CacheCodec<StringBuilder> CODEC = new CacheCodec<>() {
+        @Override
+        public void write(StringBuilder value, DataOutputStream out) throws IOException {
+            out.writeByte(1);
+            out.writeUTF(value.toString());
+        }
+
+        @Override
+        public StringBuilder read(DataInputStream in) throws IOException {
+            if (in.readByte() != 1) {
+                throw new IOException("versão");
+            }
+            return new StringBuilder(in.readUTF());
+        }
+    };
+
+    @Test
+    void secondNodeReadsFromL2AndInvalidationClearsItsL1() {
+        // Duas "réplicas" com L1 próprio sobre o mesmo L2
+        InMemorySharedCacheStore l2 = new InMemorySharedCacheStore();
+        SimpleMeterRegistry registryA = new SimpleMeterRegistry();
+        SimpleMeterRegistry registryB = new SimpleMeterRegistry();
+        TwoLevelCache<StringBuilder> a = new LayeredCaches(l2, registryA, 1 << 20).create("t", CODEC, Duration.ofHours(1));
+        TwoLevelCache<StringBuilder> b = new LayeredCaches(l2, registryB, 1 << 20).create("t", CODEC, Duration.ofHours(1));
+
+        a.put("rice", new StringBuilder("128 kcal"));
+
+        assertEquals("128 kcal", b.get("rice").orElseThrow().toString());
+        assertEquals(1, registryB.counter("bot.cache.gets", "cache", "t", "level", "l2", "result", "hit").count());
+        b.get("rice");
+        assertEquals(1, registryB.counter("bot.cache.gets", "cache", "t", "level", "l1", "result", "hit").count());
+
+        List<String> invalidatedOnB = new ArrayList<>();
+        b.onInvalidate(invalidatedOnB::add);
+        a.invalidate("rice");
+        assertEquals(Optional.empty(), a.get("rice").map(StringBuilder::toString));
+        assertEquals(Optional.empty(), b.get("rice").map(StringBuilder::toString));
+        assertEquals(List.of("rice"), invalidatedOnB);
+    }
+
+    @Test
+    void everyReadIsAFreshCopyAndL1StaysWithinItsBudget() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TwoLevelCache<StringBuilder> cache = new LayeredCaches(new InMemorySharedCacheStore(), registry, 64)
+                .create("t", CODEC, Duration.ofHours(1));
+
+        cache.put("k", new StringBuilder("abc"));
+        StringBuilder first = cache.get("k").orElseThrow();
+        first.append("-editado");
+        StringBuilder second = cache.get("k").orElseThrow();
+        assertNotSame(first, second);
+        assertEquals("abc", second.toString());
+
+        for (int i = 0; i < 20; i++) {
+            cache.put("k" + i, new StringBuilder("valor " + i));
+        }
+        assertTrue(registry.get("bot.cache.l1.bytes").gauge().value() <= 64);
+        // O mais recente continua no L1
+        assertTrue(cache.l1Snapshot().containsKey("k19"));
+    }
+
+    @Test
+    void preloadKeepsTheOriginalExpiry() {
+        TwoLevelCache<StringBuilder> source = new LayeredCaches(new InMemorySharedCacheStore(), new SimpleMeterRegistry(), 1 << 20)
+                .create("t", CODEC, Duration.ofHours(1));
+        source.put("rice", new StringBuilder("128 kcal"));
+        TwoLevelCache.Snapshot rice = source.l1Snapshot().get("rice");
+        long now = System.currentTimeMillis();
+        assertTrue(rice.expiresAtMillis() > now && rice.expiresAtMillis() <= now + Duration.ofHours(1).toMillis());
+
+        TwoLevelCache<StringBuilder> restarted = new LayeredCaches(new InMemorySharedCacheStore(), new SimpleMeterRegistry(), 1 << 20)
+                .create("t", CODEC, Duration.ofHours(1));
+        restarted.preload("rice", rice);
+        restarted.preload("bean", new TwoLevelCache.Snapshot(rice.value(), now - 1));
+        // Regravar o snapshot não renova a expiração
+        assertEquals(rice.expiresAtMillis(), restarted.l1Snapshot().get("rice").expiresAtMillis(), 5);
+        assertEquals("128 kcal", restarted.get("rice").orElseThrow().toString());
+        assertEquals(Optional.empty(), restarted.get("bean").map(StringBuilder::toString));
+    }
+
+    @Test
+    void unreachableRedisDoesNotBlockStartupAndFallsBackToL1() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (RedisSharedCacheStore redis = new RedisSharedCacheStore("redis://127.0.0.1:1", Duration.ofMillis(200))) {
+            TwoLevelCache<StringBuilder> cache = new LayeredCaches(redis, registry, 1 << 20)
+                    .create("t", CODEC, Duration.ofHours(1));
+
+            assertEquals(Optional.empty(), cache.get("rice").map(StringBuilder::toString));
+            cache.put("rice", new StringBuilder("128 kcal"));
+            assertEquals("128 kcal", cache.get("rice").orElseThrow().toString());
+            assertTrue(registry.counter("bot.cache.gets", "cache", "t", "level", "l2", "result", "error").count() > 0);
+
+            redis.stop();
+            assertThrows(IllegalStateException.class, () -> redis.get("rice"));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package br.com.tcc_bot.history;
+
+import br.com.tcc_bot.ai.AnalysisService;
+import br.com.tcc_bot.nutrition.profile.Nutrient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MealHistoryStoreTest {
+
+    private static final String ZONE = "America/Sao_Paulo";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordedMealsSurviveRestart() throws Exception {
+        MealHistoryStore store = newStore(100);
+        store.record("5511999990001", new AnalysisService.NutritionalTotals(500, 20, 60, 15));
+        store.record("5511999990001", new AnalysisService.NutritionalTotals(300, 10, 40, 5));
+        store.stop();
+
+        MealHistoryStore restarted = newStore(100);
+        MealHistoryStore.Totals today = restarted.lastDays("5511999990001", 1);
+
+        assertEquals(2, today.meals());
+        assertEquals(1, today.days());
+        assertEquals(800.0, today.calories(), 1e-9);
+        assertEquals(20.0, today.fat(), 1e-9);
+    }
+
+    @Test
+    void evictedUsersAreReloadedFromDisk() throws Exception {
+        MealHistoryStore store = newStore(1);
+        store.record("a", new AnalysisService.NutritionalTotals(100, 0, 0, 0));
+        store.record("b", new AnalysisService.NutritionalTotals(200, 0, 0, 0));
+        store.record("a", new AnalysisService.NutritionalTotals(300, 0, 0, 0));
+
+        assertEquals(400.0, store.allTime("a").calories(), 1e-9);
+        assertEquals(200.0, store.allTime("b").calories(), 1e-9);
+        store.stop();
+    }
+
+    @Test
+    void sumsOnlyTheRequestedDays() {
+        UserMealHistory history = new UserMealHistory();
+        history.add(12, row(300));
+        history.add(10, row(100));
+        history.add(11, row(200));
+        history.add(12, row(50));
+
+        MealHistoryStore.Totals lastTwo = history.sum(11, 12);
+        assertEquals(3, lastTwo.meals());
+        assertEquals(2, lastTwo.days());
+        assertEquals(550.0, lastTwo.calories(), 1e-9);
+
+        MealHistoryStore.Totals gap = history.sum(13, 20);
+        assertEquals(0, gap.meals());
+    }
+
+    @Test
+    void remapsColumnsWrittenWithAnOlderCatalog() throws Exception {
+        int day = (int) LocalDate.now(ZoneId.of(ZONE)).toEpochDay() - 2;
+        ByteBuffer file = ByteBuffer.allocate(Integer.BYTES + Short.BYTES * 4 + Long.BYTES + Integer.BYTES + Double.BYTES * 3)
+                .putInt(0x4E505231)
+                .putShort((short) 3)
+                .putShort(Short.parseShort(Nutrient.FAT.usdaNumber))
+                .putShort((short) 9999) // nutriente que saiu do catálogo
+                .putShort(Short.parseShort(Nutrient.ENERGY.usdaNumber))
+                .putLong(0L)
+                .putInt(day)
+                .putDouble(12.0)
+                .putDouble(7.0)
+                .putDouble(450.0);
+        Path profile = dir.resolve("5511999990001.profile");
+        Files.write(profile, file.array());
+
+        MealHistoryStore store = newStore(100);
+        MealHistoryStore.Totals week = store.lastDays("5511999990001", 7);
+        store.stop();
+
+        assertEquals(1, week.meals());
+        assertEquals(450.0, week.calories(), 1e-9);
+        assertEquals(12.0, week.fat(), 1e-9);
+        long migratedBytes = Integer.BYTES + Short.BYTES * (1 + Nutrient.COUNT)
+                + Long.BYTES + Integer.BYTES + (long) Double.BYTES * Nutrient.COUNT;
+        assertEquals(migratedBytes, Files.size(profile));
+        assertEquals(0, store.lastDays("5511999990001", 1).meals());
+    }
+
+    private MealHistoryStore newStore(int cachedUsers) throws Exception {
+        MealHistoryStore store = new MealHistoryStore();
+        ReflectionTestUtils.setField(store, "historyDir", dir.toString());
+        ReflectionTestUtils.setField(store, "zone", ZONE);
+        ReflectionTestUtils.setField(store, "maxCachedUsers", cachedUsers);
+        store.init();
+        return store;
+    }
+
+    private static double[] row(double calories) {
+        double[] row = new double[Nutrient.COUNT];
+        row[Nutrient.ENERGY.index()] = calories;
+        return row;
+    }
+}
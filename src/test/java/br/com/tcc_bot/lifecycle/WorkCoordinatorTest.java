@@ -0,0 +1,75 @@
+package br.com.tcc_bot.lifecycle;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkCoordinatorTest {
+
+    @Test
+    void drainWaitsForInFlightWorkAndRefusesNewRequests() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        List<String> finished = new ArrayList<>();
+        WorkCoordinator[] coordinator = new WorkCoordinator[1];
+
+        // O Drainable libera uma refeição retida, que entra como trabalho aceito durante a drenagem
+        Drainable coalescer = () -> {
+            WorkCoordinator.Ticket meal = coordinator[0].enterAccepted(() -> finished.add("checkpoint"));
+            CompletableFuture.runAsync(() -> {
+                try (meal) {
+                    finished.add("meal");
+                }
+            }, CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+        };
+        coordinator[0] = new WorkCoordinator(drainables(coalescer), registry, 5);
+        coordinator[0].start();
+
+        WorkCoordinator.Ticket request = coordinator[0].tryEnter().orElseThrow();
+        CompletableFuture.runAsync(request::close, CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+
+        coordinator[0].stop();
+
+        assertEquals(List.of("meal"), finished);
+        assertTrue(coordinator[0].tryEnter().isEmpty());
+        assertEquals(2.0, registry.get("bot.drain.work").tag("outcome", "completed").counter().count());
+        assertEquals(1.0, registry.get("bot.drain.rejected").counter().count());
+    }
+
+    @Test
+    void unfinishedWorkIsCheckpointedAtTheDeadline() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WorkCoordinator coordinator = new WorkCoordinator(drainables(), registry, 0);
+        coordinator.start();
+
+        List<String> saved = new ArrayList<>();
+        WorkCoordinator.Ticket meal = coordinator.enterAccepted(() -> saved.add("media-1"));
+        coordinator.tryEnter().orElseThrow();
+
+        coordinator.stop();
+        meal.close();
+
+        assertEquals(List.of("media-1"), saved);
+        assertEquals(1.0, registry.get("bot.drain.work").tag("outcome", "checkpointed").counter().count());
+        assertEquals(1.0, registry.get("bot.drain.work").tag("outcome", "dropped").counter().count());
+        // O close() depois do prazo não conta como terminado
+        assertEquals(0.0, registry.get("bot.drain.work").tag("outcome", "completed").counter().count());
+        assertEquals(0.0, registry.get("bot.drain.in_flight").gauge().value());
+    }
+
+    private static ObjectProvider<Drainable> drainables(Drainable... beans) {
+        StaticListableBeanFactory factory = new StaticListableBeanFactory();
+        for (int i = 0; i < beans.length; i++) {
+            factory.addBean("drainable" + i, beans[i]);
+        }
+        return factory.getBeanProvider(Drainable.class);
+    }
+}
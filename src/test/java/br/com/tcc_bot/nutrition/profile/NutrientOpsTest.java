@@ -0,0 +1,57 @@
+package br.com.tcc_bot.nutrition.profile;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NutrientOpsTest {
+
+    @Test
+    void vectorMatchesScalarWithOffsetsAndTails() {
+        NutrientOps scalar = NutrientOps.scalar();
+        NutrientOps vector = NutrientOps.vectorized();
+        Random random = new Random(42);
+
+        // Comprimentos que não são múltiplos da largura do vetor exercitam o laço de sobra
+        for (int length : new int[]{1, 3, 7, Nutrient.COUNT, 67}) {
+            double[] src = random.doubles(length + 5, 0, 500).toArray();
+            double[] expected = random.doubles(length + 3).toArray();
+            double[] actual = expected.clone();
+
+            scalar.addScaled(expected, 3, src, 5, 1.37, length);
+            vector.addScaled(actual, 3, src, 5, 1.37, length);
+            assertArrayEquals(expected, actual, "addScaled, comprimento " + length);
+
+            scalar.add(expected, 3, src, 5, length);
+            vector.add(actual, 3, src, 5, length);
+            assertArrayEquals(expected, actual, "add, comprimento " + length);
+
+            scalar.scale(src, 5, 0.8, expected, 3, length);
+            vector.scale(src, 5, 0.8, actual, 3, length);
+            assertArrayEquals(expected, actual, "scale, comprimento " + length);
+        }
+    }
+
+    @Test
+    void profileScalesAndSumsEveryNutrient() {
+        NutrientProfile rice = new NutrientProfile()
+                .set(Nutrient.ENERGY, 128)
+                .set(Nutrient.FIBER, 1.6)
+                .set(Nutrient.SODIUM, 1);
+        NutrientProfile beans = new NutrientProfile()
+                .set(Nutrient.ENERGY, 76)
+                .set(Nutrient.FIBER, 8.5)
+                .set(Nutrient.IRON, 1.3);
+
+        NutrientProfile plate = rice.scaled(1.5).add(beans.scaled(1.4));
+
+        assertEquals(128 * 1.5 + 76 * 1.4, plate.get(Nutrient.ENERGY), 1e-9);
+        assertEquals(1.6 * 1.5 + 8.5 * 1.4, plate.get(Nutrient.FIBER), 1e-9);
+        assertEquals(1.5, plate.get(Nutrient.SODIUM), 1e-9);
+        assertEquals(1.3 * 1.4, plate.get(Nutrient.IRON), 1e-9);
+        assertEquals(0.0, plate.get(Nutrient.VITAMIN_C));
+    }
+}
@@ -0,0 +1,59 @@
+package br.com.tcc_bot.nutrition.profile;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NutrientProfileTest {
+
+    @Test
+    void measuredZeroIsKeptApartFromMissing() {
+        NutrientProfile per100g = new NutrientProfile()
+                .set(Nutrient.ENERGY, 128.0)
+                .set(Nutrient.CHOLESTEROL, 0.0);
+
+        NutrientProfile portion = per100g.scaled(1.5);
+
+        assertTrue(portion.has(Nutrient.CHOLESTEROL));
+        assertFalse(portion.has(Nutrient.SODIUM));
+        assertEquals(Map.of("calorias", 192.0, "colesterol", 0.0), portion.asMap());
+    }
+
+    @Test
+    void sumIsMeasuredWhereAnyPartWas() {
+        NutrientProfile rice = new NutrientProfile().set(Nutrient.ENERGY, 200.0).set(Nutrient.FIBER, 1.0);
+        NutrientProfile tacoBeans = new NutrientProfile().set(Nutrient.ENERGY, 76.0);
+
+        NutrientProfile total = new NutrientProfile().add(rice).add(tacoBeans);
+
+        assertTrue(total.has(Nutrient.FIBER));
+        assertFalse(total.has(Nutrient.SODIUM));
+        assertEquals(276.0, total.get(Nutrient.ENERGY));
+    }
+
+    @Test
+    void rawArraysCanBeMarkedByValue() {
+        NutrientProfile history = new NutrientProfile();
+        history.values()[Nutrient.IRON.index()] = 2.5;
+
+        assertFalse(history.has(Nutrient.IRON));
+        history.markNonZeroMeasured();
+        assertTrue(history.has(Nutrient.IRON));
+        assertFalse(history.has(Nutrient.ZINC));
+    }
+
+    @Test
+    void nutrientsPastTheFirst64BitsDoNotAliasTheFirstOnes() {
+        Nutrient last = Nutrient.ofIndex(Nutrient.COUNT - 1);
+        assertTrue(last.index() >= 64, "catálogo deveria passar de 64 nutrientes");
+
+        NutrientProfile profile = new NutrientProfile().set(last, 0.5);
+        assertTrue(profile.has(last));
+        assertFalse(profile.has(Nutrient.ofIndex(last.index() % 64)));
+
+        NutrientProfile total = new NutrientProfile().set(Nutrient.ENERGY, 100.0).add(profile.scaled(2.0));
+        assertEquals(Map.of("calorias", 100.0, last.key, 1.0), total.asMap());
+    }
+}
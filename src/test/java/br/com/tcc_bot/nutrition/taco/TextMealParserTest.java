@@ -0,0 +1,83 @@
+package br.com.tcc_bot.nutrition.taco;
+
+import br.com.tcc_bot.nutrition.UsdaApiClient;
+import br.com.tcc_bot.nutrition.profile.Nutrient;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextMealParserTest {
+
+    private final TextMealParser parser = new TextMealParser(new TacoTable());
+
+    @Test
+    void parsesGramsAndNumberWords() {
+        TextMealParser.ParsedMeal meal = parser.parse("200g de arroz e um bife");
+
+        assertEquals(2, meal.items().size());
+        assertEquals("Arroz, tipo 1, cozido", meal.items().get(0).food().name());
+        assertEquals(200, meal.items().get(0).grams(), 1e-9);
+        assertEquals(6, meal.items().get(1).food().id());
+        assertEquals(100, meal.items().get(1).grams(), 1e-9);
+        assertEquals(List.of(), meal.unrecognized());
+    }
+
+    @Test
+    void convertsHouseholdMeasures() {
+        TextMealParser.ParsedMeal meal = parser.parse("2 conchas de feijão preto, 3 colheres de farofa + 2 ovos, 1,5 kg de batata");
+
+        assertEquals(4, meal.items().size());
+        assertEquals("Feijão, preto, cozido", meal.items().get(0).food().name());
+        assertEquals(280, meal.items().get(0).grams(), 1e-9);
+        assertEquals(45, meal.items().get(1).grams(), 1e-9);
+        assertEquals(100, meal.items().get(2).grams(), 1e-9);
+        assertEquals(1500, meal.items().get(3).grams(), 1e-9);
+    }
+
+    @Test
+    void usesDefaultPortionAndReportsUnknownParts() {
+        TextMealParser.ParsedMeal meal = parser.parse("Pão de queijo com café e um sanduíche");
+
+        assertEquals(2, meal.items().size());
+        assertEquals("Pão de queijo, assado", meal.items().get(0).food().name());
+        assertEquals(60, meal.items().get(0).grams(), 1e-9);
+        assertEquals(50, meal.items().get(1).grams(), 1e-9);
+        assertEquals(List.of("um sanduiche"), meal.unrecognized());
+    }
+
+    @Test
+    void ignoresPlainGreetings() {
+        TextMealParser.ParsedMeal meal = parser.parse("oi, tudo bem?");
+
+        assertEquals(0, meal.items().size());
+    }
+
+    @Test
+    void matchingDoesNotDependOnTheDefaultLocale() {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            TextMealParser.ParsedMeal meal = parser.parse("FEIJÃO PRETO E ARROZ INTEGRAL");
+
+            assertEquals(2, meal.items().size());
+            assertEquals("Arroz, integral, cozido", meal.items().get(1).food().name());
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    void tacoOnlyMeasuresTheMacros() {
+        UsdaApiClient.NutritionalData100g rice = new TacoTable().nutrients(1).orElseThrow();
+
+        assertTrue(rice.nutrients.has(Nutrient.FAT));
+        assertEquals(0.2, rice.nutrients.get(Nutrient.FAT), 1e-9);
+        assertFalse(rice.nutrients.has(Nutrient.SODIUM));
+        assertFalse(rice.nutrients.has(Nutrient.FIBER));
+    }
+}
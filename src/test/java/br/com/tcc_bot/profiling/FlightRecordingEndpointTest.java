@@ -0,0 +1,60 @@
+package br.com.tcc_bot.profiling;
+
+import br.com.tcc_bot.ai.GeminiVisionClient;
+import br.com.tcc_bot.whatsapp.message.AnalysisMessages;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightRecordingEndpointTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordsBotEventsAndServesTheFile() throws Exception {
+        FlightRecordingEndpoint endpoint = new FlightRecordingEndpoint(dir.toString(), 30, 16, 3);
+
+        WebEndpointResponse<Map<String, Object>> started = endpoint.start(600L, null);
+        assertEquals(200, started.getStatus());
+        assertEquals(30L, started.getBody().get("seconds"), "duração limitada ao máximo configurado");
+        assertEquals(409, endpoint.start(5L, null).getStatus(), "uma gravação por vez");
+
+        GeminiVisionClient.FoodItem rice = new GeminiVisionClient.FoodItem();
+        rice.namePt = "Arroz";
+        rice.quantityGrams = 150.0;
+        GeminiVisionClient.PlateAnalysis plate = new GeminiVisionClient.PlateAnalysis();
+        plate.items = List.of(rice);
+        new AnalysisMessages().itemList(plate, "Os pesos estão corretos?");
+
+        String name = (String) endpoint.stop().get("name");
+        WebEndpointResponse<Resource> download = endpoint.download(name);
+        assertEquals(200, download.getStatus());
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(download.getBody().getFile().toPath());
+        RecordedEvent formatted = events.stream()
+                .filter(e -> e.getEventType().getName().equals("tcc_bot.MessageFormat"))
+                .findFirst().orElseThrow();
+        assertEquals("itemList", formatted.getString("message"));
+        assertEquals(1, formatted.getInt("items"));
+        assertTrue(formatted.getInt("chars") > 0);
+    }
+
+    @Test
+    void rejectsNamesOutsideTheRecordingDirectory() {
+        FlightRecordingEndpoint endpoint = new FlightRecordingEndpoint(dir.toString(), 30, 16, 3);
+
+        assertEquals(400, endpoint.download("../application.properties").getStatus());
+        assertEquals(404, endpoint.download("bot-20260101-000000.jfr").getStatus());
+    }
+}
@@ -0,0 +1,86 @@
+package br.com.tcc_bot.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowCounterTest {
+
+    private static final long WINDOW = 60_000;
+
+    @Test
+    void previousWindowFadesOutAsTheWindowSlides() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(WINDOW);
+        long start = 10 * WINDOW;
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(counter.tryAcquire(start + i, 10));
+        }
+        assertFalse(counter.tryAcquire(start + 100, 10));
+
+        // Virou a janela há 25%: ainda contam 7,5 das 10 anteriores, sobram 2 vagas
+        long quarter = start + WINDOW + WINDOW / 4;
+        assertEquals(7.5, counter.estimate(quarter), 1e-9);
+        assertTrue(counter.tryAcquire(quarter, 10));
+        assertTrue(counter.tryAcquire(quarter, 10));
+        assertFalse(counter.tryAcquire(quarter, 10));
+
+        // Duas janelas sem eventos: tudo expirou e o contador pode ser descartado
+        assertTrue(counter.isIdle(start + 3 * WINDOW));
+        assertEquals(0.0, counter.estimate(start + 3 * WINDOW));
+        assertFalse(counter.isIdle(start + WINDOW + 1));
+    }
+
+    @Test
+    void releaseGivesTheSlotBackInTheWindowItWasCounted() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(WINDOW);
+        long start = 10 * WINDOW;
+
+        assertTrue(counter.tryAcquire(start, 2));
+        assertTrue(counter.tryAcquire(start, 2));
+        counter.release(start);
+        assertTrue(counter.tryAcquire(start, 2));
+        assertFalse(counter.tryAcquire(start, 2));
+
+        // Depois da virada, o evento sai da janela anterior
+        long next = start + WINDOW;
+        counter.release(start);
+        assertEquals(1.0, counter.estimate(next), 1e-9);
+
+        // Já fora da janela deslizante: nada a devolver
+        counter.release(start - WINDOW);
+        assertEquals(1.0, counter.estimate(next), 1e-9);
+    }
+
+    @Test
+    void concurrentAcquiresNeverExceedTheLimit() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter(WINDOW);
+        long now = 5 * WINDOW;
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+
+        try (ExecutorService pool = Executors.newFixedThreadPool(8)) {
+            for (int t = 0; t < 8; t++) {
+                pool.submit(() -> {
+                    go.await();
+                    for (int i = 0; i < 1000; i++) {
+                        if (counter.tryAcquire(now, 250)) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            go.countDown();
+        }
+
+        assertEquals(250, granted.get());
+    }
+}
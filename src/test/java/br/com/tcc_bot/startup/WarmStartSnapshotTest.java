@@ -0,0 +1,55 @@
+package br.com.tcc_bot.startup;
+
+import br.com.tcc_bot.cache.TwoLevelCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WarmStartSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripKeepsEntriesInOrder() throws IOException {
+        Map<String, TwoLevelCache.Snapshot> entries = new LinkedHashMap<>();
+        entries.put("rice, white, long-grain, cooked", new TwoLevelCache.Snapshot(new byte[]{1, 0, 2, 42}, 5_000L));
+        entries.put("feijão", new TwoLevelCache.Snapshot(new byte[0], 7_000L));
+        Map<String, String> fdcIds = Map.of("rice, white, long-grain, cooked", "169756");
+
+        Path file = dir.resolve("warm.snapshot");
+        WarmStartSnapshot.write(file, new WarmStartSnapshot.Contents(123L, entries, fdcIds));
+
+        WarmStartSnapshot.Contents read = WarmStartSnapshot.read(file).orElseThrow();
+        assertEquals(123L, read.writtenAtMillis());
+        assertEquals(List.copyOf(entries.keySet()), List.copyOf(read.usdaEntries().keySet()));
+        assertArrayEquals(new byte[]{1, 0, 2, 42}, read.usdaEntries().get("rice, white, long-grain, cooked").value());
+        assertEquals(5_000L, read.usdaEntries().get("rice, white, long-grain, cooked").expiresAtMillis());
+        assertEquals(7_000L, read.usdaEntries().get("feijão").expiresAtMillis());
+        assertEquals(fdcIds, read.fdcIds());
+    }
+
+    @Test
+    void missingFileIsEmptyAndTruncatedFileFails() throws IOException {
+        assertTrue(WarmStartSnapshot.read(dir.resolve("nada")).isEmpty());
+
+        Path file = dir.resolve("warm.snapshot");
+        WarmStartSnapshot.write(file, new WarmStartSnapshot.Contents(1L, Map.of("k", new TwoLevelCache.Snapshot(new byte[64], 1L)), Map.of()));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 10));
+
+        assertThrows(IOException.class, () -> WarmStartSnapshot.read(file));
+    }
+}
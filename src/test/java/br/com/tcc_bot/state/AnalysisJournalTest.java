@@ -0,0 +1,149 @@
+package br.com.tcc_bot.state;
+
+import br.com.tcc_bot.ai.GeminiVisionClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysTransitionsAfterRestart() throws Exception {
+        AnalysisJournal journal = newJournal();
+        journal.analysisCreated("5511999990001", plate("Arroz", 150.0));
+        journal.analysisCreated("5511999990002", plate("Feijão", 80.0));
+        journal.itemWeightEdited("5511999990001", 0, 210.0);
+        journal.confirmed("5511999990002");
+        journal.close();
+
+        AnalysisJournal restarted = newJournal();
+        Map<String, GeminiVisionClient.PlateAnalysis> state = restarted.recoveredState();
+        restarted.close();
+
+        assertEquals(1, state.size());
+        GeminiVisionClient.FoodItem item = state.get("5511999990001").items.get(0);
+        assertEquals("Arroz", item.namePt);
+        assertEquals(210.0, item.quantityGrams);
+    }
+
+    @Test
+    void compactsWhenSegmentIsFull() throws Exception {
+        AnalysisJournal journal = newJournal(512);
+        for (int i = 0; i < 50; i++) {
+            journal.analysisCreated("user", plate("Item " + i, i));
+        }
+        journal.close();
+
+        AnalysisJournal restarted = newJournal(512);
+        Map<String, GeminiVisionClient.PlateAnalysis> state = restarted.recoveredState();
+        restarted.close();
+
+        assertEquals("Item 49", state.get("user").items.get(0).namePt);
+    }
+
+    @Test
+    void liveStateLargerThanASegmentSurvivesCompaction() throws Exception {
+        AnalysisJournal journal = newJournal(512);
+        for (int i = 0; i < 40; i++) {
+            journal.analysisCreated("55119999900" + i, plate("Item " + i, i));
+        }
+        journal.close();
+
+        // A reabertura compacta de novo, agora com todo o estado já acima de 512 bytes
+        AnalysisJournal restarted = newJournal(512);
+        Map<String, GeminiVisionClient.PlateAnalysis> state = restarted.recoveredState();
+        restarted.close();
+
+        assertEquals(40, state.size());
+        assertEquals("Item 39", state.get("5511999990039").items.get(0).namePt);
+    }
+
+    @Test
+    void recordLargerThanASegmentIsRejectedUpFront() throws Exception {
+        AnalysisJournal journal = newJournal(512);
+        journal.analysisCreated("5511999990001", plate("Arroz", 150.0));
+        journal.analysisCreated("5511999990002", plate("x".repeat(1000), 80.0));
+        journal.close();
+
+        AnalysisJournal restarted = newJournal(512);
+        Map<String, GeminiVisionClient.PlateAnalysis> state = restarted.recoveredState();
+        restarted.close();
+
+        assertEquals(1, state.size());
+        assertEquals("Arroz", state.get("5511999990001").items.get(0).namePt);
+    }
+
+    @Test
+    void queuedMealsSurviveRestartAndCompactionUntilResumed() throws Exception {
+        AnalysisJournal journal = newJournal();
+        journal.mealQueued("5511999990001", List.of("media-1", "media-2"));
+        journal.mealQueued("5511999990002", List.of("media-3"));
+        journal.mealQueued("5511999990002", List.of("media-4"));
+        journal.close();
+
+        // A abertura reproduz e compacta: a fila precisa sobreviver à reescrita do segmento
+        AnalysisJournal restarted = newJournal();
+        Map<String, List<String>> queued = restarted.recoveredMeals();
+        assertEquals(List.of("media-1", "media-2"), queued.get("5511999990001"));
+        assertEquals(List.of("media-3", "media-4"), queued.get("5511999990002"));
+
+        restarted.mealResumed("5511999990001");
+        restarted.close();
+
+        AnalysisJournal again = newJournal();
+        assertEquals(Map.of("5511999990002", List.of("media-3", "media-4")), again.recoveredMeals());
+        again.close();
+    }
+
+    @Test
+    void checkpointClosesSegmentAndRestoreReplaysIt() throws Exception {
+        AnalysisJournal journal = newJournal();
+        journal.analysisCreated("5511999990001", plate("Arroz", 150.0));
+
+        journal.stop();
+        assertFalse(journal.isRunning());
+        journal.analysisCreated("5511999990002", plate("Perdido", 1.0)); // sem segmento aberto: ignorado no disco
+
+        journal.start();
+        Map<String, GeminiVisionClient.PlateAnalysis> state = journal.recoveredState();
+        journal.close();
+
+        assertEquals(1, state.size());
+        assertEquals("Arroz", state.get("5511999990001").items.get(0).namePt);
+    }
+
+    private AnalysisJournal newJournal() throws Exception {
+        return newJournal(1 << 16);
+    }
+
+    private AnalysisJournal newJournal(int segmentBytes) throws Exception {
+        AnalysisJournal journal = new AnalysisJournal(new ObjectMapper());
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "journalDir", dir.toString());
+        ReflectionTestUtils.setField(journal, "segmentBytes", segmentBytes);
+        ReflectionTestUtils.setField(journal, "syncIntervalMs", 5L);
+        ReflectionTestUtils.setField(journal, "compactIntervalMin", 10L);
+        journal.open();
+        return journal;
+    }
+
+    private static GeminiVisionClient.PlateAnalysis plate(String name, double grams) {
+        GeminiVisionClient.FoodItem item = new GeminiVisionClient.FoodItem();
+        item.namePt = name;
+        item.nameEn = name;
+        item.quantityGrams = grams;
+        GeminiVisionClient.PlateAnalysis analysis = new GeminiVisionClient.PlateAnalysis();
+        analysis.items = List.of(item);
+        return analysis;
+    }
+}
@@ -0,0 +1,124 @@
+package br.com.tcc_bot.whatsapp;
+
+import br.com.tcc_bot.lifecycle.Drainable;
+import br.com.tcc_bot.lifecycle.WorkCoordinator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MealPhotoCoalescerTest {
+
+    private final BlockingQueue<List<String>> meals = new LinkedBlockingQueue<>();
+    private MealPhotoCoalescer coalescer;
+
+    @AfterEach
+    void tearDown() {
+        if (coalescer != null) {
+            coalescer.shutdown();
+        }
+    }
+
+    @Test
+    void photosInsideTheWindowBecomeOneMeal() throws Exception {
+        coalescer = newCoalescer(200, 4);
+
+        assertTrue(coalescer.add("user", "media-1", meals::add, ids -> { }));
+        assertFalse(coalescer.add("user", "media-2", meals::add, ids -> { }));
+        assertTrue(coalescer.add("other", "media-3", meals::add, ids -> { }));
+
+        Set<List<String>> delivered = Set.of(next(), next());
+        assertEquals(Set.of(List.of("media-1", "media-2"), List.of("media-3")), delivered);
+        assertNull(meals.poll(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void photoAfterTheWindowOpensANewMeal() throws Exception {
+        coalescer = newCoalescer(50, 4);
+
+        coalescer.add("user", "media-1", meals::add, ids -> { });
+        assertEquals(List.of("media-1"), next());
+
+        assertTrue(coalescer.add("user", "media-2", meals::add, ids -> { }));
+        assertEquals(List.of("media-2"), next());
+    }
+
+    @Test
+    void reachingTheLimitClosesTheMealWithoutWaiting() throws Exception {
+        coalescer = newCoalescer(60_000, 2);
+
+        coalescer.add("user", "media-1", meals::add, ids -> { });
+        coalescer.add("user", "media-2", meals::add, ids -> { });
+        coalescer.add("user", "media-3", meals::add, ids -> { });
+
+        assertEquals(List.of("media-1", "media-2"), next());
+        coalescer.drain();
+        assertEquals(List.of("media-3"), next());
+    }
+
+    @Test
+    void photosRacingWithTheFlushAreDeliveredExactlyOnce() throws Exception {
+        // Janela de 1 ms: o timer fecha grupos enquanto as outras threads ainda adicionam fotos
+        coalescer = newCoalescer(1, 3);
+        int threads = 4;
+        int photosPerThread = 500;
+        ExecutorService senders = Executors.newFixedThreadPool(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int sender = t;
+            senders.execute(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < photosPerThread; i++) {
+                    coalescer.add("user", sender + "-" + i, meals::add, ids -> { });
+                }
+            });
+        }
+        go.countDown();
+        senders.shutdown();
+        assertTrue(senders.awaitTermination(10, TimeUnit.SECONDS));
+        coalescer.drain();
+
+        List<String> delivered = new ArrayList<>();
+        while (delivered.size() < threads * photosPerThread) {
+            List<String> meal = next();
+            assertTrue(meal.size() <= 3, "grupo maior que o limite: " + meal);
+            delivered.addAll(meal);
+        }
+        assertEquals(threads * photosPerThread, new HashSet<>(delivered).size());
+        assertNull(meals.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    private List<String> next() throws InterruptedException {
+        List<String> meal = meals.poll(5, TimeUnit.SECONDS);
+        assertNotNull(meal, "refeição não foi entregue");
+        return meal;
+    }
+
+    private static MealPhotoCoalescer newCoalescer(long windowMs, int maxPhotos) {
+        WorkCoordinator coordinator = new WorkCoordinator(
+                new StaticListableBeanFactory().getBeanProvider(Drainable.class), new SimpleMeterRegistry(), 5);
+        coordinator.start();
+        MealPhotoCoalescer coalescer = new MealPhotoCoalescer(2, coordinator);
+        ReflectionTestUtils.setField(coalescer, "windowMs", windowMs);
+        ReflectionTestUtils.setField(coalescer, "maxPhotosPerMeal", maxPhotos);
+        return coalescer;
+    }
+}
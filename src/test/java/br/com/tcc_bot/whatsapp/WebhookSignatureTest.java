@@ -0,0 +1,51 @@
+package br.com.tcc_bot.whatsapp;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebhookSignatureTest {
+
+    private static final String SECRET = "app-secret";
+
+    private final WebhookSignature signature = new WebhookSignature(SECRET);
+
+    @Test
+    void acceptsOnlyTheHmacOfTheExactBytes() throws Exception {
+        byte[] body = "{\"object\":\"whatsapp_business_account\",\"entry\":[]}".getBytes(StandardCharsets.UTF_8);
+        String header = sign(body);
+
+        assertTrue(signature.verify(body, header));
+        assertTrue(signature.verify(body, header.toUpperCase().replace("SHA256=", "sha256=")), "hex maiúsculo");
+        // O Mac da thread é reaproveitado: a segunda verificação não pode herdar estado da primeira
+        assertTrue(signature.verify(body, header));
+
+        byte[] tampered = body.clone();
+        tampered[tampered.length - 2] = ' ';
+        assertFalse(signature.verify(tampered, header));
+        assertFalse(new WebhookSignature("outro-segredo").verify(body, header));
+    }
+
+    @Test
+    void rejectsMalformedHeadersWithoutHashing() {
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(signature.verify(body, null));
+        assertFalse(signature.verify(body, ""));
+        assertFalse(signature.verify(body, "sha1=" + "0".repeat(40)));
+        assertFalse(signature.verify(body, "sha256=" + "z".repeat(64)));
+        assertFalse(signature.verify(body, "sha256=" + "0".repeat(63)));
+    }
+
+    private static String sign(byte[] body) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return "sha256=" + HexFormat.of().formatHex(mac.doFinal(body));
+    }
+}
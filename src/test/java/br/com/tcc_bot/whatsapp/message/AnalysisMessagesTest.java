@@ -0,0 +1,88 @@
+package br.com.tcc_bot.whatsapp.message;
+
+import br.com.tcc_bot.ai.AnalysisService;
+import br.com.tcc_bot.ai.GeminiVisionClient;
+import br.com.tcc_bot.nutrition.profile.Nutrient;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisMessagesTest {
+
+    private final AnalysisMessages messages = new AnalysisMessages();
+
+    @Test
+    void fixedPrecisionMatchesFormatter() {
+        Locale br = Locale.of("pt", "BR");
+        double[] values = {0.0, 0.04, 0.05, 0.96, 1.25, 12.345, 99.95, 130.0, 1234.56, 98765.4321, -3.14};
+        for (double v : values) {
+            for (int decimals = 0; decimals <= 2; decimals++) {
+                String expected = String.format(br, "%." + decimals + "f", v);
+                assertEquals(expected, PtBrNumbers.appendFixed(new StringBuilder(), v, decimals).toString(),
+                        "valor " + v + " com " + decimals + " casas");
+            }
+        }
+    }
+
+    @Test
+    void fullAnalysisKeepsLayout() {
+        GeminiVisionClient.FoodItem rice = new GeminiVisionClient.FoodItem();
+        rice.namePt = "Arroz branco";
+        rice.quantityGrams = 150.4;
+        AnalysisService.EnrichedFoodItem item = new AnalysisService.EnrichedFoodItem(rice);
+        item.nutrients.set(Nutrient.ENERGY, 195.52);
+        item.nutrients.set(Nutrient.CARBOHYDRATES, 42.18);
+        item.nutrients.set(Nutrient.PROTEIN, 3.56);
+        item.nutrients.set(Nutrient.FAT, 0.42);
+
+        AnalysisService.FullAnalysisResponse response = new AnalysisService.FullAnalysisResponse();
+        response.items = List.of(item);
+        response.totals = new AnalysisService.NutritionalTotals(195.52, 3.56, 42.18, 0.42);
+
+        assertEquals("""
+                *Análise Nutricional*
+
+                *Arroz branco - 150g*
+                  Calorias: 196 kcal
+                  Carboidratos: 42,2 g
+                  Proteínas: 3,6 g
+                  Gorduras: 0,4 g
+
+                ━━━━━━━━━━━━━━━━━
+                *Total analisado*:
+                  Calorias: 196 kcal
+                  Carboidratos: 42,2 g
+                  Proteínas: 3,6 g
+                  Gorduras: 0,4 g""", messages.fullAnalysis(response));
+    }
+
+    @Test
+    void unmeasuredNutrientsShowAsUnknownNotZero() {
+        GeminiVisionClient.FoodItem bean = new GeminiVisionClient.FoodItem();
+        bean.namePt = "Feijão";
+        bean.quantityGrams = 100.0;
+        AnalysisService.EnrichedFoodItem item = new AnalysisService.EnrichedFoodItem(bean);
+        item.nutrients.set(Nutrient.ENERGY, 76.0).set(Nutrient.SODIUM, 0.0);
+
+        AnalysisService.FullAnalysisResponse response = new AnalysisService.FullAnalysisResponse();
+        response.items = List.of(item);
+        response.totals = new AnalysisService.NutritionalTotals(item.nutrients);
+
+        String text = messages.fullAnalysis(response, List.of(Nutrient.ENERGY, Nutrient.SODIUM, Nutrient.FIBER));
+        assertTrue(text.contains("  Sódio: 0 mg\n"), text);
+        assertTrue(text.endsWith("  Fibras: n/d"), text);
+    }
+
+    @Test
+    void rowTitlesRespectWhatsAppLimit() {
+        GeminiVisionClient.FoodItem item = new GeminiVisionClient.FoodItem();
+        item.namePt = "Filé de frango grelhado com ervas finas";
+        String title = messages.rowTitle(item);
+
+        assertTrue(title.length() <= WhatsAppLimits.ROW_TITLE, title);
+        assertEquals("Filé de frango...", title);
+    }
+}